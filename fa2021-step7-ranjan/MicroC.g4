@@ -5,18 +5,22 @@ grammar MicroC;
 package compiler;
 
 import java.util.List;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.function.Consumer;
 import ast.*;
 import compiler.Scope.*;
 
 }
 
 @members {
+     private CompilationContext ctx; //State of the unit being compiled
      private SymbolTable st; //Symbol table for the program
      private ASTNode ast; //AST for the program
+     private Consumer<FunctionNode> functionSink; //if set, gets each function as soon as it is parsed, instead of the AST
 
-     public void setSymbolTable(SymbolTable st) {
-          this.st = st;
+     public void setContext(CompilationContext ctx) {
+          this.ctx = ctx;
+          this.st = ctx.getSymbolTable();
      }
 
      public SymbolTable getSymbolTable() {
@@ -27,6 +31,30 @@ import compiler.Scope.*;
           return ast;
      }
 
+     public void setFunctionSink(Consumer<FunctionNode> sink) {
+          this.functionSink = sink;
+     }
+
+     private void addFunction(FunctionListNode functions, FunctionNode f) {
+          if (functionSink != null) {
+               functionSink.accept(f);
+          } else {
+               functions.add(f);
+          }
+     }
+
+     /* Text of the tokens from start to stop, for compiler.FunctionCache */
+     private String tokenText(Token start, Token stop) {
+          if (ctx.getFunctionCache() == null || !(_input instanceof BufferedTokenStream)) {
+               return null;
+          }
+          StringBuilder sb = new StringBuilder();
+          for (Token t : ((BufferedTokenStream) _input).get(start.getTokenIndex(), stop.getTokenIndex())) {
+               sb.append(t.getText()).append(' ');
+          }
+          return sb.toString();
+     }
+
      private void addParams(List<Scope.Type> types, List<String> names) {
           /* Add parameters in reverse order so everything matches correctly */
           for (int i = types.size() - 1; i >= 0; --i) {
@@ -38,35 +66,31 @@ import compiler.Scope.*;
 program : decls functions {ast = $functions.node;};
 
 /* Declarations */
-decls : var_decl decls
-      | str_decl decls
-      | func_decl decls
-	 | /* empty */ ;
+/* Lists are written as loops rather than right recursion so long lists are built in linear time and constant stack depth */
+decls : (var_decl | str_decl | func_decl)* ;
 
-var_decls : var_decl var_decls 
-          | /* emoty */ ;
+var_decls : var_decl* ;
 
 /* Identifiers and types */		  
 id : IDENTIFIER ;
 		  
 var_decl : type id ';' {st.addVariable($type.t, $id.text);};
 
-str_decl : 'string' id '=' val= STR_LITERAL ';' {st.addVariable(new Scope.Type(Scope.InnerType.STRING), $id.text, $val.text);};
+str_decl : 'string' id '=' val= STR_LITERAL ';' {st.addVariable(Scope.Type.STRING, $id.text, $val.text);};
 
 type returns [Scope.Type t] : base_type {$t = $base_type.t;}
           | t1=type '*' {$t = Scope.Type.pointerToType($t1.t);};
 
-base_type returns [Scope.Type t]: 'int' {$t = new Scope.Type(Scope.InnerType.INT);}| 'float' {$t = new Scope.Type(Scope.InnerType.FLOAT);};
+base_type returns [Scope.Type t]: 'int' {$t = Scope.Type.INT;}| 'float' {$t = Scope.Type.FLOAT;};
 
 func_type returns [Scope.Type t]: type {$t = $type.t;}
-          | 'void' {$t = new Scope.Type(Scope.InnerType.VOID);};
+          | 'void' {$t = Scope.Type.VOID;};
 
 /* Functions */
 
 func_decl : func_type id '(' params ')' ';' {st.addFunction($func_type.t, $id.text, $params.types);};
 
-functions returns [FunctionListNode node] : function functions {$node = new FunctionListNode($function.node, $functions.node);}
-            | /* empty */ {$node = new FunctionListNode();};
+functions returns [FunctionListNode node] @init {$node = new FunctionListNode();} : (function {addFunction($node, $function.node);})* ;
 
 function returns [FunctionNode node] : func_type id '(' params ')' 
       {
@@ -87,35 +111,23 @@ function returns [FunctionNode node] : func_type id '(' params ')'
           /* Create FunctionNode */
           LocalScope funcScope = (LocalScope) st.currentScope();
           $node = new FunctionNode($statements.node, $id.text, funcScope);
+          $node.setSource(tokenText($start, _input.LT(-1)));
 
           /* Done with this scope, so pop the scope */
           st.popScope();
      };
 		 		 
-params returns [LinkedList<String> names, LinkedList<Scope.Type> types]: param params_rest 
-          {
-               $names = new LinkedList<String>();
-               $types = new LinkedList<Scope.Type>();
-               $names.add($param.name); $names.addAll($params_rest.names);
-               $types.add($param.param_type); $types.addAll($params_rest.types);
-          }
-       | /* empty */ {$names = new LinkedList<String>(); $types = new LinkedList<Scope.Type>();};
+params returns [List<String> names, List<Scope.Type> types] @init {$names = new ArrayList<String>(); $types = new ArrayList<Scope.Type>();}
+       : param {$names.add($param.name); $types.add($param.param_type);} params_rest[$names, $types]
+       | /* empty */ ;
 		   
-params_rest returns [LinkedList<String> names, LinkedList<Scope.Type> types] : ',' param params_rest
-          {
-               $names = new LinkedList<String>();
-               $types = new LinkedList<Scope.Type>();
-               $names.add($param.name); $names.addAll($params_rest.names);
-               $types.add($param.param_type); $types.addAll($params_rest.types);
-          }
-            | /* empty */ {$names = new LinkedList<String>(); $types = new LinkedList<Scope.Type>();};
+params_rest [List<String> names, List<Scope.Type> types] : (',' param {$names.add($param.name); $types.add($param.param_type);})* ;
 			
 param returns [String name, Scope.Type param_type] : type id {$name = $id.text; $param_type = $type.t;};                   
 
 /* Statements */
 		 
-statements returns [StatementListNode node] : statement s=statements {$node = new StatementListNode($statement.node, $s.node);}
-            | /* empty */ {$node = new StatementListNode();};
+statements returns [StatementListNode node] @init {$node = new StatementListNode();} : (statement {$node.add($statement.node);})* ;
 			
 statement returns [StatementNode node] : base_stmt ';' {$node = $base_stmt.node;}
 		  | if_stmt {$node = $if_stmt.node;} /*  FILL IN FROM STEP 1 */ /* FILL IN ACTIONS FROM STEP 3 */
@@ -127,7 +139,7 @@ base_stmt returns [StatementNode node] : assign_stmt {$node = $assign_stmt.node;
 		| return_stmt {$node = $return_stmt.node;}
           | call_expr {$node = $call_expr.node;};
 		 
-read_stmt returns [ReadNode node] : 'read' '(' id ')' {$node = new ReadNode(new VarNode($id.text));} ;
+read_stmt returns [ReadNode node] : 'read' '(' id ')' {$node = new ReadNode(new VarNode($id.text, ctx));} ;
 
 print_stmt returns [WriteNode node] : 'print' '(' expr ')' {$node = new WriteNode($expr.node);};
 
@@ -155,7 +167,7 @@ while_stmt returns [WhileNode node] : 'while' '(' cond ')' '{' statements '}'  {
 	 
 /* Expressions */
 
-lval returns [ExpressionNode node] : id {$node = new VarNode($id.text);}
+lval returns [ExpressionNode node] : id {$node = new VarNode($id.text, ctx);}
         | ptr_expr {$node = $ptr_expr.node;};
 
 primary returns [ExpressionNode node] : lval {$node = $lval.node;}
@@ -178,18 +190,19 @@ addr_of_expr returns [AddrOfNode node] : '&' lval {$node = new AddrOfNode($lval.
 array_expr returns [PtrDerefNode node] : lval '[' expr ']' {$node=new PtrDerefNode(new BinaryOpNode($lval.node, new BinaryOpNode($expr.node, new IntLitNode("4"), "*"), "+"));} /* FILL IN FOR STEP 6 */
         | ae=array_expr '[' expr ']'{$node = new PtrDerefNode(new BinaryOpNode($ae.node,new BinaryOpNode($expr.node,new IntLitNode("4"),"*"),"+"));}; /* FILL IN FOR STEP 6 */
 
- cast_expr returns [CastExprNode node] : '( 'type ')' expr {$node = new CastExprNode($type.t,$expr.node);}; /*Step 7 */
+ /* a cast binds to one operand, as in C: (float) a / b casts only a */
+ cast_expr returns [CastExprNode node] : '(' type ')' primary {$node = new CastExprNode($type.t,$primary.node);}; /*Step 7 */
 
 /* Call expressions */
 call_expr returns [AbstractCallNode node] : 'malloc' '(' expr ')' {$node = new MallocNode($expr.node);}
      | 'free' '(' expr ')' {$node = new FreeNode($expr.node);}
-     | id '(' arg_list ')' {$node = new CallNode($id.text, $arg_list.args);};
+     | id '(' arg_list ')' {$node = new CallNode($id.text, $arg_list.args, ctx);};
 
-arg_list returns [List<ExpressionNode> args] : expr args_rest {$args = new LinkedList<ExpressionNode>(); $args.add($expr.node); $args.addAll($args_rest.args);}
-         | /* empty */ {$args = new LinkedList<ExpressionNode>();};
+arg_list returns [List<ExpressionNode> args] @init {$args = new ArrayList<ExpressionNode>();}
+         : expr {$args.add($expr.node);} args_rest[$args]
+         | /* empty */ ;
 		 
-args_rest returns [List<ExpressionNode> args] : ',' expr args_rest {$args = new LinkedList<ExpressionNode>(); $args.add($expr.node); $args.addAll($args_rest.args);}
-          | /* empty */ {$args = new LinkedList<ExpressionNode>();};
+args_rest [List<ExpressionNode> args] : (',' expr {$args.add($expr.node);})* ;
 
 /* This is left recursive, but ANTLR will clean this up */ 
 expr returns [ExpressionNode node] : term {$node = $term.node;}
@@ -0,0 +1,80 @@
+#!/usr/bin/env python3
+"""Compare a JMH result file against a stored baseline.
+
+    python3 bench/compare.py bench/baselines/jmh-baseline.json bench/results.json [--threshold %]
+
+Prints time per op and allocation per op for every benchmark/input in both files,
+with the change from the baseline. Exits with 1 if any benchmark got slower, or
+allocates more, by more than the threshold (default 10%). A slowdown only counts
+when it is also larger than the two runs' error bars (JMH's scoreError) put
+together; one that is not is marked "noise" instead. The baseline must come from
+the same machine: record it with make bench-baseline.
+"""
+import argparse
+import json
+import os
+import sys
+
+ALLOC = "gc.alloc.rate.norm"
+
+
+def load(path):
+    results = {}
+    for r in json.load(open(path)):
+        name = r["benchmark"].rsplit(".", 1)[-1]
+        key = (name, r.get("params", {}).get("input", ""))
+        alloc = None
+        for metric, value in r.get("secondaryMetrics", {}).items():
+            if metric.endswith(ALLOC):
+                alloc = value["score"]
+        pm = r["primaryMetric"]
+        error = pm.get("scoreError")
+        if not isinstance(error, (int, float)) or error != error:
+            error = 0.0  # JMH writes NaN when there were too few iterations to tell
+        results[key] = (pm["score"], pm["scoreUnit"], alloc, error)
+    return results
+
+
+def change(old, new):
+    if old is None or new is None or old == 0:
+        return None
+    return (new - old) / old * 100
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("baseline")
+    parser.add_argument("results")
+    parser.add_argument("--threshold", type=float, default=10.0)
+    args = parser.parse_args()
+    if not os.path.exists(args.baseline):
+        print("no baseline at %s; store one with make bench-baseline" % args.baseline)
+        sys.exit(0)
+    base = load(args.baseline)
+    cur = load(args.results)
+    threshold = args.threshold
+
+    regressed = False
+    print("%-10s %-16s %14s %9s %16s %9s" % ("benchmark", "input", "time/op", "change", "bytes/op", "change"))
+    for key in sorted(cur):
+        if key not in base:
+            continue
+        (t0, unit, a0, e0), (t1, _, a1, e1) = base[key], cur[key]
+        dt, da = change(t0, t1), change(a0, a1)
+        flag = ""
+        slower = dt is not None and dt > threshold
+        if slower and t1 - t0 <= e0 + e1:
+            flag = "  noise"
+        elif slower or (da is not None and da > threshold):
+            flag = "  REGRESSION"
+            regressed = True
+        print("%-10s %-16s %11.1f %s %8s %16s %8s%s" % (
+            key[0], key[1], t1, unit.split("/")[0],
+            "" if dt is None else "%+.1f%%" % dt,
+            "" if a1 is None else "%.0f" % a1,
+            "" if da is None else "%+.1f%%" % da, flag))
+    sys.exit(1 if regressed else 0)
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,143 @@
+package bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import assembly.AsmEmitter;
+import assembly.CodeGenerator;
+import assembly.CodeObject;
+import ast.ASTNode;
+import compiler.CompilationContext;
+import compiler.MicroCLexer;
+import compiler.MicroCParser;
+import compiler.TwoStageParser;
+
+/**
+ * JMH benchmarks for the compiler's phases, one benchmark per phase, each over the
+ * same set of inputs (see {@link Inputs}). Run with <code>make bench</code>, which
+ * adds <code>-prof gc</code> for allocation rates and writes
+ * <code>bench/results.json</code>. Pass e.g. <code>JMH_ARGS="-p input=lines:1000000"</code>
+ * for the big synthetic inputs.
+ *
+ * Each phase gets its input from the phases before it, prepared once in
+ * {@link #setup}, so a benchmark only measures its own phase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CompilerBenchmarks {
+
+	@Param({"option2/test0", "option2/test1", "option3/test0", "option3/test1", "option3/test2",
+			"option3/test3", "option3/test4", "lines:1000", "lines:10000", "lines:100000"})
+	public String input;
+
+	private String source;
+	private ASTNode ast;
+	private CompilationContext astContext;
+	private CodeObject code;
+
+	@Setup
+	public void setup() throws IOException {
+		source = Inputs.load(input);
+
+		MicroCParser parser = parser();
+		astContext = context();
+		parser.setContext(astContext);
+		parser.program();
+		ast = parser.getAST();
+
+		code = new CodeGenerator(astContext).run(ast);
+	}
+
+	/** Lexer token throughput: returns the number of tokens */
+	@Benchmark
+	public int lex() {
+		MicroCLexer lexer = new MicroCLexer(CharStreams.fromString(source));
+		int n = 0;
+		while (lexer.nextToken().getType() != Token.EOF) {
+			n++;
+		}
+		return n;
+	}
+
+	/** Parsing as the compiler does it (SLL first), including the symbol table actions and AST construction */
+	@Benchmark
+	public ASTNode parse() {
+		MicroCParser parser = parser();
+		CompilationContext ctx = context();
+		parser.setContext(ctx);
+		TwoStageParser.parse(parser, ctx);
+		return parser.getAST();
+	}
+
+	/** Parsing with full LL prediction only, for comparison */
+	@Benchmark
+	public ASTNode parseLL() {
+		MicroCParser parser = parser();
+		parser.setContext(context());
+		parser.program();
+		return parser.getAST();
+	}
+
+	@Benchmark
+	public CodeObject codegen() {
+		return new CodeGenerator(astContext).run(ast);
+	}
+
+	/** Emitting the generated code as text */
+	@Benchmark
+	public void emit() {
+		AsmEmitter asm = new AsmEmitter(NULL_WRITER);
+		asm.emit(code.getCode());
+		asm.flush();
+	}
+
+	private MicroCParser parser() {
+		return new MicroCParser(new CommonTokenStream(new MicroCLexer(CharStreams.fromString(source))));
+	}
+
+	/* Fresh context whose output (symbol table messages, codegen comments) goes nowhere */
+	private static CompilationContext context() {
+		return new CompilationContext(new PrintStream(NULL_STREAM));
+	}
+
+	private static final OutputStream NULL_STREAM = new OutputStream() {
+		@Override
+		public void write(int b) { }
+
+		@Override
+		public void write(byte[] b, int off, int len) { }
+	};
+
+	private static final Writer NULL_WRITER = new Writer() {
+		@Override
+		public void write(char[] cbuf, int off, int len) { }
+
+		@Override
+		public void flush() { }
+
+		@Override
+		public void close() { }
+	};
+}
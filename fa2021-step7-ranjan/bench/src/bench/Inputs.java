@@ -0,0 +1,54 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Programs the benchmarks compile. An input is either the name of one of the
+ * checked-in test programs (<code>option3/test0</code>, relative to
+ * <code>tests/</code>) or <code>lines:N</code> for a synthetic program of about N
+ * lines.
+ */
+public class Inputs {
+
+	private Inputs() { }
+
+	public static String load(String input) throws IOException {
+		if (input.startsWith("lines:")) {
+			return synthetic(Integer.parseInt(input.substring("lines:".length())));
+		}
+		return new String(Files.readAllBytes(Paths.get("tests", input + ".uC")), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * A program of about <code>lines</code> lines: functions of 50 lines with a
+	 * loop, a branch, int and float arithmetic and calls, plus a main that calls them.
+	 */
+	public static String synthetic(int lines) {
+		int funcs = Math.max(1, lines / 50);
+		StringBuilder sb = new StringBuilder();
+		sb.append("int g;\nfloat h;\n");
+		for (int f = 0; f < funcs; f++) {
+			sb.append("int f").append(f).append("(int a, float b) {\n");
+			sb.append("\tint i;\n\tint s;\n\tfloat t;\n");
+			sb.append("\ti = 0;\n\ts = a;\n\tt = b;\n");
+			sb.append("\twhile (i < 10) {\n");
+			for (int k = 0; k < 18; k++) {
+				sb.append("\t\ts = s + i * ").append(k + 1).append(" - (a - ").append(k).append(") / 2;\n");
+			}
+			sb.append("\t\tif (s > 1000) {\n\t\t\ts = s - 1000;\n\t\t} else {\n\t\t\ts = s + 1;\n\t\t}\n");
+			for (int k = 0; k < 10; k++) {
+				sb.append("\t\tt = t * 0.5 + b - ").append(k).append(".25;\n");
+			}
+			sb.append("\t\ti = i + 1;\n\t}\n");
+			if (f > 0) {
+				sb.append("\ts = s + f").append(f - 1).append("(a, b);\n");
+			}
+			sb.append("\tg = s;\n\th = t;\n\treturn s;\n}\n");
+		}
+		sb.append("int main() {\n\tprint(f").append(funcs - 1).append("(3, 1.5));\n\treturn 0;\n}\n");
+		return sb.toString();
+	}
+}
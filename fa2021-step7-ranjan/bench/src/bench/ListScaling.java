@@ -0,0 +1,94 @@
+package bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+import compiler.CompilationContext;
+import compiler.MicroCLexer;
+import compiler.MicroCParser;
+
+/**
+ * Scaling benchmark for AST list construction.
+ *
+ * Generates programs with n statements in one function, n functions, and calls
+ * with n arguments to a function with n parameters, then times parsing and AST
+ * construction for doubling n. With linear list building the time per element
+ * stays flat as n grows; the last column reports it.
+ *
+ * 		java -cp classes:bench/classes:$LIB_ANTLR bench.ListScaling [max n]
+ */
+public class ListScaling {
+
+	public static void main(String args[]) {
+		int max = (args.length > 0) ? Integer.parseInt(args[0]) : 64000;
+
+		//Warm up the parser so the first rows are not dominated by JIT
+		for (int i = 0; i < 5; i++) {
+			parse(statements(1000));
+			parse(functions(200));
+			parse(arguments(200));
+		}
+
+		System.out.println(String.format("%-10s %8s %10s %12s", "list", "n", "ms", "ns/element"));
+		for (int n = 1000; n <= max; n *= 2) {
+			report("statements", n, statements(n));
+		}
+		for (int n = 1000; n <= max; n *= 2) {
+			report("functions", n, functions(n));
+		}
+		for (int n = 1000; n <= max; n *= 2) {
+			report("arguments", n, arguments(n));
+		}
+	}
+
+	private static void report(String list, int n, String program) {
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < 3; i++) {
+			long start = System.nanoTime();
+			parse(program);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		System.out.println(String.format("%-10s %8d %10.1f %12.1f", list, n, best / 1e6, (double) best / n));
+	}
+
+	private static void parse(String program) {
+		MicroCLexer lexer = new MicroCLexer(CharStreams.fromString(program));
+		MicroCParser parser = new MicroCParser(new CommonTokenStream(lexer));
+		parser.setContext(new CompilationContext(new PrintStream(new ByteArrayOutputStream())));
+		parser.program();
+	}
+
+	/* One function with n assignments */
+	private static String statements(int n) {
+		StringBuilder sb = new StringBuilder("int main() {\n\tint x;\n\tx = 0;\n");
+		for (int i = 0; i < n; i++) {
+			sb.append("\tx = x + 1;\n");
+		}
+		return sb.append("\treturn x;\n}\n").toString();
+	}
+
+	/* n small functions */
+	private static String functions(int n) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			sb.append("int f").append(i).append("() {\n\treturn ").append(i).append(";\n}\n");
+		}
+		return sb.append("int main() {\n\treturn 0;\n}\n").toString();
+	}
+
+	/* A function with n parameters, called with n arguments */
+	private static String arguments(int n) {
+		StringBuilder sb = new StringBuilder("int f(");
+		for (int i = 0; i < n; i++) {
+			sb.append(i == 0 ? "" : ", ").append("int p").append(i);
+		}
+		sb.append(") {\n\treturn p0;\n}\nint main() {\n\treturn f(");
+		for (int i = 0; i < n; i++) {
+			sb.append(i == 0 ? "" : ", ").append(i);
+		}
+		return sb.append(");\n}\n").toString();
+	}
+}
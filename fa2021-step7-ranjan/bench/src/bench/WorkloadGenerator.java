@@ -0,0 +1,775 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates random, valid uC programs for compile-time and runtime scaling studies.
+ *
+ * 		java bench.WorkloadGenerator [options] -o prog.uC [--expect prog.out]
+ *
+ * 		--seed N				random seed (default 1); the same seed and options give the same program
+ * 		--functions N			number of functions besides main (default 10)
+ * 		--lines N				instead of --functions, about how many lines to generate
+ * 		--statements N			statements per function (default 20)
+ * 		--depth N				maximum expression depth (default 3)
+ * 		--nesting N				maximum while/if nesting (default 2)
+ * 		--floats P				fraction of float statements and expressions, 0..1 (default 0.3)
+ * 		--casts					use (int) and (float) casts
+ * 		--pointers				give every function a malloc'd int array to read and write
+ * 		--calls SHAPE			call graph: flat (main calls every function), chain, tree
+ * 								or random (each function calls one later one) (default chain)
+ *
+ * Every program declares all functions up front, initializes every variable before
+ * using it, and keeps values bounded (ints stay within +-10000 between statements,
+ * floats within +-1000), so it runs without overflow or division by zero. Every
+ * function prints its results before returning, and main prints what each call
+ * returned. A while loop runs a fixed number of times, counting up or down in an int
+ * or a float counter that it compares with <, <=, >, >= or !=.
+ *
+ * With <code>--expect</code> the generator also runs the program on its own model and
+ * writes the output the program must produce. The model follows the RiscSim
+ * simulator: ints do not overflow, int division rounds down, floats are doubles and
+ * are printed like Python prints them. RiscSim has no MALLOC/FREE, so only programs
+ * without <code>--pointers</code> can be checked there.
+ *
+ * Without <code>--expect</code> functions are written out as they are generated and
+ * then dropped, so very large programs (millions of lines) take little memory.
+ */
+public class WorkloadGenerator {
+
+	static final int INT_LIMIT = 10000;
+	static final double FLOAT_LIMIT = 1000.0;
+	static final int ARRAY_SIZE = 10;
+	static final int MAX_TRIPS = 4;
+
+	enum CallShape { FLAT, CHAIN, TREE, RANDOM }
+
+	/* Knobs */
+	long seed = 1;
+	int functions = 10;
+	int statements = 20;
+	int depth = 3;
+	int nesting = 2;
+	double floats = 0.3;
+	boolean casts = false;
+	boolean pointers = false;
+	CallShape calls = CallShape.CHAIN;
+
+	private Random rand;
+	private boolean[] called; //functions some other function calls
+	private List<Function> program; //only kept when the output is wanted
+
+	public static void main(String args[]) throws IOException {
+		WorkloadGenerator g = new WorkloadGenerator();
+		String output = null;
+		String expect = null;
+		int lines = 0;
+
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--seed": g.seed = Long.parseLong(args[++i]); break;
+				case "--functions": g.functions = Integer.parseInt(args[++i]); break;
+				case "--lines": lines = Integer.parseInt(args[++i]); break;
+				case "--statements": g.statements = Integer.parseInt(args[++i]); break;
+				case "--depth": g.depth = Integer.parseInt(args[++i]); break;
+				case "--nesting": g.nesting = Integer.parseInt(args[++i]); break;
+				case "--floats": g.floats = Double.parseDouble(args[++i]); break;
+				case "--casts": g.casts = true; break;
+				case "--pointers": g.pointers = true; break;
+				case "--calls": g.calls = CallShape.valueOf(args[++i].toUpperCase()); break;
+				case "-o": output = args[++i]; break;
+				case "--expect": expect = args[++i]; break;
+				default: throw new IllegalArgumentException("unknown option " + args[i]);
+			}
+		}
+		if (lines > 0) {
+			g.functions = g.functionsFor(lines);
+		}
+
+		try (Writer out = new BufferedWriter((output != null) ? new FileWriter(output) : new OutputStreamWriter(System.out))) {
+			g.generate(out, expect != null);
+		}
+		if (expect != null) {
+			try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(expect)))) {
+				g.run(out);
+			}
+		}
+	}
+
+	/**
+	 * Write the program to <code>out</code>.
+	 *
+	 * @param keep keep the program so it can be {@link #run} afterwards
+	 */
+	public void generate(Writer out, boolean keep) throws IOException {
+		rand = new Random(seed);
+		program = keep ? new ArrayList<Function>() : null;
+		called = new boolean[functions];
+		if (floats <= 0) casts = false; //nothing to cast from
+
+		for (int f = 0; f < functions; f++) {
+			out.write("int " + Function.name(f) + "(" + params() + ");\n");
+		}
+		out.write("\n");
+
+		for (int f = 0; f < functions; f++) {
+			Function fn = new Function(f);
+			fn.build(this);
+			out.write(fn.render());
+			out.write("\n");
+			if (keep) program.add(fn);
+		}
+
+		out.write("int main() {\n\tint r;\n");
+		for (int f : roots()) {
+			out.write("\tr = " + Function.name(f) + "(" + f + ", " + (f % 7 + 1) + (floats > 0 ? ", 1.5" : "") + ");\n");
+			out.write("\tprint(r);\n");
+		}
+		out.write("\treturn 0;\n}\n");
+	}
+
+	/**
+	 * Run the generated program on the model and write what it prints
+	 */
+	public void run(PrintWriter out) {
+		if (program == null) throw new IllegalStateException("program was not kept");
+		for (int f : roots()) {
+			long r = program.get(f).call(this, f, f % 7 + 1, 1.5, out);
+			out.println(r);
+		}
+	}
+
+	/**
+	 * How many functions make a program of about <code>lines</code> lines with the
+	 * other knobs as set. Generates a few functions to see how long they come out.
+	 */
+	int functionsFor(int lines) {
+		final int probe = 8;
+		WorkloadGenerator g = new WorkloadGenerator();
+		g.seed = seed;
+		g.functions = probe;
+		g.statements = statements;
+		g.depth = depth;
+		g.nesting = nesting;
+		g.floats = floats;
+		g.casts = casts;
+		g.pointers = pointers;
+		g.calls = calls;
+		StringWriter sw = new StringWriter();
+		try {
+			g.generate(sw, false);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		long perFunction = sw.toString().chars().filter(c -> c == '\n').count() / probe;
+		return (int) Math.max(1, lines / Math.max(1, perFunction));
+	}
+
+	private String params() {
+		return "int p0, int p1" + (floats > 0 ? ", float q0" : "");
+	}
+
+	/* Functions main calls */
+	private List<Integer> roots() {
+		List<Integer> roots = new ArrayList<Integer>();
+		if (functions == 0) return roots;
+		switch (calls) {
+			case FLAT:
+				for (int f = 0; f < functions; f++) roots.add(f);
+				break;
+			case CHAIN:
+			case TREE:
+				roots.add(0);
+				break;
+			case RANDOM:
+				//every function nobody else calls
+				for (int f = 0; f < functions; f++) {
+					if (!called[f]) roots.add(f);
+				}
+				break;
+		}
+		return roots;
+	}
+
+	/* Callees of function f. Calls only go to later functions, so there is no recursion */
+	int[] callees(int f) {
+		switch (calls) {
+			case CHAIN:
+				return (f + 1 < functions) ? new int[] {f + 1} : new int[0];
+			case TREE:
+				int children = Math.max(0, Math.min(2, functions - 2 * f - 1));
+				return (children == 2) ? new int[] {2 * f + 1, 2 * f + 2} : (children == 1) ? new int[] {2 * f + 1} : new int[0];
+			case RANDOM:
+				if (f + 1 == functions) return new int[0];
+				int c = f + 1 + rand.nextInt(functions - f - 1);
+				called[c] = true;
+				return new int[] {c};
+			default:
+				return new int[0];
+		}
+	}
+
+	int nextInt(int bound) {
+		return rand.nextInt(bound);
+	}
+
+	boolean chance(double p) {
+		return rand.nextDouble() < p;
+	}
+
+	/**
+	 * Format a double the way Python's repr does, which is how RiscSim prints floats:
+	 * the shortest digits that read back as the same value, in positional notation
+	 * for exponents -4..15 and as e.g. <code>1.5e+16</code> otherwise.
+	 */
+	static String pythonRepr(double d) {
+		if (Double.isNaN(d)) return "nan";
+		if (Double.isInfinite(d)) return d > 0 ? "inf" : "-inf";
+		if (d == 0) return (1 / d < 0) ? "-0.0" : "0.0";
+
+		String sci = null;
+		for (int p = 0; p < 17; p++) {
+			sci = String.format("%." + p + "e", d);
+			if (Double.parseDouble(sci) == d) break;
+		}
+		int e = sci.indexOf('e');
+		String mantissa = sci.substring(0, e);
+		int exp = Integer.parseInt(sci.substring(e + 1));
+		boolean neg = mantissa.startsWith("-");
+		String digits = mantissa.replace("-", "").replace(".", "");
+		digits = digits.replaceAll("0+$", "");
+		if (digits.isEmpty()) digits = "0";
+
+		StringBuilder sb = new StringBuilder(neg ? "-" : "");
+		if (exp >= -4 && exp < 16) {
+			if (exp < 0) {
+				sb.append("0.");
+				for (int i = 0; i < -exp - 1; i++) sb.append('0');
+				sb.append(digits);
+			} else if (digits.length() <= exp + 1) {
+				sb.append(digits);
+				for (int i = digits.length(); i < exp + 1; i++) sb.append('0');
+				sb.append(".0");
+			} else {
+				sb.append(digits, 0, exp + 1).append('.').append(digits.substring(exp + 1));
+			}
+		} else {
+			sb.append(digits.charAt(0));
+			if (digits.length() > 1) sb.append('.').append(digits.substring(1));
+			sb.append('e').append(exp < 0 ? '-' : '+');
+			if (Math.abs(exp) < 10) sb.append('0');
+			sb.append(Math.abs(exp));
+		}
+		return sb.toString();
+	}
+
+	/* ------------------------------------------------------------------ */
+	/* Program model: every node can print itself as uC and run itself     */
+	/* ------------------------------------------------------------------ */
+
+	/* Values of one function activation */
+	static class Frame {
+		final long[] ints;
+		final double[] floats;
+		long[] array;
+
+		Frame(int ints, int floats) {
+			this.ints = new long[ints];
+			this.floats = new double[floats];
+		}
+	}
+
+	static class Function {
+		static final int PARAM_INTS = 2;
+		static final int LOCAL_INTS = 4;
+		static final int LOCAL_FLOATS = 2;
+
+		final int index;
+		int[] callees;
+		int numInts; //params, locals, loop counters
+		int numFloats; //param, locals, loop counters
+		boolean hasArray;
+		List<Stmt> body = new ArrayList<Stmt>();
+
+		/* Generation state */
+		private WorkloadGenerator g;
+		private int loopDepth;
+
+		Function(int index) {
+			this.index = index;
+		}
+
+		static String name(int f) {
+			return "f" + f;
+		}
+
+		void build(WorkloadGenerator g) {
+			this.g = g;
+			callees = g.callees(index);
+			numInts = PARAM_INTS + LOCAL_INTS + g.nesting;
+			numFloats = (g.floats > 0) ? 1 + LOCAL_FLOATS + g.nesting : 0;
+			hasArray = g.pointers;
+
+			//initialize every local
+			for (int i = PARAM_INTS; i < PARAM_INTS + LOCAL_INTS; i++) {
+				body.add(new AssignInt(i, (i == PARAM_INTS) ? new IntVar(0) : new IntLit(i)));
+			}
+			//a loop's int counter is read in the loops it contains, which may count in floats
+			for (int i = PARAM_INTS + LOCAL_INTS; i < numInts; i++) {
+				body.add(new AssignInt(i, new IntLit(0)));
+			}
+			for (int i = 1; i < numFloats; i++) {
+				body.add(new AssignFloat(i, new FloatVar(0)));
+			}
+			if (hasArray) {
+				body.add(new Malloc());
+				for (int i = 0; i < ARRAY_SIZE; i++) {
+					body.add(new ArrayStore(i, new IntLit(i)));
+				}
+			}
+
+			for (int s = 0; s < g.statements; s++) {
+				statement(body, 0);
+			}
+
+			for (int c : callees) {
+				List<IntExpr> args = new ArrayList<IntExpr>();
+				args.add(intExpr(1));
+				args.add(intExpr(1));
+				int v = localInt();
+				body.add(new CallStmt(v, c, args, numFloats > 0 ? floatExpr(1) : null));
+				bound(body, v);
+			}
+
+			body.add(new PrintInt(PARAM_INTS));
+			if (numFloats > 0) body.add(new PrintFloat(1));
+			if (hasArray) body.add(new Free());
+			this.g = null;
+		}
+
+		private void statement(List<Stmt> out, int nest) {
+			int kind = g.nextInt(10);
+			if (kind < 2 && nest < g.nesting) {
+				//while loop with a fixed trip count
+				While w = loop(1 + g.nextInt(MAX_TRIPS));
+				loopDepth++;
+				int n = 1 + g.nextInt(3);
+				for (int i = 0; i < n; i++) statement(w.body, nest + 1);
+				loopDepth--;
+				out.add(w);
+			} else if (kind < 4 && nest < g.nesting) {
+				If s = new If(cond());
+				int n = 1 + g.nextInt(3);
+				for (int i = 0; i < n; i++) statement(s.then, nest + 1);
+				if (g.chance(0.5)) {
+					n = 1 + g.nextInt(3);
+					for (int i = 0; i < n; i++) statement(s.otherwise, nest + 1);
+				}
+				out.add(s);
+			} else if (hasArray && kind < 5) {
+				out.add(new ArrayStore(g.nextInt(ARRAY_SIZE), intExpr(g.depth)));
+			} else if (numFloats > 0 && g.chance(g.floats)) {
+				int v = 1 + g.nextInt(LOCAL_FLOATS);
+				out.add(new AssignFloat(v, floatExpr(g.depth)));
+				boundFloat(out, v);
+			} else {
+				int v = localInt();
+				out.add(new AssignInt(v, intExpr(g.depth)));
+				bound(out, v);
+			}
+		}
+
+		/* A loop that runs trips times, with the counter of this loop depth going up from 0 or down from trips */
+		private While loop(int trips) {
+			boolean up = g.chance(0.5);
+			String op = up ? new String[] {"<", "<=", "!="}[g.nextInt(3)] : new String[] {">", ">="}[g.nextInt(2)];
+			long first = up ? 0 : trips;
+			long last = op.equals("<=") ? trips - 1 : op.equals(">=") ? 1 : first == 0 ? trips : 0;
+			String step = up ? "+" : "-";
+			if (numFloats > 0 && g.chance(g.floats)) {
+				int c = 1 + LOCAL_FLOATS + loopDepth;
+				return new While(new AssignFloat(c, new FloatLit(first)),
+						new FloatCmp(op, new FloatVar(c), new FloatLit(last)),
+						new AssignFloat(c, new FloatBin(step, new FloatVar(c), new FloatLit(1))));
+			}
+			int c = PARAM_INTS + LOCAL_INTS + loopDepth;
+			return new While(new AssignInt(c, new IntLit(first)),
+					new IntCmp(op, new IntVar(c), new IntLit(last)),
+					new AssignInt(c, new IntBin(step, new IntVar(c), new IntLit(1))));
+		}
+
+		private int localInt() {
+			return PARAM_INTS + g.nextInt(LOCAL_INTS);
+		}
+
+		/* Keep int variable v within +-INT_LIMIT (floor division, like the target) */
+		private void bound(List<Stmt> out, int v) {
+			for (int sign = 1; sign >= -1; sign -= 2) {
+				If s = new If(new IntCmp(sign > 0 ? ">" : "<", new IntVar(v), lit(sign * INT_LIMIT)));
+				s.then.add(new AssignInt(v, new IntBin("-", new IntVar(v),
+						new IntBin("*", new IntBin("/", new IntVar(v), new IntLit(INT_LIMIT)), new IntLit(INT_LIMIT)))));
+				out.add(s);
+			}
+		}
+
+		private void boundFloat(List<Stmt> out, int v) {
+			for (int sign = 1; sign >= -1; sign -= 2) {
+				FloatLit limit = new FloatLit(Math.abs(FLOAT_LIMIT));
+				If s = new If(new FloatCmp(sign > 0 ? ">" : "<", new FloatVar(v), sign > 0 ? limit : new FloatNeg(limit)));
+				s.then.add(new AssignFloat(v, new FloatBin("*", new FloatVar(v), new FloatLit(0.001))));
+				out.add(s);
+			}
+		}
+
+		private static IntExpr lit(long v) {
+			return (v < 0) ? new IntNeg(new IntLit(-v)) : new IntLit(v);
+		}
+
+		private Cond cond() {
+			String op = new String[] {"<", "<=", ">", ">=", "==", "!="}[g.nextInt(6)];
+			if (numFloats > 0 && g.chance(g.floats)) {
+				return new FloatCmp(op, floatExpr(1), floatExpr(1));
+			}
+			return new IntCmp(op, intExpr(1), intExpr(1));
+		}
+
+		private IntExpr intExpr(int d) {
+			if (d == 0 || g.chance(0.3)) {
+				int kind = g.nextInt(10);
+				if (kind < 2) return new IntLit(g.nextInt(100));
+				if (kind < 3 && hasArray) return new ArrayLoad(g.nextInt(ARRAY_SIZE));
+				if (kind < 4 && g.casts && d > 0) return new CastToInt(floatExpr(d - 1));
+				if (kind < 5 && loopDepth > 0) return new IntVar(PARAM_INTS + LOCAL_INTS + g.nextInt(loopDepth));
+				return new IntVar(g.nextInt(PARAM_INTS + LOCAL_INTS));
+			}
+			switch (g.nextInt(6)) {
+				case 0: return new IntBin("+", intExpr(d - 1), intExpr(d - 1));
+				case 1: return new IntBin("-", intExpr(d - 1), intExpr(d - 1));
+				case 2: return new IntBin("*", intExpr(d - 1), new IntLit(1 + g.nextInt(9)));
+				case 3: return new IntBin("/", intExpr(d - 1), new IntLit(1 + g.nextInt(9)));
+				case 4: return new IntNeg(intExpr(d - 1));
+				default: return new IntBin("+", intExpr(d - 1), new IntLit(g.nextInt(100)));
+			}
+		}
+
+		private FloatExpr floatExpr(int d) {
+			if (d == 0 || g.chance(0.3)) {
+				int kind = g.nextInt(10);
+				if (kind < 3) return new FloatLit(g.nextInt(40) * 0.25);
+				if (kind < 4 && g.casts && d > 0) return new CastToFloat(intExpr(d - 1));
+				return new FloatVar(g.nextInt(numFloats));
+			}
+			switch (g.nextInt(5)) {
+				case 0: return new FloatBin("+", floatExpr(d - 1), floatExpr(d - 1));
+				case 1: return new FloatBin("-", floatExpr(d - 1), floatExpr(d - 1));
+				case 2: return new FloatBin("*", floatExpr(d - 1), new FloatLit(new double[] {0.25, 0.5, 1.5}[g.nextInt(3)]));
+				case 3: return new FloatBin("/", floatExpr(d - 1), new FloatLit(new double[] {2.0, 4.0}[g.nextInt(2)]));
+				default: return new FloatNeg(floatExpr(d - 1));
+			}
+		}
+
+		String render() {
+			StringBuilder sb = new StringBuilder();
+			sb.append("int ").append(name(index)).append("(int p0, int p1").append(numFloats > 0 ? ", float q0" : "").append(") {\n");
+			for (int i = PARAM_INTS; i < numInts; i++) sb.append("\tint ").append(intName(i)).append(";\n");
+			for (int i = 1; i < numFloats; i++) sb.append("\tfloat ").append(floatName(i)).append(";\n");
+			if (hasArray) sb.append("\tint * arr;\n");
+			for (Stmt s : body) s.render(sb, 1);
+			sb.append("\treturn ").append(intName(PARAM_INTS)).append(";\n}\n");
+			return sb.toString();
+		}
+
+		long call(WorkloadGenerator g, long a, long b, double q, PrintWriter out) {
+			Frame fr = new Frame(numInts, numFloats);
+			fr.ints[0] = a;
+			fr.ints[1] = b;
+			if (numFloats > 0) fr.floats[0] = q;
+			for (Stmt s : body) s.run(g, fr, out);
+			return fr.ints[PARAM_INTS];
+		}
+	}
+
+	static String intName(int i) {
+		if (i < Function.PARAM_INTS) return "p" + i;
+		if (i < Function.PARAM_INTS + Function.LOCAL_INTS) return "v" + (i - Function.PARAM_INTS);
+		return "w" + (i - Function.PARAM_INTS - Function.LOCAL_INTS);
+	}
+
+	static String floatName(int i) {
+		return (i == 0) ? "q0" : "u" + (i - 1);
+	}
+
+	static void indent(StringBuilder sb, int n) {
+		for (int i = 0; i < n; i++) sb.append('\t');
+	}
+
+	static abstract class Stmt {
+		abstract void render(StringBuilder sb, int indent);
+		abstract void run(WorkloadGenerator g, Frame fr, PrintWriter out);
+	}
+
+	static class AssignInt extends Stmt {
+		final int var;
+		final IntExpr e;
+		AssignInt(int var, IntExpr e) { this.var = var; this.e = e; }
+		void render(StringBuilder sb, int n) { indent(sb, n); sb.append(intName(var)).append(" = ").append(e.render()).append(";\n"); }
+		void run(WorkloadGenerator g, Frame fr, PrintWriter out) { fr.ints[var] = e.eval(fr); }
+	}
+
+	static class AssignFloat extends Stmt {
+		final int var;
+		final FloatExpr e;
+		AssignFloat(int var, FloatExpr e) { this.var = var; this.e = e; }
+		void render(StringBuilder sb, int n) { indent(sb, n); sb.append(floatName(var)).append(" = ").append(e.render()).append(";\n"); }
+		void run(WorkloadGenerator g, Frame fr, PrintWriter out) { fr.floats[var] = e.eval(fr); }
+	}
+
+	static class ArrayStore extends Stmt {
+		final int index;
+		final IntExpr e;
+		ArrayStore(int index, IntExpr e) { this.index = index; this.e = e; }
+		void render(StringBuilder sb, int n) { indent(sb, n); sb.append("arr[").append(index).append("] = ").append(e.render()).append(";\n"); }
+		void run(WorkloadGenerator g, Frame fr, PrintWriter out) { fr.array[index] = e.eval(fr); }
+	}
+
+	static class Malloc extends Stmt {
+		void render(StringBuilder sb, int n) { indent(sb, n); sb.append("arr = malloc(").append(4 * ARRAY_SIZE).append(");\n"); }
+		void run(WorkloadGenerator g, Frame fr, PrintWriter out) { fr.array = new long[ARRAY_SIZE]; }
+	}
+
+	static class Free extends Stmt {
+		void render(StringBuilder sb, int n) { indent(sb, n); sb.append("free(arr);\n"); }
+		void run(WorkloadGenerator g, Frame fr, PrintWriter out) { fr.array = null; }
+	}
+
+	static class PrintInt extends Stmt {
+		final int var;
+		PrintInt(int var) { this.var = var; }
+		void render(StringBuilder sb, int n) { indent(sb, n); sb.append("print(").append(intName(var)).append(");\n"); }
+		void run(WorkloadGenerator g, Frame fr, PrintWriter out) { out.println(fr.ints[var]); }
+	}
+
+	static class PrintFloat extends Stmt {
+		final int var;
+		PrintFloat(int var) { this.var = var; }
+		void render(StringBuilder sb, int n) { indent(sb, n); sb.append("print(").append(floatName(var)).append(");\n"); }
+		void run(WorkloadGenerator g, Frame fr, PrintWriter out) { out.println(pythonRepr(fr.floats[var])); }
+	}
+
+	static class CallStmt extends Stmt {
+		final int var;
+		final int callee;
+		final List<IntExpr> args;
+		final FloatExpr floatArg; //null if the program has no floats
+		CallStmt(int var, int callee, List<IntExpr> args, FloatExpr floatArg) {
+			this.var = var; this.callee = callee; this.args = args; this.floatArg = floatArg;
+		}
+		void render(StringBuilder sb, int n) {
+			indent(sb, n);
+			sb.append(intName(var)).append(" = ").append(Function.name(callee)).append('(');
+			sb.append(args.get(0).render()).append(", ").append(args.get(1).render());
+			if (floatArg != null) sb.append(", ").append(floatArg.render());
+			sb.append(");\n");
+		}
+		void run(WorkloadGenerator g, Frame fr, PrintWriter out) {
+			long a = args.get(0).eval(fr);
+			long b = args.get(1).eval(fr);
+			double q = (floatArg != null) ? floatArg.eval(fr) : 0;
+			fr.ints[var] = g.program.get(callee).call(g, a, b, q, out);
+		}
+	}
+
+	static class If extends Stmt {
+		final Cond cond;
+		final List<Stmt> then = new ArrayList<Stmt>();
+		final List<Stmt> otherwise = new ArrayList<Stmt>();
+		If(Cond cond) { this.cond = cond; }
+		void render(StringBuilder sb, int n) {
+			indent(sb, n); sb.append("if (").append(cond.render()).append(") {\n");
+			for (Stmt s : then) s.render(sb, n + 1);
+			indent(sb, n); sb.append('}');
+			if (!otherwise.isEmpty()) {
+				sb.append(" else {\n");
+				for (Stmt s : otherwise) s.render(sb, n + 1);
+				indent(sb, n); sb.append('}');
+			}
+			sb.append('\n');
+		}
+		void run(WorkloadGenerator g, Frame fr, PrintWriter out) {
+			for (Stmt s : cond.eval(fr) ? then : otherwise) s.run(g, fr, out);
+		}
+	}
+
+	static class While extends Stmt {
+		final Stmt init;
+		final Cond cond;
+		final Stmt step;
+		final List<Stmt> body = new ArrayList<Stmt>();
+		While(Stmt init, Cond cond, Stmt step) { this.init = init; this.cond = cond; this.step = step; }
+		void render(StringBuilder sb, int n) {
+			init.render(sb, n);
+			indent(sb, n); sb.append("while (").append(cond.render()).append(") {\n");
+			for (Stmt s : body) s.render(sb, n + 1);
+			step.render(sb, n + 1);
+			indent(sb, n); sb.append("}\n");
+		}
+		void run(WorkloadGenerator g, Frame fr, PrintWriter out) {
+			for (init.run(g, fr, out); cond.eval(fr); step.run(g, fr, out)) {
+				for (Stmt s : body) s.run(g, fr, out);
+			}
+		}
+	}
+
+	static abstract class Cond {
+		final String op;
+		Cond(String op) { this.op = op; }
+		abstract String render();
+		abstract boolean eval(Frame fr);
+
+		boolean compare(int c) {
+			switch (op) {
+				case "<": return c < 0;
+				case "<=": return c <= 0;
+				case ">": return c > 0;
+				case ">=": return c >= 0;
+				case "==": return c == 0;
+				default: return c != 0;
+			}
+		}
+	}
+
+	static class IntCmp extends Cond {
+		final IntExpr l, r;
+		IntCmp(String op, IntExpr l, IntExpr r) { super(op); this.l = l; this.r = r; }
+		String render() { return l.render() + " " + op + " " + r.render(); }
+		boolean eval(Frame fr) { return compare(Long.compare(l.eval(fr), r.eval(fr))); }
+	}
+
+	static class FloatCmp extends Cond {
+		final FloatExpr l, r;
+		FloatCmp(String op, FloatExpr l, FloatExpr r) { super(op); this.l = l; this.r = r; }
+		String render() { return l.render() + " " + op + " " + r.render(); }
+		boolean eval(Frame fr) {
+			double a = l.eval(fr), b = r.eval(fr);
+			return compare(a < b ? -1 : a > b ? 1 : 0);
+		}
+	}
+
+	/* Every compound expression is printed in parentheses, so precedence never matters */
+	static abstract class IntExpr {
+		abstract String render();
+		abstract long eval(Frame fr);
+	}
+
+	static class IntLit extends IntExpr {
+		final long v;
+		IntLit(long v) { this.v = v; }
+		String render() { return String.valueOf(v); }
+		long eval(Frame fr) { return v; }
+	}
+
+	static class IntVar extends IntExpr {
+		final int var;
+		IntVar(int var) { this.var = var; }
+		String render() { return intName(var); }
+		long eval(Frame fr) { return fr.ints[var]; }
+	}
+
+	static class ArrayLoad extends IntExpr {
+		final int index;
+		ArrayLoad(int index) { this.index = index; }
+		String render() { return "arr[" + index + "]"; }
+		long eval(Frame fr) { return fr.array[index]; }
+	}
+
+	static class IntBin extends IntExpr {
+		final String op;
+		final IntExpr l, r;
+		IntBin(String op, IntExpr l, IntExpr r) { this.op = op; this.l = l; this.r = r; }
+		String render() { return "(" + l.render() + " " + op + " " + r.render() + ")"; }
+		long eval(Frame fr) {
+			long a = l.eval(fr), b = r.eval(fr);
+			switch (op) {
+				case "+": return a + b;
+				case "-": return a - b;
+				case "*": return a * b;
+				default: return Math.floorDiv(a, b);
+			}
+		}
+	}
+
+	/* The grammar's unary minus takes a whole expression, so it is always wrapped */
+	static class IntNeg extends IntExpr {
+		final IntExpr e;
+		IntNeg(IntExpr e) { this.e = e; }
+		String render() { return "(-(" + e.render() + "))"; }
+		long eval(Frame fr) { return -e.eval(fr); }
+	}
+
+	/* A cast binds to one primary, as in C, so its operand is wrapped to cast all of it */
+	static class CastToInt extends IntExpr {
+		final FloatExpr e;
+		CastToInt(FloatExpr e) { this.e = e; }
+		String render() { return "((int) (" + e.render() + "))"; }
+		long eval(Frame fr) { return (long) e.eval(fr); }
+	}
+
+	static abstract class FloatExpr {
+		abstract String render();
+		abstract double eval(Frame fr);
+	}
+
+	static class FloatLit extends FloatExpr {
+		final double v;
+		FloatLit(double v) { this.v = v; }
+		String render() { return String.valueOf(v); }
+		double eval(Frame fr) { return v; }
+	}
+
+	static class FloatVar extends FloatExpr {
+		final int var;
+		FloatVar(int var) { this.var = var; }
+		String render() { return floatName(var); }
+		double eval(Frame fr) { return fr.floats[var]; }
+	}
+
+	static class FloatBin extends FloatExpr {
+		final String op;
+		final FloatExpr l, r;
+		FloatBin(String op, FloatExpr l, FloatExpr r) { this.op = op; this.l = l; this.r = r; }
+		String render() { return "(" + l.render() + " " + op + " " + r.render() + ")"; }
+		double eval(Frame fr) {
+			double a = l.eval(fr), b = r.eval(fr);
+			switch (op) {
+				case "+": return a + b;
+				case "-": return a - b;
+				case "*": return a * b;
+				default: return a / b;
+			}
+		}
+	}
+
+	static class FloatNeg extends FloatExpr {
+		final FloatExpr e;
+		FloatNeg(FloatExpr e) { this.e = e; }
+		String render() { return "(-(" + e.render() + "))"; }
+		double eval(Frame fr) { return -e.eval(fr); }
+	}
+
+	static class CastToFloat extends FloatExpr {
+		final IntExpr e;
+		CastToFloat(IntExpr e) { this.e = e; }
+		String render() { return "((float) (" + e.render() + "))"; }
+		double eval(Frame fr) { return (double) e.eval(fr); }
+	}
+}
@@ -0,0 +1,549 @@
+; Symbol table GLOBAL
+; Function: INT mix([INT, FLOAT, INT, FLOAT, INT, FLOAT, INT, FLOAT, INT, FLOAT, INT, FLOAT, INT, FLOAT, INT, FLOAT, INT, FLOAT, INT, FLOAT])
+; Function: FLOAT fmix([FLOAT, INT, FLOAT, INT, FLOAT, INT, FLOAT, INT, FLOAT, INT])
+; Function: INT fib([INT])
+; Function: INT main([])
+
+; Symbol table main
+; name x type INT location -4
+; name y type FLOAT location -8
+
+; Symbol table mix
+; name u type FLOAT location 12
+; name s type INT location 16
+; name r type FLOAT location 20
+; name q type INT location 24
+; name p type FLOAT location 28
+; name o type INT location 32
+; name n type FLOAT location 36
+; name m type INT location 40
+; name l type FLOAT location 44
+; name k type INT location 48
+; name j type FLOAT location 52
+; name i type INT location 56
+; name h type FLOAT location 60
+; name g type INT location 64
+; name f type FLOAT location 68
+; name e type INT location 72
+; name d type FLOAT location 76
+; name c type INT location 80
+; name b type FLOAT location 84
+; name a type INT location 88
+; name t type FLOAT location -4
+
+; Symbol table fmix
+; name j type INT location 12
+; name i type FLOAT location 16
+; name h type INT location 20
+; name g type FLOAT location 24
+; name f type INT location 28
+; name e type FLOAT location 32
+; name d type INT location 36
+; name c type FLOAT location 40
+; name b type INT location 44
+; name a type FLOAT location 48
+
+; Symbol table fib
+; name n type INT location 12
+
+.section .text
+MV fp, sp
+JR func_main
+HALT
+
+func_main:
+SW fp, 0(sp)
+MV fp, sp
+ADDI sp, sp, -24
+SW t0, -12(fp)
+SW t1, -16(fp)
+FSW ft0, -20(fp)
+ADDI t0, fp, -4
+LI t1, 1
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 0.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 2
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 1.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 3
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 2.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 4
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 3.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 5
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 4.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 6
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 5.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 7
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 6.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 8
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 7.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 9
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 8.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 10
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 9.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+ADDI sp, sp, -4
+SW ra, 0(sp)
+ADDI sp, sp, -4
+JR func_mix
+ADDI sp, sp, 4
+LW ra, 0(sp)
+ADDI sp, sp, 4
+LW t1, 0(sp)
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+SW t1, 0(t0)
+ADDI t0, fp, -4
+LW t0, 0(t0)
+PUTI t0
+ADDI t0, fp, -8
+FIMM.S ft0, 0.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 5
+SW t1, 0(sp)
+ADDI sp, sp, -4
+ADDI sp, sp, -4
+SW ra, 0(sp)
+ADDI sp, sp, -4
+JR func_fib
+ADDI sp, sp, 4
+LW ra, 0(sp)
+ADDI sp, sp, 4
+LW t1, 0(sp)
+ADDI sp, sp, 4
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 1.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 6
+SW t1, 0(sp)
+ADDI sp, sp, -4
+ADDI sp, sp, -4
+SW ra, 0(sp)
+ADDI sp, sp, -4
+JR func_fib
+ADDI sp, sp, 4
+LW ra, 0(sp)
+ADDI sp, sp, 4
+LW t1, 0(sp)
+ADDI sp, sp, 4
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 2.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 7
+SW t1, 0(sp)
+ADDI sp, sp, -4
+ADDI sp, sp, -4
+SW ra, 0(sp)
+ADDI sp, sp, -4
+JR func_fib
+ADDI sp, sp, 4
+LW ra, 0(sp)
+ADDI sp, sp, 4
+LW t1, 0(sp)
+ADDI sp, sp, 4
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 3.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 0
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 0.0
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 0
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 0.0
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 0
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 0.0
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 0
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 0.0
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 0
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 0.0
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 0
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 0.0
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 0
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 0.0
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 0
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 0.0
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 9
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 0.0
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 1
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 0.0
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+ADDI sp, sp, -4
+SW ra, 0(sp)
+ADDI sp, sp, -4
+JR func_mix
+ADDI sp, sp, 4
+LW ra, 0(sp)
+ADDI sp, sp, 4
+LW t1, 0(sp)
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+SW t1, 0(sp)
+ADDI sp, sp, -4
+FIMM.S ft0, 4.5
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 10
+SW t1, 0(sp)
+ADDI sp, sp, -4
+ADDI sp, sp, -4
+SW ra, 0(sp)
+ADDI sp, sp, -4
+JR func_fib
+ADDI sp, sp, 4
+LW ra, 0(sp)
+ADDI sp, sp, 4
+LW t1, 0(sp)
+ADDI sp, sp, 4
+SW t1, 0(sp)
+ADDI sp, sp, -4
+ADDI sp, sp, -4
+SW ra, 0(sp)
+ADDI sp, sp, -4
+JR func_fmix
+ADDI sp, sp, 4
+LW ra, 0(sp)
+ADDI sp, sp, 4
+FLW ft0, 0(sp)
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+FSW ft0, 0(t0)
+ADDI t0, fp, -8
+FLW ft0, 0(t0)
+PUTF ft0
+LI t0, 0
+SW t0, 8(fp)
+J func_ret_main
+func_ret_main:
+FLW ft0, -20(fp)
+LW t1, -16(fp)
+LW t0, -12(fp)
+MV sp, fp
+LW fp, 0(fp)
+RET
+
+func_mix:
+SW fp, 0(sp)
+MV fp, sp
+ADDI sp, sp, -28
+SW t0, -8(fp)
+SW t1, -12(fp)
+SW t2, -16(fp)
+FSW ft0, -20(fp)
+FSW ft1, -24(fp)
+ADDI t0, fp, -4
+ADDI t1, fp, 84
+FLW ft1, 0(t1)
+ADDI t1, fp, 76
+FLW ft0, 0(t1)
+FADD.S ft1, ft1, ft0
+ADDI t1, fp, 68
+FLW ft0, 0(t1)
+FADD.S ft1, ft1, ft0
+ADDI t1, fp, 60
+FLW ft0, 0(t1)
+FADD.S ft1, ft1, ft0
+ADDI t1, fp, 52
+FLW ft0, 0(t1)
+FADD.S ft1, ft1, ft0
+ADDI t1, fp, 44
+FLW ft0, 0(t1)
+FADD.S ft1, ft1, ft0
+ADDI t1, fp, 36
+FLW ft0, 0(t1)
+FADD.S ft1, ft1, ft0
+ADDI t1, fp, 28
+FLW ft0, 0(t1)
+FADD.S ft1, ft1, ft0
+ADDI t1, fp, 20
+FLW ft0, 0(t1)
+FADD.S ft1, ft1, ft0
+ADDI t1, fp, 12
+FLW ft0, 0(t1)
+FADD.S ft0, ft1, ft0
+FSW ft0, 0(t0)
+ADDI t0, fp, -4
+FLW ft0, 0(t0)
+PUTF ft0
+ADDI t0, fp, 88
+LW t1, 0(t0)
+ADDI t0, fp, 80
+LW t0, 0(t0)
+SUB t1, t1, t0
+ADDI t0, fp, 72
+LW t0, 0(t0)
+ADD t1, t1, t0
+ADDI t0, fp, 64
+LW t0, 0(t0)
+SUB t1, t1, t0
+ADDI t0, fp, 56
+LW t0, 0(t0)
+ADD t1, t1, t0
+ADDI t0, fp, 48
+LW t0, 0(t0)
+SUB t1, t1, t0
+ADDI t0, fp, 40
+LW t0, 0(t0)
+ADD t1, t1, t0
+ADDI t0, fp, 32
+LW t0, 0(t0)
+SUB t1, t1, t0
+ADDI t0, fp, 24
+LW t0, 0(t0)
+ADD t1, t1, t0
+ADDI t0, fp, 16
+LW t0, 0(t0)
+SUB t2, t1, t0
+ADDI t0, fp, 16
+LW t0, 0(t0)
+LI t1, 9
+MUL t1, t0, t1
+LI t0, 2
+DIV t0, t1, t0
+ADD t0, t2, t0
+SW t0, 8(fp)
+J func_ret_mix
+func_ret_mix:
+FLW ft1, -24(fp)
+FLW ft0, -20(fp)
+LW t2, -16(fp)
+LW t1, -12(fp)
+LW t0, -8(fp)
+MV sp, fp
+LW fp, 0(fp)
+RET
+
+func_fmix:
+SW fp, 0(sp)
+MV fp, sp
+ADDI sp, sp, -20
+SW t0, -4(fp)
+SW t1, -8(fp)
+FSW ft0, -12(fp)
+FSW ft1, -16(fp)
+ADDI t0, fp, 44
+LW t1, 0(t0)
+ADDI t0, fp, 36
+LW t0, 0(t0)
+ADD t1, t1, t0
+ADDI t0, fp, 28
+LW t0, 0(t0)
+ADD t1, t1, t0
+ADDI t0, fp, 20
+LW t0, 0(t0)
+ADD t1, t1, t0
+ADDI t0, fp, 12
+LW t0, 0(t0)
+ADD t0, t1, t0
+PUTI t0
+ADDI t0, fp, 48
+FLW ft1, 0(t0)
+ADDI t0, fp, 40
+FLW ft0, 0(t0)
+FADD.S ft1, ft1, ft0
+ADDI t0, fp, 32
+FLW ft0, 0(t0)
+FADD.S ft1, ft1, ft0
+ADDI t0, fp, 24
+FLW ft0, 0(t0)
+FADD.S ft1, ft1, ft0
+ADDI t0, fp, 16
+FLW ft0, 0(t0)
+FADD.S ft0, ft1, ft0
+FSW ft0, 8(fp)
+J func_ret_fmix
+func_ret_fmix:
+FLW ft1, -16(fp)
+FLW ft0, -12(fp)
+LW t1, -8(fp)
+LW t0, -4(fp)
+MV sp, fp
+LW fp, 0(fp)
+RET
+
+func_fib:
+SW fp, 0(sp)
+MV fp, sp
+ADDI sp, sp, -16
+SW t0, -4(fp)
+SW t1, -8(fp)
+SW t2, -12(fp)
+ADDI t0, fp, 12
+LW t0, 0(t0)
+LI t1, 2
+BGE t0, t1, else_fib_1
+ADDI t0, fp, 12
+LW t0, 0(t0)
+SW t0, 8(fp)
+J func_ret_fib
+J out_fib_1
+else_fib_1:
+out_fib_1:
+ADDI t0, fp, 12
+LW t0, 0(t0)
+LI t1, 1
+SUB t0, t0, t1
+SW t0, 0(sp)
+ADDI sp, sp, -4
+ADDI sp, sp, -4
+SW ra, 0(sp)
+ADDI sp, sp, -4
+JR func_fib
+ADDI sp, sp, 4
+LW ra, 0(sp)
+ADDI sp, sp, 4
+LW t2, 0(sp)
+ADDI sp, sp, 4
+ADDI t0, fp, 12
+LW t0, 0(t0)
+LI t1, 2
+SUB t0, t0, t1
+SW t0, 0(sp)
+ADDI sp, sp, -4
+ADDI sp, sp, -4
+SW ra, 0(sp)
+ADDI sp, sp, -4
+JR func_fib
+ADDI sp, sp, 4
+LW ra, 0(sp)
+ADDI sp, sp, 4
+LW t0, 0(sp)
+ADDI sp, sp, 4
+ADD t0, t2, t0
+SW t0, 8(fp)
+J func_ret_fib
+func_ret_fib:
+LW t2, -12(fp)
+LW t1, -8(fp)
+LW t0, -4(fp)
+MV sp, fp
+LW fp, 0(fp)
+RET
+
+
+
+.section .strings
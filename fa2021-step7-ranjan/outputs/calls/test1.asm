@@ -0,0 +1,290 @@
+; Symbol table GLOBAL
+; Function: FLOAT half([FLOAT])
+; Function: INT twice([INT])
+; Function: FLOAT sum([FLOAT, FLOAT, FLOAT, FLOAT, FLOAT, FLOAT, FLOAT, FLOAT, FLOAT, FLOAT])
+; Function: INT count([FLOAT])
+; Function: INT main([])
+
+; Symbol table main
+; name n type INT location -4
+; name y type FLOAT location -8
+
+; Symbol table half
+; name x type FLOAT location 12
+
+; Symbol table twice
+; name n type INT location 12
+
+; Symbol table sum
+; name j type FLOAT location 12
+; name i type FLOAT location 16
+; name h type FLOAT location 20
+; name g type FLOAT location 24
+; name f type FLOAT location 28
+; name e type FLOAT location 32
+; name d type FLOAT location 36
+; name c type FLOAT location 40
+; name b type FLOAT location 44
+; name a type FLOAT location 48
+
+; Symbol table count
+; name x type FLOAT location 12
+
+.section .text
+MV fp, sp
+JR func_main
+HALT
+
+func_main:
+SW fp, 0(sp)
+MV fp, sp
+ADDI sp, sp, -24
+SW t0, -12(fp)
+SW t1, -16(fp)
+FSW ft0, -20(fp)
+ADDI t0, fp, -4
+LI t1, 7
+SW t1, 0(t0)
+ADDI t0, fp, -8
+ADDI t1, fp, -4
+LW t1, 0(t1)
+IMOVF.S ft0, t1
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+ADDI sp, sp, -4
+SW ra, 0(sp)
+ADDI sp, sp, -4
+JR func_half
+ADDI sp, sp, 4
+LW ra, 0(sp)
+ADDI sp, sp, 4
+FLW ft0, 0(sp)
+ADDI sp, sp, 4
+FSW ft0, 0(t0)
+ADDI t0, fp, -8
+FLW ft0, 0(t0)
+PUTF ft0
+ADDI t0, fp, -8
+FIMM.S ft0, 2.75
+FSW ft0, 0(t0)
+ADDI t0, fp, -4
+ADDI t1, fp, -8
+FLW ft0, 0(t1)
+FMOVI.S t1, ft0
+SW t1, 0(sp)
+ADDI sp, sp, -4
+ADDI sp, sp, -4
+SW ra, 0(sp)
+ADDI sp, sp, -4
+JR func_twice
+ADDI sp, sp, 4
+LW ra, 0(sp)
+ADDI sp, sp, 4
+LW t1, 0(sp)
+ADDI sp, sp, 4
+SW t1, 0(t0)
+ADDI t0, fp, -4
+LW t0, 0(t0)
+PUTI t0
+ADDI t0, fp, -8
+LI t1, 1
+IMOVF.S ft0, t1
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 2
+IMOVF.S ft0, t1
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 3
+IMOVF.S ft0, t1
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 4
+IMOVF.S ft0, t1
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 5
+IMOVF.S ft0, t1
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 6
+IMOVF.S ft0, t1
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 7
+IMOVF.S ft0, t1
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 8
+IMOVF.S ft0, t1
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+LI t1, 9
+IMOVF.S ft0, t1
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+ADDI t1, fp, -4
+LW t1, 0(t1)
+IMOVF.S ft0, t1
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+ADDI sp, sp, -4
+SW ra, 0(sp)
+ADDI sp, sp, -4
+JR func_sum
+ADDI sp, sp, 4
+LW ra, 0(sp)
+ADDI sp, sp, 4
+FLW ft0, 0(sp)
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+ADDI sp, sp, 4
+FSW ft0, 0(t0)
+ADDI t0, fp, -8
+FLW ft0, 0(t0)
+PUTF ft0
+ADDI t0, fp, -8
+ADDI t1, fp, -8
+FLW ft0, 0(t1)
+FSW ft0, 0(sp)
+ADDI sp, sp, -4
+ADDI sp, sp, -4
+SW ra, 0(sp)
+ADDI sp, sp, -4
+JR func_count
+ADDI sp, sp, 4
+LW ra, 0(sp)
+ADDI sp, sp, 4
+LW t1, 0(sp)
+ADDI sp, sp, 4
+IMOVF.S ft0, t1
+FSW ft0, 0(t0)
+ADDI t0, fp, -8
+FLW ft0, 0(t0)
+PUTF ft0
+LI t0, 0
+SW t0, 8(fp)
+J func_ret_main
+func_ret_main:
+FLW ft0, -20(fp)
+LW t1, -16(fp)
+LW t0, -12(fp)
+MV sp, fp
+LW fp, 0(fp)
+RET
+
+func_half:
+SW fp, 0(sp)
+MV fp, sp
+ADDI sp, sp, -16
+SW t0, -4(fp)
+FSW ft0, -8(fp)
+FSW ft1, -12(fp)
+ADDI t0, fp, 12
+FLW ft0, 0(t0)
+FIMM.S ft1, 2.0
+FDIV.S ft0, ft0, ft1
+FSW ft0, 8(fp)
+J func_ret_half
+func_ret_half:
+FLW ft1, -12(fp)
+FLW ft0, -8(fp)
+LW t0, -4(fp)
+MV sp, fp
+LW fp, 0(fp)
+RET
+
+func_twice:
+SW fp, 0(sp)
+MV fp, sp
+ADDI sp, sp, -12
+SW t0, -4(fp)
+SW t1, -8(fp)
+ADDI t0, fp, 12
+LW t1, 0(t0)
+ADDI t0, fp, 12
+LW t0, 0(t0)
+ADD t0, t1, t0
+SW t0, 8(fp)
+J func_ret_twice
+func_ret_twice:
+LW t1, -8(fp)
+LW t0, -4(fp)
+MV sp, fp
+LW fp, 0(fp)
+RET
+
+func_sum:
+SW fp, 0(sp)
+MV fp, sp
+ADDI sp, sp, -16
+SW t0, -4(fp)
+FSW ft0, -8(fp)
+FSW ft1, -12(fp)
+ADDI t0, fp, 48
+FLW ft1, 0(t0)
+ADDI t0, fp, 44
+FLW ft0, 0(t0)
+FADD.S ft1, ft1, ft0
+ADDI t0, fp, 40
+FLW ft0, 0(t0)
+FADD.S ft1, ft1, ft0
+ADDI t0, fp, 36
+FLW ft0, 0(t0)
+FADD.S ft1, ft1, ft0
+ADDI t0, fp, 32
+FLW ft0, 0(t0)
+FADD.S ft1, ft1, ft0
+ADDI t0, fp, 28
+FLW ft0, 0(t0)
+FADD.S ft1, ft1, ft0
+ADDI t0, fp, 24
+FLW ft0, 0(t0)
+FADD.S ft1, ft1, ft0
+ADDI t0, fp, 20
+FLW ft0, 0(t0)
+FADD.S ft1, ft1, ft0
+ADDI t0, fp, 16
+FLW ft0, 0(t0)
+FADD.S ft1, ft1, ft0
+ADDI t0, fp, 12
+FLW ft0, 0(t0)
+FADD.S ft0, ft1, ft0
+FSW ft0, 8(fp)
+J func_ret_sum
+func_ret_sum:
+FLW ft1, -12(fp)
+FLW ft0, -8(fp)
+LW t0, -4(fp)
+MV sp, fp
+LW fp, 0(fp)
+RET
+
+func_count:
+SW fp, 0(sp)
+MV fp, sp
+ADDI sp, sp, -12
+SW t0, -4(fp)
+FSW ft0, -8(fp)
+ADDI t0, fp, 12
+FLW ft0, 0(t0)
+FMOVI.S t0, ft0
+SW t0, 8(fp)
+J func_ret_count
+func_ret_count:
+FLW ft0, -8(fp)
+LW t0, -4(fp)
+MV sp, fp
+LW fp, 0(fp)
+RET
+
+
+
+.section .strings
@@ -0,0 +1,241 @@
+; Symbol table GLOBAL
+; Function: INT main([])
+
+; Symbol table main
+; name x type FLOAT location -4
+; name y type FLOAT location -8
+; name n type INT location -12
+
+.section .text
+MV fp, sp
+JR func_main
+HALT
+
+func_main:
+SW fp, 0(sp)
+MV fp, sp
+ADDI sp, sp, -36
+SW t0, -16(fp)
+SW t1, -20(fp)
+SW t2, -24(fp)
+FSW ft0, -28(fp)
+FSW ft1, -32(fp)
+ADDI t0, fp, -4
+FIMM.S ft0, 1.0
+FSW ft0, 0(t0)
+ADDI t0, fp, -8
+FIMM.S ft0, 3.0
+FSW ft0, 0(t0)
+ADDI t0, fp, -12
+LI t1, 0
+SW t1, 0(t0)
+loop_main_1:
+ADDI t0, fp, -4
+FLW ft1, 0(t0)
+ADDI t0, fp, -8
+FLW ft0, 0(t0)
+FLT.S t0, ft0, ft1
+BNE t0, x0, out_main_1
+ADDI t0, fp, -4
+ADDI t1, fp, -4
+FLW ft0, 0(t1)
+FIMM.S ft1, 1.0
+FADD.S ft0, ft0, ft1
+FSW ft0, 0(t0)
+ADDI t0, fp, -12
+ADDI t1, fp, -12
+LW t1, 0(t1)
+LI t2, 1
+ADD t1, t1, t2
+SW t1, 0(t0)
+J loop_main_1
+out_main_1:
+ADDI t0, fp, -12
+LW t0, 0(t0)
+PUTI t0
+ADDI t0, fp, -4
+FIMM.S ft0, 1.0
+FSW ft0, 0(t0)
+ADDI t0, fp, -12
+LI t1, 0
+SW t1, 0(t0)
+loop_main_2:
+ADDI t0, fp, -4
+FLW ft1, 0(t0)
+ADDI t0, fp, -8
+FLW ft0, 0(t0)
+FLE.S t0, ft0, ft1
+BNE t0, x0, out_main_2
+ADDI t0, fp, -4
+ADDI t1, fp, -4
+FLW ft0, 0(t1)
+FIMM.S ft1, 1.0
+FADD.S ft0, ft0, ft1
+FSW ft0, 0(t0)
+ADDI t0, fp, -12
+ADDI t1, fp, -12
+LW t1, 0(t1)
+LI t2, 1
+ADD t1, t1, t2
+SW t1, 0(t0)
+J loop_main_2
+out_main_2:
+ADDI t0, fp, -12
+LW t0, 0(t0)
+PUTI t0
+ADDI t0, fp, -4
+FIMM.S ft0, 3.0
+FSW ft0, 0(t0)
+ADDI t0, fp, -12
+LI t1, 0
+SW t1, 0(t0)
+loop_main_3:
+ADDI t0, fp, -4
+FLW ft0, 0(t0)
+FIMM.S ft1, 1.0
+FLT.S t0, ft0, ft1
+BNE t0, x0, out_main_3
+ADDI t0, fp, -4
+ADDI t1, fp, -4
+FLW ft0, 0(t1)
+FIMM.S ft1, 1.0
+FSUB.S ft0, ft0, ft1
+FSW ft0, 0(t0)
+ADDI t0, fp, -12
+ADDI t1, fp, -12
+LW t1, 0(t1)
+LI t2, 1
+ADD t1, t1, t2
+SW t1, 0(t0)
+J loop_main_3
+out_main_3:
+ADDI t0, fp, -12
+LW t0, 0(t0)
+PUTI t0
+ADDI t0, fp, -4
+FIMM.S ft0, 3.0
+FSW ft0, 0(t0)
+ADDI t0, fp, -12
+LI t1, 0
+SW t1, 0(t0)
+loop_main_4:
+ADDI t0, fp, -4
+FLW ft0, 0(t0)
+FIMM.S ft1, 1.0
+FLE.S t0, ft0, ft1
+BNE t0, x0, out_main_4
+ADDI t0, fp, -4
+ADDI t1, fp, -4
+FLW ft0, 0(t1)
+FIMM.S ft1, 1.0
+FSUB.S ft0, ft0, ft1
+FSW ft0, 0(t0)
+ADDI t0, fp, -12
+ADDI t1, fp, -12
+LW t1, 0(t1)
+LI t2, 1
+ADD t1, t1, t2
+SW t1, 0(t0)
+J loop_main_4
+out_main_4:
+ADDI t0, fp, -12
+LW t0, 0(t0)
+PUTI t0
+ADDI t0, fp, -4
+FIMM.S ft0, 0.5
+FSW ft0, 0(t0)
+ADDI t0, fp, -12
+LI t1, 0
+SW t1, 0(t0)
+loop_main_5:
+ADDI t0, fp, -4
+FLW ft0, 0(t0)
+FIMM.S ft1, 2.5
+FEQ.S t0, ft0, ft1
+BNE t0, x0, out_main_5
+ADDI t0, fp, -4
+ADDI t1, fp, -4
+FLW ft0, 0(t1)
+FIMM.S ft1, 0.5
+FADD.S ft0, ft0, ft1
+FSW ft0, 0(t0)
+ADDI t0, fp, -12
+ADDI t1, fp, -12
+LW t1, 0(t1)
+LI t2, 1
+ADD t1, t1, t2
+SW t1, 0(t0)
+J loop_main_5
+out_main_5:
+ADDI t0, fp, -12
+LW t0, 0(t0)
+PUTI t0
+ADDI t0, fp, -4
+FIMM.S ft0, 2.0
+FSW ft0, 0(t0)
+ADDI t0, fp, -12
+LI t1, 0
+SW t1, 0(t0)
+loop_main_6:
+ADDI t0, fp, -4
+FLW ft0, 0(t0)
+FIMM.S ft1, 2.0
+FEQ.S t0, ft0, ft1
+BEQ t0, x0, out_main_6
+ADDI t0, fp, -4
+ADDI t1, fp, -4
+FLW ft0, 0(t1)
+FIMM.S ft1, 1.0
+FADD.S ft0, ft0, ft1
+FSW ft0, 0(t0)
+ADDI t0, fp, -12
+ADDI t1, fp, -12
+LW t1, 0(t1)
+LI t2, 1
+ADD t1, t1, t2
+SW t1, 0(t0)
+J loop_main_6
+out_main_6:
+ADDI t0, fp, -12
+LW t0, 0(t0)
+PUTI t0
+ADDI t0, fp, -4
+FIMM.S ft0, 4.0
+FSW ft0, 0(t0)
+ADDI t0, fp, -12
+LI t1, 0
+SW t1, 0(t0)
+loop_main_7:
+ADDI t0, fp, -4
+FLW ft1, 0(t0)
+ADDI t0, fp, -8
+FLW ft0, 0(t0)
+FLT.S t0, ft0, ft1
+BNE t0, x0, out_main_7
+ADDI t0, fp, -12
+ADDI t1, fp, -12
+LW t1, 0(t1)
+LI t2, 1
+ADD t1, t1, t2
+SW t1, 0(t0)
+J loop_main_7
+out_main_7:
+ADDI t0, fp, -12
+LW t0, 0(t0)
+PUTI t0
+LI t0, 0
+SW t0, 8(fp)
+J func_ret_main
+func_ret_main:
+FLW ft1, -32(fp)
+FLW ft0, -28(fp)
+LW t2, -24(fp)
+LW t1, -20(fp)
+LW t0, -16(fp)
+MV sp, fp
+LW fp, 0(fp)
+RET
+
+
+
+.section .strings
@@ -0,0 +1,399 @@
+; Symbol table GLOBAL
+; Function: INT main([])
+
+; Symbol table main
+; name a type INT location -4
+; name b type INT location -8
+; name c type INT location -12
+; name d type INT location -16
+; name e type INT location -20
+; name i type INT location -24
+; name s type INT location -28
+
+.section .text
+MV fp, sp
+JR func_main
+HALT
+
+func_main:
+SW fp, 0(sp)
+MV fp, sp
+ADDI sp, sp, -500
+SW t1, -32(fp)
+SW t2, -36(fp)
+SW t3, -40(fp)
+SW t4, -44(fp)
+SW t5, -48(fp)
+SW t6, -52(fp)
+SW t7, -56(fp)
+SW t8, -60(fp)
+SW t9, -64(fp)
+SW t10, -68(fp)
+SW t11, -72(fp)
+SW t12, -76(fp)
+SW t13, -80(fp)
+SW t14, -84(fp)
+SW t15, -88(fp)
+SW t16, -92(fp)
+SW t17, -96(fp)
+SW t18, -100(fp)
+SW t19, -104(fp)
+SW t20, -108(fp)
+SW t21, -112(fp)
+SW t22, -116(fp)
+SW t23, -120(fp)
+SW t24, -124(fp)
+SW t25, -128(fp)
+SW t26, -132(fp)
+SW t27, -136(fp)
+SW t28, -140(fp)
+SW t29, -144(fp)
+SW t30, -148(fp)
+SW t31, -152(fp)
+SW t32, -156(fp)
+SW t33, -160(fp)
+SW t34, -164(fp)
+SW t35, -168(fp)
+SW t36, -172(fp)
+SW t37, -176(fp)
+SW t38, -180(fp)
+SW t39, -184(fp)
+SW t40, -188(fp)
+SW t41, -192(fp)
+SW t42, -196(fp)
+SW t43, -200(fp)
+SW t44, -204(fp)
+SW t45, -208(fp)
+SW t46, -212(fp)
+SW t47, -216(fp)
+SW t48, -220(fp)
+SW t49, -224(fp)
+SW t50, -228(fp)
+SW t51, -232(fp)
+SW t52, -236(fp)
+SW t53, -240(fp)
+SW t54, -244(fp)
+SW t55, -248(fp)
+SW t56, -252(fp)
+SW t57, -256(fp)
+SW t58, -260(fp)
+SW t59, -264(fp)
+SW t60, -268(fp)
+SW t61, -272(fp)
+SW t62, -276(fp)
+SW t63, -280(fp)
+SW t64, -284(fp)
+SW t65, -288(fp)
+SW t66, -292(fp)
+SW t67, -296(fp)
+SW t68, -300(fp)
+SW t69, -304(fp)
+SW t70, -308(fp)
+SW t71, -312(fp)
+SW t72, -316(fp)
+SW t73, -320(fp)
+SW t74, -324(fp)
+SW t75, -328(fp)
+SW t76, -332(fp)
+SW t77, -336(fp)
+SW t79, -340(fp)
+SW t80, -344(fp)
+SW t81, -348(fp)
+SW t82, -352(fp)
+SW t83, -356(fp)
+SW t84, -360(fp)
+SW t85, -364(fp)
+SW t86, -368(fp)
+SW t87, -372(fp)
+SW t88, -376(fp)
+SW t89, -380(fp)
+SW t90, -384(fp)
+SW t91, -388(fp)
+SW t92, -392(fp)
+SW t93, -396(fp)
+SW t94, -400(fp)
+SW t95, -404(fp)
+SW t96, -408(fp)
+SW t97, -412(fp)
+SW t98, -416(fp)
+SW t99, -420(fp)
+SW t100, -424(fp)
+SW t101, -428(fp)
+SW t102, -432(fp)
+SW t103, -436(fp)
+SW t104, -440(fp)
+SW t105, -444(fp)
+SW t106, -448(fp)
+SW t107, -452(fp)
+SW t108, -456(fp)
+SW t109, -460(fp)
+SW t110, -464(fp)
+SW t111, -468(fp)
+SW t112, -472(fp)
+SW t113, -476(fp)
+SW t114, -480(fp)
+SW t115, -484(fp)
+SW t116, -488(fp)
+SW t117, -492(fp)
+SW t118, -496(fp)
+ADDI t2, fp, -4
+LI t1, 1
+SW t1, 0(t2)
+ADDI t4, fp, -8
+LI t3, 2
+SW t3, 0(t4)
+ADDI t6, fp, -12
+LI t5, 3
+SW t5, 0(t6)
+ADDI t8, fp, -16
+LI t7, 4
+SW t7, 0(t8)
+ADDI t10, fp, -20
+LI t9, 5
+SW t9, 0(t10)
+ADDI t12, fp, -24
+LI t11, 0
+SW t11, 0(t12)
+ADDI t14, fp, -28
+LI t13, 0
+SW t13, 0(t14)
+loop_main_1:
+ADDI t23, fp, -24
+LW t24, 0(t23)
+ADDI t20, fp, -4
+LW t21, 0(t20)
+ADDI t15, fp, -8
+LW t16, 0(t15)
+ADDI t17, fp, -12
+LW t18, 0(t17)
+SUB t19, t16, t18
+SUB t22, t21, t19
+ADD t25, t24, t22
+ADDI t37, fp, -20
+LW t38, 0(t37)
+ADDI t34, fp, -16
+LW t35, 0(t34)
+ADDI t31, fp, -12
+LW t32, 0(t31)
+ADDI t26, fp, -8
+LW t27, 0(t26)
+ADDI t28, fp, -4
+LW t29, 0(t28)
+ADD t30, t27, t29
+SUB t33, t32, t30
+SUB t36, t35, t33
+ADD t39, t38, t36
+BGE t25, t39, out_main_1
+ADDI t72, fp, -28
+ADDI t69, fp, -28
+LW t70, 0(t69)
+ADDI t66, fp, -4
+LW t67, 0(t66)
+ADDI t63, fp, -8
+LW t64, 0(t63)
+ADDI t60, fp, -12
+LW t61, 0(t60)
+ADDI t57, fp, -16
+LW t58, 0(t57)
+ADDI t54, fp, -20
+LW t55, 0(t54)
+ADDI t51, fp, -24
+LW t52, 0(t51)
+ADDI t48, fp, -4
+LW t49, 0(t48)
+ADDI t45, fp, -8
+LW t46, 0(t45)
+ADDI t40, fp, -12
+LW t41, 0(t40)
+ADDI t42, fp, -16
+LW t43, 0(t42)
+ADD t44, t41, t43
+SUB t47, t46, t44
+SUB t50, t49, t47
+SUB t53, t52, t50
+MUL t56, t55, t53
+SUB t59, t58, t56
+MUL t62, t61, t59
+ADD t65, t64, t62
+MUL t68, t67, t65
+ADD t71, t70, t68
+SW t71, 0(t72)
+ADDI t77, fp, -24
+ADDI t74, fp, -24
+LW t75, 0(t74)
+LI t73, 1
+ADD t76, t75, t73
+SW t76, 0(t77)
+J loop_main_1
+out_main_1:
+ADDI t79, fp, -24
+LW t80, 0(t79)
+PUTI t80
+ADDI t81, fp, -28
+LW t82, 0(t81)
+PUTI t82
+ADDI t115, fp, -28
+ADDI t83, fp, -4
+LW t84, 0(t83)
+ADDI t85, fp, -8
+LW t86, 0(t85)
+ADD t87, t84, t86
+ADDI t88, fp, -12
+LW t89, 0(t88)
+ADDI t90, fp, -16
+LW t91, 0(t90)
+ADD t92, t89, t91
+MUL t93, t87, t92
+ADDI t94, fp, -20
+LW t95, 0(t94)
+ADDI t96, fp, -4
+LW t97, 0(t96)
+SUB t98, t95, t97
+ADDI t110, fp, -16
+LW t111, 0(t110)
+ADDI t107, fp, -8
+LW t108, 0(t107)
+ADDI t104, fp, -12
+LW t105, 0(t104)
+ADDI t99, fp, -20
+LW t100, 0(t99)
+ADDI t101, fp, -24
+LW t102, 0(t101)
+SUB t103, t100, t102
+ADD t106, t105, t103
+MUL t109, t108, t106
+SUB t112, t111, t109
+MUL t113, t98, t112
+SUB t114, t93, t113
+SW t114, 0(t115)
+ADDI t116, fp, -28
+LW t117, 0(t116)
+PUTI t117
+LI t118, 0
+SW t118, 8(fp)
+J func_ret_main
+func_ret_main:
+LW t118, -496(fp)
+LW t117, -492(fp)
+LW t116, -488(fp)
+LW t115, -484(fp)
+LW t114, -480(fp)
+LW t113, -476(fp)
+LW t112, -472(fp)
+LW t111, -468(fp)
+LW t110, -464(fp)
+LW t109, -460(fp)
+LW t108, -456(fp)
+LW t107, -452(fp)
+LW t106, -448(fp)
+LW t105, -444(fp)
+LW t104, -440(fp)
+LW t103, -436(fp)
+LW t102, -432(fp)
+LW t101, -428(fp)
+LW t100, -424(fp)
+LW t99, -420(fp)
+LW t98, -416(fp)
+LW t97, -412(fp)
+LW t96, -408(fp)
+LW t95, -404(fp)
+LW t94, -400(fp)
+LW t93, -396(fp)
+LW t92, -392(fp)
+LW t91, -388(fp)
+LW t90, -384(fp)
+LW t89, -380(fp)
+LW t88, -376(fp)
+LW t87, -372(fp)
+LW t86, -368(fp)
+LW t85, -364(fp)
+LW t84, -360(fp)
+LW t83, -356(fp)
+LW t82, -352(fp)
+LW t81, -348(fp)
+LW t80, -344(fp)
+LW t79, -340(fp)
+LW t77, -336(fp)
+LW t76, -332(fp)
+LW t75, -328(fp)
+LW t74, -324(fp)
+LW t73, -320(fp)
+LW t72, -316(fp)
+LW t71, -312(fp)
+LW t70, -308(fp)
+LW t69, -304(fp)
+LW t68, -300(fp)
+LW t67, -296(fp)
+LW t66, -292(fp)
+LW t65, -288(fp)
+LW t64, -284(fp)
+LW t63, -280(fp)
+LW t62, -276(fp)
+LW t61, -272(fp)
+LW t60, -268(fp)
+LW t59, -264(fp)
+LW t58, -260(fp)
+LW t57, -256(fp)
+LW t56, -252(fp)
+LW t55, -248(fp)
+LW t54, -244(fp)
+LW t53, -240(fp)
+LW t52, -236(fp)
+LW t51, -232(fp)
+LW t50, -228(fp)
+LW t49, -224(fp)
+LW t48, -220(fp)
+LW t47, -216(fp)
+LW t46, -212(fp)
+LW t45, -208(fp)
+LW t44, -204(fp)
+LW t43, -200(fp)
+LW t42, -196(fp)
+LW t41, -192(fp)
+LW t40, -188(fp)
+LW t39, -184(fp)
+LW t38, -180(fp)
+LW t37, -176(fp)
+LW t36, -172(fp)
+LW t35, -168(fp)
+LW t34, -164(fp)
+LW t33, -160(fp)
+LW t32, -156(fp)
+LW t31, -152(fp)
+LW t30, -148(fp)
+LW t29, -144(fp)
+LW t28, -140(fp)
+LW t27, -136(fp)
+LW t26, -132(fp)
+LW t25, -128(fp)
+LW t24, -124(fp)
+LW t23, -120(fp)
+LW t22, -116(fp)
+LW t21, -112(fp)
+LW t20, -108(fp)
+LW t19, -104(fp)
+LW t18, -100(fp)
+LW t17, -96(fp)
+LW t16, -92(fp)
+LW t15, -88(fp)
+LW t14, -84(fp)
+LW t13, -80(fp)
+LW t12, -76(fp)
+LW t11, -72(fp)
+LW t10, -68(fp)
+LW t9, -64(fp)
+LW t8, -60(fp)
+LW t7, -56(fp)
+LW t6, -52(fp)
+LW t5, -48(fp)
+LW t4, -44(fp)
+LW t3, -40(fp)
+LW t2, -36(fp)
+LW t1, -32(fp)
+MV sp, fp
+LW fp, 0(fp)
+RET
+
+
+
+.section .strings
@@ -0,0 +1,415 @@
+; Symbol table GLOBAL
+; Function: INT main([])
+
+; Symbol table main
+; name a type FLOAT location -4
+; name b type FLOAT location -8
+; name c type FLOAT location -12
+; name d type FLOAT location -16
+; name x type FLOAT location -20
+; name s type FLOAT location -24
+
+.section .text
+MV fp, sp
+JR func_main
+HALT
+
+func_main:
+SW fp, 0(sp)
+MV fp, sp
+ADDI sp, sp, -520
+SW t1, -28(fp)
+SW t2, -32(fp)
+SW t3, -36(fp)
+SW t4, -40(fp)
+SW t5, -44(fp)
+SW t6, -48(fp)
+SW t7, -52(fp)
+SW t8, -56(fp)
+SW t9, -60(fp)
+SW t10, -64(fp)
+SW t11, -68(fp)
+SW t12, -72(fp)
+SW t13, -76(fp)
+SW t14, -80(fp)
+SW t15, -84(fp)
+SW t16, -88(fp)
+SW t17, -92(fp)
+SW t18, -96(fp)
+SW t19, -100(fp)
+SW t20, -104(fp)
+SW t21, -108(fp)
+SW t22, -112(fp)
+SW t23, -116(fp)
+SW t24, -120(fp)
+SW t25, -124(fp)
+SW t26, -128(fp)
+SW t27, -132(fp)
+SW t28, -136(fp)
+SW t29, -140(fp)
+SW t30, -144(fp)
+SW t31, -148(fp)
+SW t32, -152(fp)
+SW t33, -156(fp)
+SW t34, -160(fp)
+SW t35, -164(fp)
+SW t36, -168(fp)
+SW t37, -172(fp)
+SW t38, -176(fp)
+SW t39, -180(fp)
+SW t40, -184(fp)
+SW t41, -188(fp)
+SW t42, -192(fp)
+SW t43, -196(fp)
+SW t44, -200(fp)
+SW t45, -204(fp)
+SW t46, -208(fp)
+SW t47, -212(fp)
+SW t48, -216(fp)
+SW t49, -220(fp)
+FSW f1, -224(fp)
+FSW f2, -228(fp)
+FSW f3, -232(fp)
+FSW f4, -236(fp)
+FSW f5, -240(fp)
+FSW f6, -244(fp)
+FSW f7, -248(fp)
+FSW f8, -252(fp)
+FSW f9, -256(fp)
+FSW f10, -260(fp)
+FSW f11, -264(fp)
+FSW f12, -268(fp)
+FSW f13, -272(fp)
+FSW f14, -276(fp)
+FSW f15, -280(fp)
+FSW f16, -284(fp)
+FSW f17, -288(fp)
+FSW f18, -292(fp)
+FSW f19, -296(fp)
+FSW f20, -300(fp)
+FSW f21, -304(fp)
+FSW f22, -308(fp)
+FSW f23, -312(fp)
+FSW f24, -316(fp)
+FSW f25, -320(fp)
+FSW f26, -324(fp)
+FSW f27, -328(fp)
+FSW f28, -332(fp)
+FSW f29, -336(fp)
+FSW f30, -340(fp)
+FSW f31, -344(fp)
+FSW f32, -348(fp)
+FSW f33, -352(fp)
+FSW f34, -356(fp)
+FSW f35, -360(fp)
+FSW f36, -364(fp)
+FSW f37, -368(fp)
+FSW f38, -372(fp)
+FSW f39, -376(fp)
+FSW f40, -380(fp)
+FSW f41, -384(fp)
+FSW f42, -388(fp)
+FSW f43, -392(fp)
+FSW f44, -396(fp)
+FSW f45, -400(fp)
+FSW f46, -404(fp)
+FSW f47, -408(fp)
+FSW f48, -412(fp)
+FSW f49, -416(fp)
+FSW f50, -420(fp)
+FSW f51, -424(fp)
+FSW f52, -428(fp)
+FSW f53, -432(fp)
+FSW f54, -436(fp)
+FSW f55, -440(fp)
+FSW f56, -444(fp)
+FSW f57, -448(fp)
+FSW f58, -452(fp)
+FSW f59, -456(fp)
+FSW f60, -460(fp)
+FSW f61, -464(fp)
+FSW f62, -468(fp)
+FSW f63, -472(fp)
+FSW f64, -476(fp)
+FSW f65, -480(fp)
+FSW f66, -484(fp)
+FSW f67, -488(fp)
+FSW f68, -492(fp)
+FSW f69, -496(fp)
+FSW f70, -500(fp)
+FSW f71, -504(fp)
+FSW f72, -508(fp)
+FSW f73, -512(fp)
+FSW f74, -516(fp)
+ADDI t1, fp, -4
+FIMM.S f1, 0.5
+FSW f1, 0(t1)
+ADDI t2, fp, -8
+FIMM.S f2, 1.5
+FSW f2, 0(t2)
+ADDI t3, fp, -12
+FIMM.S f3, 2.0
+FSW f3, 0(t3)
+ADDI t4, fp, -16
+FIMM.S f4, 4.0
+FSW f4, 0(t4)
+ADDI t5, fp, -20
+FIMM.S f5, 0.0
+FSW f5, 0(t5)
+ADDI t6, fp, -24
+FIMM.S f6, 1.0
+FSW f6, 0(t6)
+loop_main_1:
+ADDI t11, fp, -20
+FLW f14, 0(t11)
+ADDI t10, fp, -4
+FLW f12, 0(t10)
+ADDI t9, fp, -8
+FLW f10, 0(t9)
+ADDI t7, fp, -12
+FLW f7, 0(t7)
+ADDI t8, fp, -16
+FLW f8, 0(t8)
+FSUB.S f9, f7, f8
+FSUB.S f11, f10, f9
+FMUL.S f13, f12, f11
+FADD.S f15, f14, f13
+ADDI t16, fp, -16
+FLW f23, 0(t16)
+ADDI t15, fp, -12
+FLW f21, 0(t15)
+ADDI t14, fp, -8
+FLW f19, 0(t14)
+ADDI t12, fp, -4
+FLW f16, 0(t12)
+ADDI t13, fp, -4
+FLW f17, 0(t13)
+FADD.S f18, f16, f17
+FSUB.S f20, f19, f18
+FADD.S f22, f21, f20
+FMUL.S f24, f23, f22
+FLE.S t33, f24, f15
+BNE t33, x0, out_main_1
+ADDI t27, fp, -24
+ADDI t26, fp, -24
+FLW f42, 0(t26)
+ADDI t25, fp, -4
+FLW f40, 0(t25)
+ADDI t24, fp, -8
+FLW f38, 0(t24)
+ADDI t23, fp, -12
+FLW f36, 0(t23)
+ADDI t22, fp, -16
+FLW f34, 0(t22)
+ADDI t21, fp, -20
+FLW f32, 0(t21)
+ADDI t20, fp, -4
+FLW f30, 0(t20)
+ADDI t19, fp, -8
+FLW f28, 0(t19)
+ADDI t17, fp, -12
+FLW f25, 0(t17)
+ADDI t18, fp, -16
+FLW f26, 0(t18)
+FADD.S f27, f25, f26
+FSUB.S f29, f28, f27
+FSUB.S f31, f30, f29
+FMUL.S f33, f32, f31
+FSUB.S f35, f34, f33
+FMUL.S f37, f36, f35
+FADD.S f39, f38, f37
+FMUL.S f41, f40, f39
+FADD.S f43, f42, f41
+FSW f43, 0(t27)
+ADDI t32, fp, -20
+ADDI t31, fp, -20
+FLW f49, 0(t31)
+ADDI t30, fp, -8
+FLW f47, 0(t30)
+ADDI t28, fp, -4
+FLW f44, 0(t28)
+ADDI t29, fp, -4
+FLW f45, 0(t29)
+FADD.S f46, f44, f45
+FSUB.S f48, f47, f46
+FADD.S f50, f49, f48
+FSW f50, 0(t32)
+J loop_main_1
+out_main_1:
+ADDI t34, fp, -20
+FLW f51, 0(t34)
+PUTF f51
+ADDI t35, fp, -24
+FLW f52, 0(t35)
+PUTF f52
+ADDI t47, fp, -24
+ADDI t36, fp, -4
+FLW f53, 0(t36)
+ADDI t37, fp, -8
+FLW f54, 0(t37)
+FADD.S f55, f53, f54
+ADDI t38, fp, -12
+FLW f56, 0(t38)
+ADDI t39, fp, -16
+FLW f57, 0(t39)
+FADD.S f58, f56, f57
+FMUL.S f59, f55, f58
+ADDI t40, fp, -20
+FLW f60, 0(t40)
+ADDI t41, fp, -4
+FLW f61, 0(t41)
+FSUB.S f62, f60, f61
+ADDI t46, fp, -16
+FLW f70, 0(t46)
+ADDI t45, fp, -8
+FLW f68, 0(t45)
+ADDI t44, fp, -12
+FLW f66, 0(t44)
+ADDI t42, fp, -4
+FLW f63, 0(t42)
+ADDI t43, fp, -20
+FLW f64, 0(t43)
+FSUB.S f65, f63, f64
+FADD.S f67, f66, f65
+FMUL.S f69, f68, f67
+FSUB.S f71, f70, f69
+FMUL.S f72, f62, f71
+FSUB.S f73, f59, f72
+FSW f73, 0(t47)
+ADDI t48, fp, -24
+FLW f74, 0(t48)
+PUTF f74
+LI t49, 0
+SW t49, 8(fp)
+J func_ret_main
+func_ret_main:
+FLW f74, -516(fp)
+FLW f73, -512(fp)
+FLW f72, -508(fp)
+FLW f71, -504(fp)
+FLW f70, -500(fp)
+FLW f69, -496(fp)
+FLW f68, -492(fp)
+FLW f67, -488(fp)
+FLW f66, -484(fp)
+FLW f65, -480(fp)
+FLW f64, -476(fp)
+FLW f63, -472(fp)
+FLW f62, -468(fp)
+FLW f61, -464(fp)
+FLW f60, -460(fp)
+FLW f59, -456(fp)
+FLW f58, -452(fp)
+FLW f57, -448(fp)
+FLW f56, -444(fp)
+FLW f55, -440(fp)
+FLW f54, -436(fp)
+FLW f53, -432(fp)
+FLW f52, -428(fp)
+FLW f51, -424(fp)
+FLW f50, -420(fp)
+FLW f49, -416(fp)
+FLW f48, -412(fp)
+FLW f47, -408(fp)
+FLW f46, -404(fp)
+FLW f45, -400(fp)
+FLW f44, -396(fp)
+FLW f43, -392(fp)
+FLW f42, -388(fp)
+FLW f41, -384(fp)
+FLW f40, -380(fp)
+FLW f39, -376(fp)
+FLW f38, -372(fp)
+FLW f37, -368(fp)
+FLW f36, -364(fp)
+FLW f35, -360(fp)
+FLW f34, -356(fp)
+FLW f33, -352(fp)
+FLW f32, -348(fp)
+FLW f31, -344(fp)
+FLW f30, -340(fp)
+FLW f29, -336(fp)
+FLW f28, -332(fp)
+FLW f27, -328(fp)
+FLW f26, -324(fp)
+FLW f25, -320(fp)
+FLW f24, -316(fp)
+FLW f23, -312(fp)
+FLW f22, -308(fp)
+FLW f21, -304(fp)
+FLW f20, -300(fp)
+FLW f19, -296(fp)
+FLW f18, -292(fp)
+FLW f17, -288(fp)
+FLW f16, -284(fp)
+FLW f15, -280(fp)
+FLW f14, -276(fp)
+FLW f13, -272(fp)
+FLW f12, -268(fp)
+FLW f11, -264(fp)
+FLW f10, -260(fp)
+FLW f9, -256(fp)
+FLW f8, -252(fp)
+FLW f7, -248(fp)
+FLW f6, -244(fp)
+FLW f5, -240(fp)
+FLW f4, -236(fp)
+FLW f3, -232(fp)
+FLW f2, -228(fp)
+FLW f1, -224(fp)
+LW t49, -220(fp)
+LW t48, -216(fp)
+LW t47, -212(fp)
+LW t46, -208(fp)
+LW t45, -204(fp)
+LW t44, -200(fp)
+LW t43, -196(fp)
+LW t42, -192(fp)
+LW t41, -188(fp)
+LW t40, -184(fp)
+LW t39, -180(fp)
+LW t38, -176(fp)
+LW t37, -172(fp)
+LW t36, -168(fp)
+LW t35, -164(fp)
+LW t34, -160(fp)
+LW t33, -156(fp)
+LW t32, -152(fp)
+LW t31, -148(fp)
+LW t30, -144(fp)
+LW t29, -140(fp)
+LW t28, -136(fp)
+LW t27, -132(fp)
+LW t26, -128(fp)
+LW t25, -124(fp)
+LW t24, -120(fp)
+LW t23, -116(fp)
+LW t22, -112(fp)
+LW t21, -108(fp)
+LW t20, -104(fp)
+LW t19, -100(fp)
+LW t18, -96(fp)
+LW t17, -92(fp)
+LW t16, -88(fp)
+LW t15, -84(fp)
+LW t14, -80(fp)
+LW t13, -76(fp)
+LW t12, -72(fp)
+LW t11, -68(fp)
+LW t10, -64(fp)
+LW t9, -60(fp)
+LW t8, -56(fp)
+LW t7, -52(fp)
+LW t6, -48(fp)
+LW t5, -44(fp)
+LW t4, -40(fp)
+LW t3, -36(fp)
+LW t2, -32(fp)
+LW t1, -28(fp)
+MV sp, fp
+LW fp, 0(fp)
+RET
+
+
+
+.section .strings
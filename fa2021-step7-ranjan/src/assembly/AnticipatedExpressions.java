@@ -0,0 +1,38 @@
+package assembly;
+
+import java.util.BitSet;
+
+import assembly.ControlFlowGraph.BasicBlock;
+import assembly.instructions.Instruction;
+import assembly.instructions.Instruction.Operand;
+import assembly.instructions.Register;
+
+/**
+ * Expressions anticipated (very busy) at each point: computed on every path from it
+ * before any operand is written. Backward, intersection; bits are {@link Expressions}
+ * numbers.
+ */
+public class AnticipatedExpressions extends Dataflow {
+
+	private final Expressions exprs;
+
+	public AnticipatedExpressions(ControlFlowGraph cfg, Expressions exprs) {
+		super(cfg, Direction.BACKWARD, Meet.INTERSECTION, exprs.count());
+		this.exprs = exprs;
+		solve();
+	}
+
+	@Override
+	protected void summarize(BasicBlock b, BitSet gen, BitSet kill) {
+		Instruction[] code = cfg.getCode();
+		for (int i = b.end - 1; i >= b.start; i--) {
+			if (code[i].getOC() == null) continue;
+			int d = code[i].getOperand(Operand.DEST);
+			if (d != Register.NONE) {
+				gen.andNot(exprs.usersOf(d));
+				kill.or(exprs.usersOf(d));
+			}
+			if (exprs.at(i) >= 0) gen.set(exprs.at(i));
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package assembly;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import assembly.instructions.Instruction;
+import assembly.instructions.Register;
+
+/**
+ * Writes assembly text out as it is produced.
+ *
+ * Instructions write their pieces (op code, operands, separators) straight into one
+ * char buffer that is reused for the whole output, and the buffer is handed to the
+ * underlying writer whenever it fills up. So emitting a program never builds its text
+ * as a String, and memory use does not grow with the size of the program.
+ */
+public class AsmEmitter {
+
+	private final Writer out;
+	private final char[] buf = new char[8192];
+	private int pos;
+
+	/**
+	 * @param out stream to write to. The emitter does not close it.
+	 */
+	public AsmEmitter(OutputStream out) {
+		this(new OutputStreamWriter(out));
+	}
+
+	public AsmEmitter(Writer out) {
+		this.out = out;
+		this.pos = 0;
+	}
+
+	public AsmEmitter print(String s) {
+		if (s == null) s = "null";
+		int len = s.length();
+		int off = 0;
+		while (off < len) {
+			if (pos == buf.length) drain();
+			int n = Math.min(len - off, buf.length - pos);
+			s.getChars(off, off + n, buf, pos);
+			pos += n;
+			off += n;
+		}
+		return this;
+	}
+
+	public AsmEmitter print(char c) {
+		if (pos == buf.length) drain();
+		buf[pos++] = c;
+		return this;
+	}
+
+	/**
+	 * Print a number in decimal, without building a String for it
+	 */
+	public AsmEmitter print(int n) {
+		if (n < 0) {
+			if (n == Integer.MIN_VALUE) return print(String.valueOf(n));
+			print('-');
+			n = -n;
+		}
+		if (buf.length - pos < 10) drain();
+		int len = 1;
+		for (int m = n / 10; m > 0; m /= 10) len++;
+		for (int i = pos + len - 1; i >= pos; i--) {
+			buf[i] = (char) ('0' + n % 10);
+			n /= 10;
+		}
+		pos += len;
+		return this;
+	}
+
+	/**
+	 * Print a register operand by name (see {@link Register})
+	 */
+	public AsmEmitter printRegister(int r) {
+		Register.emit(this, r);
+		return this;
+	}
+
+	public AsmEmitter print(Object o) {
+		return print(String.valueOf(o));
+	}
+
+	public AsmEmitter println(String s) {
+		return print(s).print('\n');
+	}
+
+	public AsmEmitter println() {
+		return print('\n');
+	}
+
+	/**
+	 * Emit a list of instructions, one per line
+	 */
+	public AsmEmitter emit(Iterable<Instruction> code) {
+		for (Instruction i : code) {
+			i.emit(this);
+			print('\n');
+		}
+		return this;
+	}
+
+	/**
+	 * Push everything written so far to the underlying stream
+	 */
+	public void flush() {
+		drain();
+		try {
+			out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void drain() {
+		try {
+			out.write(buf, 0, pos);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		pos = 0;
+	}
+}
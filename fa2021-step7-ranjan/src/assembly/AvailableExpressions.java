@@ -0,0 +1,37 @@
+package assembly;
+
+import java.util.BitSet;
+
+import assembly.ControlFlowGraph.BasicBlock;
+import assembly.instructions.Instruction;
+import assembly.instructions.Instruction.Operand;
+import assembly.instructions.Register;
+
+/**
+ * Expressions available at each point: computed on every path to it, with no
+ * operand written since. Forward, intersection; bits are {@link Expressions} numbers.
+ */
+public class AvailableExpressions extends Dataflow {
+
+	private final Expressions exprs;
+
+	public AvailableExpressions(ControlFlowGraph cfg, Expressions exprs) {
+		super(cfg, Direction.FORWARD, Meet.INTERSECTION, exprs.count());
+		this.exprs = exprs;
+		solve();
+	}
+
+	@Override
+	protected void summarize(BasicBlock b, BitSet gen, BitSet kill) {
+		Instruction[] code = cfg.getCode();
+		for (int i = b.start; i < b.end; i++) {
+			if (exprs.at(i) >= 0) gen.set(exprs.at(i));
+			if (code[i].getOC() == null) continue;
+			int d = code[i].getOperand(Operand.DEST);
+			if (d != Register.NONE) {
+				gen.andNot(exprs.usersOf(d));
+				kill.or(exprs.usersOf(d));
+			}
+		}
+	}
+}
@@ -1,7 +1,24 @@
 package assembly;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import compiler.CompilationContext;
+import compiler.FunctionCache;
+
+import compiler.Scope.FunctionSymbolTableEntry;
 import compiler.Scope.InnerType;
 import compiler.Scope.SymbolTableEntry;
 import compiler.Scope.Type;
@@ -9,22 +26,50 @@ import ast.visitor.AbstractASTVisitor;
 
 import ast.*;
 import assembly.instructions.*;
+import assembly.instructions.Register.RegClass;
+import compiler.LocalScope;
 import compiler.Scope;
 
 public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 
+	/**
+	 * Calling conventions, as chosen with <code>--abi</code>. Under STACK every argument
+	 * is pushed and the result comes back in a slot above them. Under REGISTERS the
+	 * first eight int and pointer arguments go in a0-a7 and the first eight float
+	 * arguments in fa0-fa7, any others in their stack slots, and the result comes back
+	 * in a0 or fa0. The frame is the same either way: the caller makes room for every
+	 * argument, and the callee stores the ones it got in registers to their slots,
+	 * where the body reads parameters like any other variable.
+	 */
+	public enum Abi {
+		STACK,
+		REGISTERS
+	}
+
 	int intRegCount;
 	int floatRegCount;
-	static final public char intTempPrefix = 't';
-	static final public char floatTempPrefix = 'f';
+	int savedRegisters; //saved by the last function's prologue
 	
 	int loopLabel;
 	int elseLabel;
 	int outLabel;
 
 	String currFunc;
+
+	CompilationContext ctx; //the unit being compiled
+	PrintStream out; //where comments produced during code generation go
 	
 	public CodeGenerator() {
+		this(new CompilationContext());
+	}
+
+	public CodeGenerator(CompilationContext ctx) {
+		this(ctx, ctx.getOutput());
+	}
+
+	private CodeGenerator(CompilationContext ctx, PrintStream out) {
+		this.ctx = ctx;
+		this.out = out;
 		loopLabel = 0;
 		elseLabel = 0;
 		outLabel = 0;
@@ -32,6 +77,86 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		floatRegCount = 0;
 	}
 
+	/**
+	 * Generate code for a tree. For a whole program, when the context allows more than
+	 * one code generation thread or caches functions, each function is generated by
+	 * its own CodeGenerator (functions share no codegen state: temps and labels are
+	 * numbered per function), on a worker thread, or taken from the cache. Results,
+	 * including any comments printed while generating, are stitched together in
+	 * source order, so the output is the same as generating serially.
+	 */
+	@Override
+	public CodeObject run(ASTNode node) {
+		if (!(node instanceof FunctionListNode) || (ctx.getCodegenThreads() <= 1 && ctx.getFunctionCache() == null)) {
+			return super.run(node);
+		}
+		FunctionListNode fl = (FunctionListNode) node;
+
+		List<Callable<CodeObject>> tasks = new ArrayList<Callable<CodeObject>>();
+		List<ByteArrayOutputStream> comments = new ArrayList<ByteArrayOutputStream>();
+		for (FunctionNode f : fl.getFunctions()) {
+			ByteArrayOutputStream buf = new ByteArrayOutputStream();
+			comments.add(buf);
+			tasks.add(() -> generateFunction(f, buf));
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(ctx.getCodegenThreads());
+		List<CodeObject> funcs = new ArrayList<CodeObject>();
+		try {
+			List<Future<CodeObject>> results = pool.invokeAll(tasks);
+			for (int i = 0; i < results.size(); i++) {
+				funcs.add(results.get(i).get());
+				comments.get(i).writeTo(out);
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error) throw (Error) e.getCause();
+			throw new Error(e.getCause());
+		} catch (InterruptedException | IOException e) {
+			throw new Error(e);
+		} finally {
+			pool.shutdown();
+		}
+
+		preprocess(fl);
+		return postprocess(fl, funcs);
+	}
+
+	/* Generate one function with its own CodeGenerator, or reuse its code from the cache */
+	private CodeObject generateFunction(FunctionNode f, ByteArrayOutputStream comments) throws IOException {
+		FunctionCache cache = ctx.getFunctionCache();
+		String key = (cache != null) ? cache.key(f, ctx) : null;
+		if (key != null) {
+			FunctionCache.Entry e = cache.get(key);
+			ctx.getStats().cachedFunction(e != null);
+			if (e != null) {
+				comments.write(e.getComments());
+				ctx.getStats().function(f.getFuncName(), e.getIntTemps(), e.getFloatTemps(), e.getLocals(), e.getSaved());
+				CodeObject co = new CodeObject();
+				co.code.add(new Verbatim(e.getCode(), e.getOpCodes()));
+				return co;
+			}
+		}
+
+		CodeGenerator cg = new CodeGenerator(ctx, new PrintStream(comments));
+		CodeObject co = cg.run(f);
+		if (key != null) {
+			StringWriter text = new StringWriter();
+			AsmEmitter asm = new AsmEmitter(text);
+			Map<Instruction.OpCode, Integer> opCodes = new EnumMap<Instruction.OpCode, Integer>(Instruction.OpCode.class);
+			int n = 0;
+			for (Instruction i : co.code) {
+				if (n++ > 0) asm.println();
+				i.emit(asm);
+				if (i.getOC() != null) opCodes.merge(i.getOC(), 1, Integer::sum);
+			}
+			asm.flush();
+			cache.put(key, new FunctionCache.Entry(comments.toByteArray(), text.toString(), opCodes,
+					cg.intRegCount, cg.floatRegCount, f.getScope().getNumLocals(), cg.savedRegisters));
+		}
+		return co;
+	}
+
 	public int getIntRegCount() {
 		return intRegCount;
 	}
@@ -123,7 +248,6 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 	 */
 	@Override
 	protected CodeObject postprocess(BinaryOpNode node, CodeObject left, CodeObject right) {
-		System.err.println("Binary");
 		CodeObject co = new CodeObject();
 		
 		/* FILL IN FROM STEP 2 */
@@ -136,19 +260,19 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		}
 		co.code.addAll(right.code);
 		InstructionList il = new InstructionList();
-		String newTemp;
+		int newTemp;
 		/*code for step 7 -- In a binary expression, if one operand is an int and the other is a float,
 		 the int is converted to a float. The result of the expression is a float. */
 		 if(left.getType().type == InnerType.INT && right.getType().type == InnerType.FLOAT){
-			left.type = new Scope.Type(InnerType.FLOAT);
+			left.type = Scope.Type.FLOAT;
 			newTemp = generateTemp(InnerType.FLOAT);  
 			il.add(new Imovf(left.temp, newTemp));
 			left.temp = newTemp;
 		 }
 		 else if(left.getType().type == InnerType.FLOAT && right.getType().type == InnerType.INT){
-			right.type = new Scope.Type(InnerType.FLOAT);
+			right.type = Scope.Type.FLOAT;
 			newTemp = generateTemp(InnerType.FLOAT);  
-			il.add(new FMovi(right.temp, newTemp));
+			il.add(new Imovf(right.temp, newTemp));
 			right.temp = newTemp; 
 		 }
 		else{
@@ -259,7 +383,7 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		 }
 		co.code.addAll(expr.code);
 		InstructionList il = new InstructionList();
-		String newTemp;
+		int newTemp;
 		newTemp = generateTemp(expr.getType().type);
 		switch(expr.getType().type) {
 			case PTR:
@@ -303,7 +427,6 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 	 */
 	@Override
 	protected CodeObject postprocess(AssignNode node, CodeObject left,CodeObject right) {
-		System.err.println("Assign");
 		CodeObject co = new CodeObject();
 
 		/* FILL IN FROM STEP 2 */
@@ -322,13 +445,13 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		}
 		co.code.addAll(right.code);
 		InstructionList il = new InstructionList();		
-		String newTemp;
+		int newTemp;
 		switch(left.getType().type){	
 			case FLOAT:
 				/* step 7 implict type conversion logic*/
 				if(right.getType().type == InnerType.INT){
 					//upcast right to float
-					right.type = new Scope.Type(InnerType.FLOAT);
+					right.type = Scope.Type.FLOAT;
 					newTemp = generateTemp(InnerType.FLOAT);  
 					il.add(new Imovf(right.temp, newTemp));
 					right.temp = newTemp;}
@@ -340,7 +463,7 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 				/* step 7 implict type conversion logic*/
 				if(right.getType().type == InnerType.FLOAT){
 					//downcast right to int
-					right.type = new Scope.Type(InnerType.INT);
+					right.type = Scope.Type.INT;
 					newTemp = generateTemp(InnerType.INT);  
 					il.add(new FMovi(right.temp, newTemp));
 					right.temp = newTemp;}
@@ -404,7 +527,7 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 				InstructionList store = new InstructionList();
 				if (var.getSTE().isLocal()) {
 				//	co.code.add(new Label("testing line 419"));
-					store.add(new Sw(geti.getDest(), "fp", String.valueOf(var.getSTE().addressToString())));
+					store.add(new Sw(geti.getDest(), Register.FP, String.valueOf(var.getSTE().addressToString())));
 				} else {
 					store.addAll(generateAddrFromVariable(var));
 					//co.code.add(new Label("testing line 422"));	
@@ -421,7 +544,7 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 				il.add(getf);
 				InstructionList fstore = new InstructionList();
 				if (var.getSTE().isLocal()) {
-					fstore.add(new Fsw(getf.getDest(), "fp", String.valueOf(var.getSTE().addressToString())));
+					fstore.add(new Fsw(getf.getDest(), Register.FP, String.valueOf(var.getSTE().addressToString())));
 				} else {
 					fstore.addAll(generateAddrFromVariable(var));
 					fstore.add(new Fsw(getf.getDest(), fstore.getLast().getDest(), "0"));
@@ -435,7 +558,7 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		co.code.addAll(il);
 
 		co.lval = false; //doesn't matter
-		co.temp = null; //set to null to trigger errors
+		co.temp = Register.NONE; //set to null to trigger errors
 		co.type = null; //set to null to trigger errors
 
 		return co;
@@ -466,7 +589,7 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 			//Step 1:
 			assert(expr.getSTE() != null);
 			
-			System.out.println("; generating code to print " + expr.getSTE());
+			out.println("; generating code to print " + expr.getSTE());
 
 			//Get the address of the variable
 			InstructionList addrCo = generateAddrFromVariable(expr);
@@ -501,7 +624,7 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		}
 
 		co.lval = false; //doesn't matter
-		co.temp = null; //set to null to trigger errors
+		co.temp = Register.NONE; //set to null to trigger errors
 		co.type = null; //set to null to trigger errors
 
 		return co;
@@ -591,44 +714,44 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		// step 3 create branch statement
 		InstructionList il = new InstructionList();
 		Instruction else_label = new Label(eLabel);
-		String intTemp = generateTemp(Scope.InnerType.INT);
+		int intTemp = generateTemp(Scope.InnerType.INT);
 		switch (cond.getType().type){
 			case FLOAT:
 			switch (cond.getOp()){
 				case EQ:
 					Instruction feq = new Feq(cond.getLeft(),cond.getRight(),intTemp);
 					il.add(feq);
-					Instruction bne = new Bne(intTemp,"x0",else_label.label);
-					il.add(bne);
+					Instruction beq = new Beq(intTemp,Register.X0,else_label.label);
+					il.add(beq);
 					break;
 				case NE:
-					Instruction fneq = new Feq(cond.getLeft(),cond.getLeft(),intTemp); 
+					Instruction fneq = new Feq(cond.getLeft(),cond.getRight(),intTemp);
 					il.add(fneq);
-					Instruction beq = new Beq(intTemp,"x0",else_label.label);
-					il.add(beq);
+					Instruction bne = new Bne(intTemp,Register.X0,else_label.label);
+					il.add(bne);
 					break;	
 				case LT:
 					Instruction fge = new Fle(cond.getRight(),cond.getLeft(),intTemp);
 					il.add(fge);
-					Instruction bne0 = new Bne(intTemp,"x0",else_label.label);
+					Instruction bne0 = new Bne(intTemp,Register.X0,else_label.label);
 					il.add(bne0);
 					break;
 				case LE:
 					Instruction fgt = new Flt(cond.getRight(),cond.getLeft(),intTemp);
 					il.add(fgt);
-					Instruction bne1 = new Bne(intTemp,"x0",else_label.label);
+					Instruction bne1 = new Bne(intTemp,Register.X0,else_label.label);
 					il.add(bne1);
 					break;
 				case GT:
 					Instruction fle = new Fle(cond.getLeft(),cond.getRight(),intTemp);
 					il.add(fle);
-					Instruction bne2 = new Bne(intTemp,"x0",else_label.label);
+					Instruction bne2 = new Bne(intTemp,Register.X0,else_label.label);
 					il.add(bne2);
 					break;
 				case GE:
 					Instruction flt = new Flt(cond.getLeft(),cond.getRight(),intTemp);
 					il.add(flt);
-					Instruction bne3 = new Bne(intTemp,"x0",else_label.label);
+					Instruction bne3 = new Bne(intTemp,Register.X0,else_label.label);
 					il.add(bne3);
 					break;
 				default:
@@ -719,44 +842,44 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		// step 3 create branch statement	
 		InstructionList il = new InstructionList();
 		Instruction out_label = new Label(oLabel);
-		String intTemp = generateTemp(Scope.InnerType.INT);
+		int intTemp = generateTemp(Scope.InnerType.INT);
 		switch (cond.getType().type){
 			case FLOAT:
 			switch (cond.getOp()){
 				case EQ:
 					Instruction feq = new Feq(cond.getLeft(),cond.getRight(),intTemp);
 					il.add(feq);
-					Instruction bne = new Bne(intTemp,"x0",out_label.label);
-					il.add(bne);	
+					Instruction beq = new Beq(intTemp,Register.X0,out_label.label);
+					il.add(beq);	
 					break;
 				case NE:
-					Instruction fneq = new Feq(cond.getLeft(),cond.getLeft(),intTemp); 
+					Instruction fneq = new Feq(cond.getLeft(),cond.getRight(),intTemp);
 					il.add(fneq);
-					Instruction beq = new Beq(intTemp,"x0",out_label.label);
-					il.add(beq);
+					Instruction bne = new Bne(intTemp,Register.X0,out_label.label);
+					il.add(bne);
 					break;	
 				case LT:
 					Instruction fge = new Fle(cond.getRight(),cond.getLeft(),intTemp);
 					il.add(fge);
-					Instruction bne0 = new Bne(intTemp,"x0",out_label.label);
+					Instruction bne0 = new Bne(intTemp,Register.X0,out_label.label);
 					il.add(bne0);
 					break;
 				case LE:
 					Instruction fgt = new Flt(cond.getRight(),cond.getLeft(),intTemp);
 					il.add(fgt);
-					Instruction bne1 = new Ble(intTemp,"x0",out_label.label);
+					Instruction bne1 = new Bne(intTemp,Register.X0,out_label.label);
 					il.add(bne1);
 					break;
 				case GT:
 					Instruction fle = new Fle(cond.getLeft(),cond.getRight(),intTemp);
 					il.add(fle);
-					Instruction bne2 = new Bne(intTemp,"x0",out_label.label);
+					Instruction bne2 = new Bne(intTemp,Register.X0,out_label.label);
 					il.add(bne2);
 					break;
 				case GE:
 					Instruction flt = new Flt(cond.getLeft(),cond.getRight(),intTemp);
 					il.add(flt);
-					Instruction bne3 = new Bne(intTemp,"x0",out_label.label);
+					Instruction bne3 = new Bne(intTemp,Register.X0,out_label.label);
 					il.add(bne3);
 					break;
 				default:
@@ -826,7 +949,7 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		/* FILL IN FROM STEP 4 */
 		//STEP 6 null check for void functions
 		if(retExpr == null){
-			co.type = new Scope.Type(InnerType.VOID);
+			co.type = Scope.Type.VOID;
 			co.code.add(new J(generateFunctionOutLabel()));	
 			return co;
 		}
@@ -835,14 +958,25 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 			retExpr = rvalify(retExpr);
 		}
 		co.code.addAll(retExpr.code);
-		// Step 2
-		switch(retExpr.getType().type){
+		// Step 2 - in the function's return type
+		int value = convert(retExpr.code.getLast().getDest(), node.getFuncSymbol().getReturnType(), co.code);
+		if (ctx.getAbi() == Abi.REGISTERS) {
+			if (Register.regClass(value) == RegClass.FLOAT) {
+				co.code.add(new FMv(value, Register.arg(RegClass.FLOAT, 0)));
+			} else {
+				co.code.add(new Mv(value, Register.arg(RegClass.INT, 0)));
+			}
+			co.code.add(new J(generateFunctionOutLabel()));
+			co.type = retExpr.getType();
+			return co;
+		}
+		switch(Register.regClass(value)){
 			case FLOAT:
-				co.code.add(new Fsw(retExpr.code.getLast().getDest(), "fp", "8"));
+				co.code.add(new Fsw(value, Register.FP, "8"));
 				break;
 			default:
 				//INT and PTR are the same 
-				co.code.add(new Sw(retExpr.code.getLast().getDest(), "fp", "8")); 
+				co.code.add(new Sw(value, Register.FP, "8")); 
 				break;
 		}
 		//step 3
@@ -859,6 +993,11 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		//reset register counts; each function uses new registers!
 		intRegCount = 0;
 		floatRegCount = 0;
+
+		//labels are numbered per function too, so functions can be generated independently
+		loopLabel = 0;
+		elseLabel = 0;
+		outLabel = 0;
 	}
 
 	/**
@@ -875,7 +1014,7 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 	 * 
 	 * Step 3: allocate new stack frame (use scope infromation from FunctionNode)
 	 * 
-	 * Step 4: save registers on stack (Can inspect intRegCount and floatRegCount to know what to save)
+	 * Step 4: save the registers the body writes that the caller expects back (see clobbered)
 	 * 
 	 * Step 5: add the code from the function body
 	 * 
@@ -894,42 +1033,195 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		/* step 1 */
 		co.code.add(new Label(generateFunctionLabel(node.getFuncName())));
 		/* step 2  - look at lecture 6.6 */
-		co.code.add(new Sw("fp", "sp", "0")); 
-		co.code.add(new Mv("sp", "fp"));
-		co.code.add(new Addi("sp", "-4", "sp")); 
-		/* step 3 */
-
-		co.code.add(new Addi("sp", String.valueOf(-4 * node.getScope().getNumLocals()), "sp")); // 4 * number of local variables, checked the testcases no string/pointers to consider!
-		/* step 4 */
-		for(int intRegNum = 0; intRegNum < intRegCount; intRegNum++){
-			co.code.add(new Sw("t" + String.valueOf(intRegNum + 1), "sp", "0"));
-			co.code.add(new Addi("sp", "-4", "sp"));
-		}	
-		for(int floatRegNum = 0; floatRegNum < floatRegCount; floatRegNum++){	
-			co.code.add(new Fsw("f" + String.valueOf(floatRegNum + 1), "sp", "0"));
-			co.code.add(new Addi("sp", "-4", "sp"));
-		}	
-		/*step 5*/
-		co.code.addAll(body.getCode());
+		co.code.add(new Sw(Register.FP, Register.SP, "0")); 
+		co.code.add(new Mv(Register.SP, Register.FP));
+
+		/* step 5 - allocation may add spill slots, so the frame is sized after it */
+		InstructionList code = body.code;
+		code.add(new Label(generateFunctionOutLabel())); // step 6a - return label
+		if (ctx.isDumpDataflow()) {
+			DataflowDump.print(out, node.getFuncName(), code);
+		}
+		RegisterAllocator allocator = RegisterAllocator.create(ctx.getAllocator(), ctx.getRegisters(), node.getScope());
+		code = allocator.allocate(code);
+		ctx.getStats().allocation(ctx.getAllocator().name().toLowerCase(), allocator.getSpillStores(), allocator.getReloads(), allocator.getMovesRemoved());
+
+		/*
+		 * steps 2c, 3 and 4 - one frame: the old fp's slot, the locals, then the registers
+		 * the body writes that the caller expects back, each saved at a fixed offset from fp
+		 */
+		List<Integer> saved = clobbered(code);
+		int locals = node.getScope().getNumLocals();
+		co.code.add(new Addi(Register.SP, String.valueOf(-4 * (1 + locals + saved.size())), Register.SP));
+		for (int k = 0; k < saved.size(); k++) {
+			int reg = saved.get(k);
+			String offset = String.valueOf(-4 * (1 + locals + k));
+			if (Register.regClass(reg) == RegClass.INT) {
+				co.code.add(new Sw(reg, Register.FP, offset));
+			} else {
+				co.code.add(new Fsw(reg, Register.FP, offset));
+			}
+		}
+		if (ctx.getAbi() == Abi.REGISTERS) {
+			//arguments that came in registers go to their slots, where the body reads them
+			FunctionSymbolTableEntry f = (FunctionSymbolTableEntry) ctx.getSymbolTable().getGlobalScope().getSymbolTableEntry(node.getFuncName());
+			int[] regs = argumentRegisters(f.getArgTypes());
+			for (int i = 0; i < regs.length; i++) {
+				if (regs[i] == Register.NONE) continue;
+				String offset = String.valueOf(LocalScope.argumentOffset(i, regs.length));
+				if (Register.regClass(regs[i]) == RegClass.INT) {
+					co.code.add(new Sw(regs[i], Register.FP, offset));
+				} else {
+					co.code.add(new Fsw(regs[i], Register.FP, offset));
+				}
+			}
+		}
+		co.code.addAll(code);
 		/*step 6*/
-		// step 6a - return label
-		co.code.add(new Label(generateFunctionOutLabel())); 
-		//step 6b - pop registers  - refactor this code later!
-		for(int floatRegNum = floatRegCount - 1; floatRegNum >= 0; floatRegNum--){
-			co.code.add(new Addi("sp", "4", "sp"));
-			co.code.add(new Flw("f" + String.valueOf(floatRegNum + 1), "sp", "0"));
+		//step 6b - restore registers
+		for (int k = saved.size() - 1; k >= 0; k--) {
+			int reg = saved.get(k);
+			String offset = String.valueOf(-4 * (1 + locals + k));
+			if (Register.regClass(reg) == RegClass.INT) {
+				co.code.add(new Lw(reg, Register.FP, offset));
+			} else {
+				co.code.add(new Flw(reg, Register.FP, offset));
+			}
 		}
-		for(int intRegNum = intRegCount - 1; intRegNum >= 0; intRegNum--){
-			co.code.add(new Addi("sp", "4", "sp"));
-			co.code.add(new Lw("t" + String.valueOf(intRegNum + 1), "sp", "0"));
-		}	
 		// step 6c - deallocate stack frame
-		co.code.add(new Mv("fp", "sp"));	
+		co.code.add(new Mv(Register.FP, Register.SP));	
 		// step 6d - reset fp to old location
-		co.code.add(new Lw("fp", "fp", "0"));
+		co.code.add(new Lw(Register.FP, Register.FP, "0"));
 		// step 6e - return from function 
 		co.code.add(new Ret());
 		co.temp = body.temp;
+
+		savedRegisters = saved.size();
+		ctx.getStats().function(node.getFuncName(), intRegCount, floatRegCount, locals, savedRegisters);
+		return co;
+	}
+
+	/*
+	 * The registers allocated code writes that the calling convention says a function
+	 * must give back (see Register#isCalleeSaved), ints first and each class in order.
+	 * That is at most the registers the allocator handed out, however long the body is.
+	 */
+	private static List<Integer> clobbered(Collection<Instruction> code) {
+		BitSet[] written = {new BitSet(), new BitSet()};
+		for (Instruction i : code) {
+			if (i.getOC() == null) continue;
+			int d = i.getOperand(Instruction.Operand.DEST);
+			if (d != Register.NONE && Register.isCalleeSaved(d)) {
+				written[Register.regClass(d).ordinal()].set(d);
+			}
+		}
+		List<Integer> regs = new ArrayList<Integer>();
+		for (BitSet w : written) {
+			for (int r = w.nextSetBit(0); r >= 0; r = w.nextSetBit(r + 1)) {
+				regs.add(r);
+			}
+		}
+		return regs;
+	}
+
+	/*
+	 * A call under the register ABI. Every argument is worked out before any goes in its
+	 * register, since working one out can make calls of its own. Those that do not fit
+	 * in registers go in the slots the stack ABI would have pushed them to, and the
+	 * frame is made with one ADDI: the arguments, the result slot (unused) and ra.
+	 */
+	private CodeObject registerCall(CallNode node, List<CodeObject> args) {
+		CodeObject co = new CodeObject();
+		int n = args.size();
+		int[] values = new int[n];
+		for (int arg = 0; arg < n; arg++) {
+			CodeObject tmp = args.get(arg);
+			if (tmp.lval) {
+				tmp = rvalify(tmp);
+			}
+			co.code.addAll(tmp.getCode());
+			values[arg] = tmp.temp;
+		}
+		List<Type> params = node.getSte().getArgTypes();
+		int[] regs = argumentRegisters(params);
+		for (int arg = 0; arg < n; arg++) {
+			values[arg] = convert(values[arg], params.get(arg), co.code);
+			boolean isFloat = Register.regClass(values[arg]) == RegClass.FLOAT;
+			if (regs[arg] != Register.NONE) {
+				co.code.add(isFloat ? new FMv(values[arg], regs[arg]) : new Mv(values[arg], regs[arg]));
+			} else {
+				String offset = String.valueOf(-4 * arg);
+				co.code.add(isFloat ? new Fsw(values[arg], Register.SP, offset) : new Sw(values[arg], Register.SP, offset));
+			}
+		}
+		co.code.add(new Sw(Register.RA, Register.SP, String.valueOf(-4 * (n + 1))));
+		co.code.add(new Addi(Register.SP, String.valueOf(-4 * (n + 2)), Register.SP));
+		co.code.add(new Jr(generateFunctionLabel(node.getFuncName())));
+		co.code.add(new Addi(Register.SP, String.valueOf(4 * (n + 2)), Register.SP));
+		co.code.add(new Lw(Register.RA, Register.SP, String.valueOf(-4 * (n + 1))));
+		switch (node.getType().type) {
+			case VOID:
+				break;
+			case FLOAT:
+				co.temp = generateTemp(InnerType.FLOAT);
+				co.code.add(new FMv(Register.arg(RegClass.FLOAT, 0), co.temp));
+				break;
+			default:
+				co.temp = generateTemp(InnerType.INT);
+				co.code.add(new Mv(Register.arg(RegClass.INT, 0), co.temp));
+				break;
+		}
+		co.type = node.getType();
+		return co;
+	}
+
+	/*
+	 * Convert a value for an argument or result of type <code>to</code>, as assignments
+	 * do: IMOVF.S from int to float and FMOVI.S from float to int, into a new temp.
+	 *
+	 * @return the register holding the converted value; <code>value</code> if it already has the right class
+	 */
+	private int convert(int value, Type to, InstructionList code) {
+		RegClass c = (to.type == InnerType.FLOAT) ? RegClass.FLOAT : RegClass.INT;
+		if (to.type == InnerType.VOID || Register.regClass(value) == c) {
+			return value;
+		}
+		if (c == RegClass.FLOAT) {
+			int f = generateTemp(InnerType.FLOAT);
+			code.add(new Imovf(value, f));
+			return f;
+		}
+		int i = generateTemp(InnerType.INT);
+		code.add(new FMovi(value, i));
+		return i;
+	}
+
+	/*
+	 * Register each argument of a function with these parameter types comes in under
+	 * the register ABI, or NONE for those that stay on the stack
+	 */
+	private static int[] argumentRegisters(List<Type> params) {
+		int[] regs = new int[params.size()];
+		int[] used = new int[2]; //per class
+		for (int i = 0; i < regs.length; i++) {
+			RegClass c = (params.get(i).type == InnerType.FLOAT) ? RegClass.FLOAT : RegClass.INT;
+			regs[i] = (used[c.ordinal()] < Register.ARG_REGISTERS) ? Register.arg(c, used[c.ordinal()]++) : Register.NONE;
+		}
+		return regs;
+	}
+
+	/**
+	 * Generate the program entry code (steps 1-3 below). Used on its own when
+	 * functions are generated one at a time instead of as one list.
+	 */
+	public CodeObject generateEntry() {
+		CodeObject co = new CodeObject();
+
+		co.code.add(new Mv(Register.SP, Register.FP));
+		co.code.add(new Jr(generateFunctionLabel("main")));
+		co.code.add(new Halt());
+		co.code.add(new Blank());
+
 		return co;
 	}
 
@@ -946,12 +1238,7 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 	 */
 	@Override
 	protected CodeObject postprocess(FunctionListNode node, List<CodeObject> funcs) {
-		CodeObject co = new CodeObject();
-
-		co.code.add(new Mv("sp", "fp"));
-		co.code.add(new Jr(generateFunctionLabel("main")));
-		co.code.add(new Halt());
-		co.code.add(new Blank());
+		CodeObject co = generateEntry();
 
 		//add code for each of the functions
 		for (CodeObject c : funcs) {
@@ -994,6 +1281,9 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 	  */
 	@Override
 	protected CodeObject postprocess(CallNode node, List<CodeObject> args) {
+		if (ctx.getAbi() == Abi.REGISTERS) {
+			return registerCall(node, args);
+		}
 		
 		//STEP 0
 		CodeObject co = new CodeObject();
@@ -1001,49 +1291,52 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		/* FILL IN FROM STEP 4 */
 		//Step 1a
 		CodeObject tmp = new CodeObject();
+		List<Type> params = node.getSte().getArgTypes();
 		for(int arg = 0; arg < args.size(); arg++){
 			tmp = args.get(arg);
 			if(tmp.lval){
 				tmp = rvalify(tmp);
 			}
 			co.code.addAll(tmp.getCode());
-			switch(tmp.getType().type){
+			//pushed as the parameter's type
+			int value = convert(tmp.temp, params.get(arg), co.code);
+			switch(params.get(arg).type){
 				case PTR:
 				case INT:
 					//co.code.add(new Label("testing line 1041"));
-					co.code.add(new Sw(tmp.temp,"sp", "0"));
+					co.code.add(new Sw(value,Register.SP, "0"));
 					break;
 				case FLOAT:
-					co.code.add((new Fsw(tmp.temp, "sp", "0")));
+					co.code.add((new Fsw(value, Register.SP, "0")));
 					break;
 				default:
 					throw new Error("Error in callNode first loop");
 			}
 			//step 1b
-			co.code.add(new Addi("sp", "-4", "sp")); //only need to worry about int and float so -4 works
+			co.code.add(new Addi(Register.SP, "-4", Register.SP)); //only need to worry about int and float so -4 works
 		}
 		//step 2 -- only need to worry about int and float so -4 works
-		co.code.add(new Addi("sp", "-4", "sp"));	
+		co.code.add(new Addi(Register.SP, "-4", Register.SP));	
 		//step 3
-		co.code.add(new Sw("ra","sp", "0"));
-		co.code.add(new Addi("sp", "-4", "sp"));
+		co.code.add(new Sw(Register.RA,Register.SP, "0"));
+		co.code.add(new Addi(Register.SP, "-4", Register.SP));
 		//step 4
 		co.code.add(new Jr(generateFunctionLabel(node.getFuncName())));
 		//step 5
-		co.code.add(new Addi("sp", "4", "sp")); 
-		co.code.add(new Lw("ra", "sp", "0")); 
-		co.code.add(new Addi("sp", "4", "sp")); 
+		co.code.add(new Addi(Register.SP, "4", Register.SP)); 
+		co.code.add(new Lw(Register.RA, Register.SP, "0")); 
+		co.code.add(new Addi(Register.SP, "4", Register.SP)); 
 		//step 6
-		String temp;
+		int temp;
 		if(node.getType().type != InnerType.VOID){
 		temp = generateTemp(node.getType().type); //double check this
 		switch(node.getType().type){
 			case PTR:
 			case INT:
-				co.code.add(new Lw(temp, "sp", "0")); 	
+				co.code.add(new Lw(temp, Register.SP, "0")); 	
 				break;
 			case FLOAT:	
-				co.code.add(new Flw(temp, "sp", "0")); 
+				co.code.add(new Flw(temp, Register.SP, "0")); 
 				break;
 			default:
 				throw new Error("Return value must be of type Int,Float,String, or Void!");	
@@ -1056,10 +1349,10 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 			switch(tmp.getType().type){
 				case PTR:
 				case INT:
-					co.code.add(new Addi("sp", "4", "sp"));
+					co.code.add(new Addi(Register.SP, "4", Register.SP));
 					break;
 				case FLOAT:
-					co.code.add(new Addi("sp", "4", "sp"));
+					co.code.add(new Addi(Register.SP, "4", Register.SP));
 					break;
 				default:
 					// System.out.println("\ncallNode case " + tmp.getType().type);
@@ -1160,12 +1453,12 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		}
 		co.code.addAll(expr.getCode());
 		//step 2
-		String temp = generateTemp(expr.getType().type);
+		int temp = generateTemp(expr.getType().type);
 		Instruction tempInstruction = new Malloc(expr.code.getLast().getDest(),temp);
 		co.code.add(tempInstruction);
 		//step 3
 		co.temp = temp; 
-		co.type = new Scope.Type(InnerType.INFER);
+		co.type = Scope.Type.INFER;
 		return co;
 	}
 	
@@ -1197,13 +1490,12 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 	/** Step 7 postprocess **/
 	@Override
 	protected CodeObject postprocess(CastExprNode node, CodeObject expr) {
-		System.err.println("CastExpr");
 		CodeObject co = new CodeObject();
 		if(expr.lval){
 			expr = rvalify(expr);
 		}
 		co.code.addAll(expr.getCode());
-		String newTemp; 
+		int newTemp = expr.temp; //casting to the same type is a no-op
 		if(node.getType().type == Scope.InnerType.INT && expr.getType().type == Scope.InnerType.FLOAT){
 			newTemp = generateTemp(Scope.InnerType.INT);
 			co.code.add(new FMovi(expr.temp,newTemp));
@@ -1212,33 +1504,36 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 			newTemp = generateTemp(Scope.InnerType.FLOAT);
 			co.code.add(new Imovf(expr.temp,newTemp));
 		}
+		co.lval = false;
+		co.temp = newTemp;
+		co.type = node.getType();
 		return co;
 	}
 	/**
 	 * Generate a fresh temporary
 	 * 
-	 * @return new temporary register name
+	 * @return new virtual register
 	 */
-	protected String generateTemp(Scope.InnerType t) {
+	protected int generateTemp(Scope.InnerType t) {
 		switch(t) {
 			case INT: 
 			case PTR: //works the same for pointers
-				return intTempPrefix + String.valueOf(++intRegCount);
-			case FLOAT: return floatTempPrefix + String.valueOf(++floatRegCount);
+				return Register.virtual(RegClass.INT, ++intRegCount);
+			case FLOAT: return Register.virtual(RegClass.FLOAT, ++floatRegCount);
 			default: throw new Error("Generating temp for bad type");
 		}
 	}
 
 	protected String generateLoopLabel() {
-		return "loop_" + String.valueOf(++loopLabel);
+		return "loop_" + currFunc + "_" + String.valueOf(++loopLabel);
 	}
 
 	protected String generateElseLabel() {
-		return  "else_" + String.valueOf(++elseLabel);
+		return  "else_" + currFunc + "_" + String.valueOf(++elseLabel);
 	}
 
 	protected String generateOutLabel() {
-		return "out_" +  String.valueOf(++outLabel);
+		return "out_" + currFunc + "_" +  String.valueOf(++outLabel);
 	}
 
 	protected String generateFunctionLabel() {
@@ -1281,7 +1576,7 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 		if(lco.getType() == null){
 			throw new Error("lco.getType() is null");
 		}
-		String newTemp;
+		int newTemp;
 		newTemp = generateTemp(lco.getType().type); 
 		switch(lco.getType().type) {
 			case FLOAT:
@@ -1328,7 +1623,7 @@ public class CodeGenerator extends AbstractASTVisitor<CodeObject> {
 			//If local, address is offset
 			//need to load fp + offset
 			//addi tmp' fp offset
-			compAddr = new Addi("fp", address, generateTemp(Scope.InnerType.INT));
+			compAddr = new Addi(Register.FP, address, generateTemp(Scope.InnerType.INT));
 		} else {
 			//If global, address in symbol table is the right location
 			//la tmp' addr //Register type needs to be an int
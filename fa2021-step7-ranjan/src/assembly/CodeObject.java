@@ -3,6 +3,7 @@ package assembly;
 import java.io.StringWriter;
 import java.util.Collection;
 import assembly.instructions.Instruction;
+import assembly.instructions.Register;
 import compiler.Scope;
 import compiler.Scope.SymbolTableEntry;
 
@@ -16,13 +17,13 @@ import compiler.Scope.SymbolTableEntry;
  */
 public class CodeObject {
 	InstructionList code;
-	String temp; //temporary where result of current code is stored
+	int temp = Register.NONE; //temporary where result of current code is stored
 	Scope.Type type; //type of value stored in temp if rval, type of value in address if lval
 	boolean lval; //true if lvalue, false if rvalue
 	SymbolTableEntry ste; //null if there is no variable, non-null if there is a variable
 	ast.CondNode.OpType op; // storing the conditional type to help with branch creation.
-	String leftTemp; // required for creating branch insts
-	String rightTemp; //required for creating branch
+	int leftTemp = Register.NONE; // required for creating branch insts
+	int rightTemp = Register.NONE; //required for creating branch
 	//added for step 3
 	public enum OpType {
 		EQ,
@@ -37,11 +38,11 @@ public class CodeObject {
 		return op;
 	}
 
-	public String getLeft() {
+	public int getLeft() {
         return leftTemp;
     }
 
-    public String getRight() {
+    public int getRight() {
         return rightTemp;
     }
 	
@@ -61,7 +62,7 @@ public class CodeObject {
 	public String toString() {
 		StringWriter sw = new StringWriter();
 		
-		sw.write(";Current temp: " + temp + "\n");
+		sw.write(";Current temp: " + Register.toString(temp) + "\n");
 		sw.write(";IR Code: \n");
 		
 		sw.write(code.toString());
@@ -0,0 +1,568 @@
+package assembly;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import assembly.ControlFlowGraph.BasicBlock;
+import assembly.instructions.Instruction;
+import assembly.instructions.Instruction.OpCode;
+import assembly.instructions.Instruction.Operand;
+import assembly.instructions.Register;
+import assembly.instructions.Register.RegClass;
+import compiler.LocalScope;
+
+/**
+ * Whole-function register allocator: Chaitin-Briggs graph coloring with iterated
+ * coalescing (George and Appel, "Iterated Register Coalescing", TOPLAS 1996).
+ *
+ * Two virtual registers of the same class interfere if one is written where the
+ * other is live, with liveness over the whole function, so a value keeps its
+ * register from one block to the next and across calls (the callee saves every
+ * register it writes). INT and FLOAT registers never interfere and are colored with
+ * their own registers, K of each. A copy (MV or FMV.S) between two registers that
+ * do not interfere is coalesced when the Briggs test says the merged register can
+ * still be colored, and removed from the code.
+ *
+ * The argument registers a0-a7 and fa0-fa7 are in the graph too, precolored, so the
+ * copies that pass arguments and results coalesce: a value computed for an argument
+ * goes straight into its argument register, and a result is used where it comes back.
+ * A call writes all of them and reads its arguments, so nothing live across a call
+ * gets one; a0 and fa0 are live at the end of every block, as they carry the result
+ * to the epilogue. A copy with an argument register is coalesced by the George test:
+ * each neighbour of the other register already interferes with it or has fewer than
+ * K neighbours.
+ *
+ * When the graph cannot be colored, the registers that are cheapest to spill go to
+ * memory: every write is followed by a store to the register's slot and every read
+ * preceded by a load, each into a new short-lived register, and the whole thing
+ * starts over. A register's spill cost is its number of reads and writes, each
+ * weighted by 10 to the depth of the while loops it is in, over its degree.
+ */
+public class ColoringRegisterAllocator extends RegisterAllocator {
+
+	/* Node states: which worklist or set a node is in */
+	private static final byte UNUSED = 0, SIMPLIFY = 1, FREEZE = 2, SPILL = 3, SELECTED = 4,
+			COALESCED = 5, COLORED = 6, SPILLED = 7, PRECOLORED = 8;
+
+	/* Move states */
+	private static final byte WORKLIST = 0, ACTIVE = 1, DONE = 2; //coalesced, constrained or frozen
+
+	private final BitSet noSpill = new BitSet(); //registers made by spilling, by index
+	private final int[] nextNumber = new int[2]; //next unused virtual register number, per class
+
+	/* Per node: by Register.index, then the argument registers from precolored on, a0 fa0 a1 fa1 ... */
+	private int precolored;
+	private byte[] state;
+	private int[] degree;
+	private int[] alias;
+	private int[] color;
+	private double[] cost;
+	private int[][] adj; //neighbours, including ones since removed from the graph
+	private int[] adjSize;
+	private int[][] moveList; //moves the node is in
+	private int[] moveListSize;
+	private Set<Long> adjSet;
+
+	/* Per move */
+	private int[] moveSrc;
+	private int[] moveDest;
+	private byte[] moveState;
+	private int moveCount;
+
+	private ArrayDeque<Integer> simplifyWorklist;
+	private ArrayDeque<Integer> freezeWorklist;
+	private ArrayDeque<Integer> worklistMoves;
+	private List<Integer> spillWorklist;
+	private int[] selectStack;
+	private int selectSize;
+
+	public ColoringRegisterAllocator(int registers, LocalScope scope) {
+		super(registers, scope);
+	}
+
+	@Override
+	public InstructionList allocate(Collection<Instruction> code) {
+		for (Instruction i : code) {
+			if (i.getOC() == null) continue;
+			for (Operand o : Operand.values()) {
+				int r = i.getOperand(o);
+				if (Register.isVirtual(r)) {
+					int c = Register.regClass(r).ordinal();
+					nextNumber[c] = Math.max(nextNumber[c], Register.number(r) + 1);
+				}
+			}
+		}
+
+		while (true) {
+			ControlFlowGraph cfg = new ControlFlowGraph(code);
+			build(cfg);
+			makeWorklist();
+			while (true) {
+				int n;
+				if ((n = poll(simplifyWorklist, SIMPLIFY)) >= 0) {
+					simplify(n);
+				} else if ((n = poll(worklistMoves)) >= 0) {
+					coalesce(n);
+				} else if ((n = poll(freezeWorklist, FREEZE)) >= 0) {
+					freeze(n);
+				} else if (!spillWorklist.isEmpty()) {
+					selectSpill();
+				} else {
+					break;
+				}
+			}
+			if (assignColors()) {
+				return rewrite(cfg.getCode());
+			}
+			code = spill(cfg.getCode());
+		}
+	}
+
+	/* Build the interference graph and the list of moves from liveness */
+	private void build(ControlFlowGraph cfg) {
+		Instruction[] code = cfg.getCode();
+		precolored = (Liveness.registerCount(code) + 1) & ~1; //even, so a node's low bit is still its class
+		int n = precolored + 2 * Register.ARG_REGISTERS;
+		state = new byte[n];
+		degree = new int[n];
+		alias = new int[n];
+		color = new int[n];
+		cost = new double[n];
+		adj = new int[n][];
+		adjSize = new int[n];
+		moveList = new int[n][];
+		moveListSize = new int[n];
+		adjSet = new HashSet<Long>();
+		moveSrc = new int[16];
+		moveDest = new int[16];
+		moveCount = 0;
+		Arrays.fill(alias, -1);
+
+		Liveness live = new Liveness(cfg);
+		int[] depth = cfg.getLoopDepths();
+		BitSet now = new BitSet();
+		for (BasicBlock b : cfg.getBlocks()) {
+			if (b.start == b.end) continue;
+			double weight = Math.pow(10, Math.min(depth[b.id], 8));
+			now.clear();
+			now.or(live.out(b));
+			now.set(precolored, precolored + 2); //a0 and fa0
+			for (int i = b.end - 1; i >= b.start; i--) {
+				Instruction ins = code[i];
+				OpCode oc = ins.getOC();
+				if (oc == null) continue;
+				int dn = node(ins.getOperand(Operand.DEST));
+				int s1 = node(ins.getOperand(Operand.SRC1));
+				int s2 = node(ins.getOperand(Operand.SRC2));
+				if (dn >= 0) {
+					if (dn < precolored) {
+						state[dn] = SIMPLIFY; //in the graph; sorted into worklists later
+						cost[dn] += weight;
+					}
+					if ((oc == OpCode.MV || oc == OpCode.FMVS) && s1 >= 0) {
+						//the copy's source and destination may share a register, so they do not interfere
+						now.clear(s1);
+						addMove(s1, dn);
+					}
+					interfere(dn, now);
+					now.clear(dn);
+				}
+				if (oc.isCall()) {
+					for (int p = precolored; p < n; p++) {
+						interfere(p, now);
+					}
+					now.set(precolored, n);
+				}
+				for (int s : new int[] {s1, s2}) {
+					if (s >= 0) {
+						if (s < precolored) {
+							state[s] = SIMPLIFY;
+							cost[s] += weight;
+						}
+						now.set(s);
+					}
+				}
+			}
+		}
+		moveState = new byte[moveCount];
+	}
+
+	/*
+	 * Graph node of a register operand: the index of a virtual register, the node of an
+	 * argument register, or -1
+	 */
+	private int node(int r) {
+		if (r == Register.NONE) return -1;
+		if (Register.isVirtual(r)) return Register.index(r);
+		RegClass c = Register.regClass(r);
+		int k = Register.number(r) - Register.number(Register.arg(c, 0));
+		return (k >= 0 && k < Register.ARG_REGISTERS) ? precolored + 2 * k + c.ordinal() : -1;
+	}
+
+	/* Node d is written where the nodes in live are live */
+	private void interfere(int d, BitSet live) {
+		for (int l = live.nextSetBit(0); l >= 0; l = live.nextSetBit(l + 1)) {
+			if ((l & 1) == (d & 1)) addEdge(l, d);
+		}
+	}
+
+	/* Precolored nodes keep no neighbours; their degree never changes */
+	private void addEdge(int u, int v) {
+		if (u == v || (u >= precolored && v >= precolored) || !adjSet.add(edge(u, v))) return;
+		adjSet.add(edge(v, u));
+		if (u < precolored) {
+			adj[u] = append(adj[u], adjSize[u]++, v);
+			degree[u]++;
+		}
+		if (v < precolored) {
+			adj[v] = append(adj[v], adjSize[v]++, u);
+			degree[v]++;
+		}
+	}
+
+	private static long edge(int u, int v) {
+		return ((long) u << 32) | v;
+	}
+
+	private void addMove(int src, int dest) {
+		if (moveCount == moveSrc.length) {
+			moveSrc = Arrays.copyOf(moveSrc, 2 * moveCount);
+			moveDest = Arrays.copyOf(moveDest, 2 * moveCount);
+		}
+		moveSrc[moveCount] = src;
+		moveDest[moveCount] = dest;
+		moveList[src] = append(moveList[src], moveListSize[src]++, moveCount);
+		if (dest != src) moveList[dest] = append(moveList[dest], moveListSize[dest]++, moveCount);
+		moveCount++;
+	}
+
+	private static int[] append(int[] a, int size, int x) {
+		if (a == null) {
+			a = new int[4];
+		} else if (size == a.length) {
+			a = Arrays.copyOf(a, 2 * size);
+		}
+		a[size] = x;
+		return a;
+	}
+
+	private void makeWorklist() {
+		simplifyWorklist = new ArrayDeque<Integer>();
+		freezeWorklist = new ArrayDeque<Integer>();
+		worklistMoves = new ArrayDeque<Integer>();
+		spillWorklist = new ArrayList<Integer>();
+		selectStack = new int[state.length];
+		selectSize = 0;
+		for (int m = 0; m < moveCount; m++) {
+			worklistMoves.add(m);
+		}
+		for (int n = precolored; n < state.length; n++) {
+			state[n] = PRECOLORED;
+			degree[n] = Integer.MAX_VALUE / 2;
+		}
+		for (int n = 0; n < precolored; n++) {
+			if (state[n] == UNUSED) continue;
+			if (noSpill.get(n)) cost[n] = Double.POSITIVE_INFINITY;
+			if (degree[n] >= registers) {
+				state[n] = SPILL;
+				spillWorklist.add(n);
+			} else if (moveRelated(n)) {
+				state[n] = FREEZE;
+				freezeWorklist.add(n);
+			} else {
+				state[n] = SIMPLIFY;
+				simplifyWorklist.add(n);
+			}
+		}
+	}
+
+	/* Take a node in state s off q, skipping ones that have moved on since they were added */
+	private int poll(ArrayDeque<Integer> q, byte s) {
+		while (!q.isEmpty()) {
+			int n = q.poll();
+			if (state[n] == s) return n;
+		}
+		return -1;
+	}
+
+	private int poll(ArrayDeque<Integer> moves) {
+		while (!moves.isEmpty()) {
+			int m = moves.poll();
+			if (moveState[m] == WORKLIST) return m;
+		}
+		return -1;
+	}
+
+	/* Nodes still in the graph */
+	private boolean present(int n) {
+		return state[n] != SELECTED && state[n] != COALESCED;
+	}
+
+	private boolean moveRelated(int n) {
+		for (int i = 0; i < moveListSize[n]; i++) {
+			if (moveState[moveList[n][i]] != DONE) return true;
+		}
+		return false;
+	}
+
+	private void simplify(int n) {
+		state[n] = SELECTED;
+		selectStack[selectSize++] = n;
+		for (int i = 0; i < adjSize[n]; i++) {
+			int m = adj[n][i];
+			if (present(m)) decrementDegree(m);
+		}
+	}
+
+	private void decrementDegree(int m) {
+		int d = degree[m]--;
+		if (d == registers) {
+			enableMoves(m);
+			for (int i = 0; i < adjSize[m]; i++) {
+				if (present(adj[m][i])) enableMoves(adj[m][i]);
+			}
+			if (state[m] == SPILL) {
+				spillWorklist.remove(Integer.valueOf(m));
+				toLowDegree(m);
+			}
+		}
+	}
+
+	/* Move a node that now has fewer than K neighbours to the freeze or simplify worklist */
+	private void toLowDegree(int n) {
+		if (moveRelated(n)) {
+			state[n] = FREEZE;
+			freezeWorklist.add(n);
+		} else {
+			state[n] = SIMPLIFY;
+			simplifyWorklist.add(n);
+		}
+	}
+
+	private void enableMoves(int n) {
+		for (int i = 0; i < moveListSize[n]; i++) {
+			int m = moveList[n][i];
+			if (moveState[m] == ACTIVE) {
+				moveState[m] = WORKLIST;
+				worklistMoves.add(m);
+			}
+		}
+	}
+
+	private int getAlias(int n) {
+		while (state[n] == COALESCED) n = alias[n];
+		return n;
+	}
+
+	private void coalesce(int m) {
+		int u = getAlias(moveSrc[m]);
+		int v = getAlias(moveDest[m]);
+		if (v >= precolored) {
+			//only u can be precolored
+			v = u;
+			u = getAlias(moveDest[m]);
+		}
+		if (u == v) {
+			moveState[m] = DONE;
+			addWorkList(u);
+		} else if (v >= precolored || adjSet.contains(edge(u, v)) || noSpill.get(u) || noSpill.get(v)) {
+			//registers made by spilling are not merged, so a spilled value cannot become unspillable
+			moveState[m] = DONE;
+			addWorkList(u);
+			addWorkList(v);
+		} else if ((u >= precolored) ? george(u, v) : conservative(u, v)) {
+			moveState[m] = DONE;
+			combine(u, v);
+			addWorkList(u);
+		} else {
+			moveState[m] = ACTIVE;
+		}
+	}
+
+	private void addWorkList(int u) {
+		if (state[u] == FREEZE && !moveRelated(u) && degree[u] < registers) {
+			state[u] = SIMPLIFY;
+			simplifyWorklist.add(u);
+		}
+	}
+
+	/* Briggs: merging u and v is safe if fewer than K of their neighbours have K or more neighbours */
+	private boolean conservative(int u, int v) {
+		int k = 0;
+		for (int pass = 0; pass < 2; pass++) {
+			int n = (pass == 0) ? u : v;
+			for (int i = 0; i < adjSize[n]; i++) {
+				int t = adj[n][i];
+				//a neighbour of both is counted once
+				if (present(t) && degree[t] >= registers && (pass == 0 || !adjSet.contains(edge(u, t)))) k++;
+			}
+		}
+		return k < registers;
+	}
+
+	/* George: merging v into precolored u is safe if each neighbour of v interferes with u or has fewer than K neighbours */
+	private boolean george(int u, int v) {
+		for (int i = 0; i < adjSize[v]; i++) {
+			int t = adj[v][i];
+			if (present(t) && degree[t] >= registers && t < precolored && !adjSet.contains(edge(t, u))) return false;
+		}
+		return true;
+	}
+
+	private void combine(int u, int v) {
+		if (state[v] == SPILL) spillWorklist.remove(Integer.valueOf(v));
+		state[v] = COALESCED;
+		alias[v] = u;
+		cost[u] += cost[v];
+		for (int i = 0; i < moveListSize[v]; i++) {
+			moveList[u] = append(moveList[u], moveListSize[u]++, moveList[v][i]);
+		}
+		enableMoves(v);
+		for (int i = 0; i < adjSize[v]; i++) {
+			int t = adj[v][i];
+			if (!present(t)) continue;
+			addEdge(t, u);
+			decrementDegree(t);
+		}
+		if (degree[u] >= registers && state[u] == FREEZE) {
+			state[u] = SPILL;
+			spillWorklist.add(u);
+		}
+	}
+
+	private void freeze(int u) {
+		state[u] = SIMPLIFY;
+		simplifyWorklist.add(u);
+		freezeMoves(u);
+	}
+
+	private void freezeMoves(int u) {
+		for (int i = 0; i < moveListSize[u]; i++) {
+			int m = moveList[u][i];
+			if (moveState[m] == DONE) continue;
+			int x = getAlias(moveSrc[m]);
+			int y = getAlias(moveDest[m]);
+			int v = (y == getAlias(u)) ? x : y;
+			moveState[m] = DONE;
+			if (state[v] == FREEZE && !moveRelated(v) && degree[v] < registers) {
+				state[v] = SIMPLIFY;
+				simplifyWorklist.add(v);
+			}
+		}
+	}
+
+	/* Optimistically push the node that is cheapest to spill, per neighbour */
+	private void selectSpill() {
+		int best = 0;
+		for (int i = 1; i < spillWorklist.size(); i++) {
+			int n = spillWorklist.get(i);
+			int b = spillWorklist.get(best);
+			if (cost[n] / degree[n] < cost[b] / degree[b]) best = i;
+		}
+		int n = spillWorklist.remove(best);
+		state[n] = SIMPLIFY;
+		simplifyWorklist.add(n);
+		freezeMoves(n);
+	}
+
+	/* @return whether every node got a color */
+	private boolean assignColors() {
+		boolean ok = true;
+		boolean[] taken = new boolean[registers];
+		while (selectSize > 0) {
+			int n = selectStack[--selectSize];
+			Arrays.fill(taken, false);
+			for (int i = 0; i < adjSize[n]; i++) {
+				int w = getAlias(adj[n][i]);
+				if (state[w] == COLORED) taken[color[w]] = true;
+			}
+			int c = 0;
+			while (c < registers && taken[c]) c++;
+			if (c == registers) {
+				state[n] = SPILLED;
+				ok = false;
+			} else {
+				state[n] = COLORED;
+				color[n] = c;
+			}
+		}
+		return ok;
+	}
+
+	/* Send the spilled registers to memory, each read and write through a register of its own */
+	private InstructionList spill(Instruction[] code) {
+		InstructionList out = new InstructionList();
+		for (Instruction ins : code) {
+			if (ins.getOC() == null) {
+				out.add(ins);
+				continue;
+			}
+			int s1 = ins.getOperand(Operand.SRC1);
+			int s2 = ins.getOperand(Operand.SRC2);
+			if (spilled(s1)) {
+				int t = fresh(s1);
+				out.add(load(t, s1));
+				ins.setOperand(Operand.SRC1, t);
+				if (s2 == s1) ins.setOperand(Operand.SRC2, t);
+			}
+			if (spilled(s2) && s2 != s1) {
+				int t = fresh(s2);
+				out.add(load(t, s2));
+				ins.setOperand(Operand.SRC2, t);
+			}
+			out.add(ins);
+			int d = ins.getOperand(Operand.DEST);
+			if (spilled(d)) {
+				int t = fresh(d);
+				ins.setOperand(Operand.DEST, t);
+				out.add(store(t, d));
+			}
+		}
+		return out;
+	}
+
+	private boolean spilled(int r) {
+		return Register.isVirtual(r) && state[Register.index(r)] == SPILLED;
+	}
+
+	private int fresh(int like) {
+		RegClass c = Register.regClass(like);
+		int r = Register.virtual(c, nextNumber[c.ordinal()]++);
+		noSpill.set(Register.index(r));
+		return r;
+	}
+
+	/* Physical register of a colored or precolored node */
+	private int register(RegClass c, int n) {
+		return (n >= precolored) ? Register.arg(c, (n - precolored) >> 1) : physical(c, color[n]);
+	}
+
+	/* Replace every virtual register by its color, and drop copies that became no-ops */
+	private InstructionList rewrite(Instruction[] code) {
+		InstructionList out = new InstructionList();
+		for (Instruction ins : code) {
+			OpCode oc = ins.getOC();
+			if (oc != null) {
+				for (Operand o : Operand.values()) {
+					int r = ins.getOperand(o);
+					if (Register.isVirtual(r)) {
+						ins.setOperand(o, register(Register.regClass(r), getAlias(Register.index(r))));
+					}
+				}
+				if ((oc == OpCode.MV || oc == OpCode.FMVS)
+						&& ins.getOperand(Operand.SRC1) == ins.getOperand(Operand.DEST)) {
+					movesRemoved++;
+					continue;
+				}
+			}
+			out.add(ins);
+		}
+		return out;
+	}
+}
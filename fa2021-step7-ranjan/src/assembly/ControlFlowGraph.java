@@ -0,0 +1,272 @@
+package assembly;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import assembly.instructions.Instruction;
+import assembly.instructions.Instruction.OpCode;
+import assembly.instructions.Label;
+
+/**
+ * Control flow graph of one function's code, for the passes that run after code
+ * generation (liveness, register allocation, ...).
+ *
+ * The code is copied into an array once, and each basic block is a range of it. A
+ * block starts at the first instruction, at every label, and after every branch, J,
+ * JR and RET (and HALT); it ends before the next one starts. Edges go from a block to
+ * the label its last instruction branches or jumps to, and to the next block unless
+ * that instruction never falls through. Calls (JR) fall through, and RET and HALT
+ * go to the exit block.
+ *
+ * Besides the blocks of code there is an empty entry block, whose only successor is
+ * the first block, and an empty exit block. Reachable blocks are numbered in reverse
+ * postorder. Everything is built in time linear in the size of the code, using a map
+ * from label to block to resolve branch targets.
+ */
+public class ControlFlowGraph {
+
+	private final Instruction[] code;
+	private final List<BasicBlock> blocks; //in code order: entry, the blocks of code, exit
+	private final int[] blockOf; //instruction index -> block id
+	private final Map<String, BasicBlock> labels = new HashMap<String, BasicBlock>();
+	private BasicBlock[] order; //reachable blocks in reverse postorder
+
+	/**
+	 * A run of instructions with one way in (its first instruction) and one way out
+	 * (its last)
+	 */
+	public static class BasicBlock {
+		final int id;
+		final int start; //index of first instruction
+		final int end; //index after last instruction
+		final List<BasicBlock> succs = new ArrayList<BasicBlock>(2);
+		final List<BasicBlock> preds = new ArrayList<BasicBlock>(2);
+		int rpo = -1; //reverse postorder number, or -1 if unreachable
+
+		BasicBlock(int id, int start, int end) {
+			this.id = id;
+			this.start = start;
+			this.end = end;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public int getStart() {
+			return start;
+		}
+
+		public int getEnd() {
+			return end;
+		}
+
+		public List<BasicBlock> getSuccessors() {
+			return succs;
+		}
+
+		public List<BasicBlock> getPredecessors() {
+			return preds;
+		}
+
+		/**
+		 * @return position in reverse postorder, or -1 if the block cannot be reached
+		 */
+		public int getRpo() {
+			return rpo;
+		}
+
+		public String toString() {
+			return "B" + id + "[" + start + "," + end + ")";
+		}
+	}
+
+	public ControlFlowGraph(Collection<Instruction> instructions) {
+		code = instructions.toArray(new Instruction[instructions.size()]);
+		int n = code.length;
+
+		//leaders: the first instruction, labels, and whatever follows the end of a block
+		boolean[] leader = new boolean[n + 1];
+		leader[0] = true;
+		for (int i = 0; i < n; i++) {
+			if (code[i] instanceof Label) {
+				leader[i] = true;
+			}
+			OpCode oc = code[i].getOC();
+			if (oc != null && oc.endsBlock()) {
+				leader[i + 1] = true;
+			}
+		}
+
+		blocks = new ArrayList<BasicBlock>();
+		blockOf = new int[n];
+		blocks.add(new BasicBlock(0, 0, 0));
+		for (int start = 0; start < n; ) {
+			int end = start + 1;
+			while (end < n && !leader[end]) end++;
+			BasicBlock b = new BasicBlock(blocks.size(), start, end);
+			blocks.add(b);
+			for (int i = start; i < end; i++) {
+				blockOf[i] = b.id;
+				if (code[i] instanceof Label) labels.put(code[i].label, b);
+			}
+			start = end;
+		}
+		BasicBlock exit = new BasicBlock(blocks.size(), n, n);
+		blocks.add(exit);
+
+		addEdge(getEntry(), blocks.get(1));
+		for (int id = 1; id < exit.id; id++) {
+			BasicBlock b = blocks.get(id);
+			Instruction last = code[b.end - 1];
+			OpCode oc = last.getOC();
+			if (oc != null && (oc.isBranch() || oc.isJump())) {
+				BasicBlock target = labels.get(last.label);
+				if (target == null) {
+					throw new Error("Branch to " + last.label + ", which is not in this code");
+				}
+				addEdge(b, target);
+			}
+			if (oc == null || !oc.isTerminator()) {
+				addEdge(b, blocks.get(id + 1));
+			} else if (!oc.isJump()) {
+				addEdge(b, exit);
+			}
+		}
+
+		number();
+	}
+
+	private static void addEdge(BasicBlock from, BasicBlock to) {
+		from.succs.add(to);
+		to.preds.add(from);
+	}
+
+	/* Number the reachable blocks in reverse postorder, with an explicit stack since functions can be long */
+	private void number() {
+		int[] next = new int[blocks.size()]; //next successor to visit, per block
+		boolean[] seen = new boolean[blocks.size()];
+		BasicBlock[] stack = new BasicBlock[blocks.size()];
+		BasicBlock[] post = new BasicBlock[blocks.size()];
+		int sp = 0;
+		int count = 0;
+
+		stack[sp++] = getEntry();
+		seen[0] = true;
+		while (sp > 0) {
+			BasicBlock b = stack[sp - 1];
+			if (next[b.id] < b.succs.size()) {
+				BasicBlock s = b.succs.get(next[b.id]++);
+				if (!seen[s.id]) {
+					seen[s.id] = true;
+					stack[sp++] = s;
+				}
+			} else {
+				sp--;
+				post[count++] = b;
+			}
+		}
+
+		order = new BasicBlock[count];
+		for (int i = 0; i < count; i++) {
+			order[i] = post[count - 1 - i];
+			order[i].rpo = i;
+		}
+	}
+
+	/**
+	 * How many loops each block is in. The code's only backward jumps are the ones at
+	 * the bottom of while loops, so a loop is found from its back edge: an edge to a
+	 * block that does not come later in reverse postorder (the loop's test). The body
+	 * is every block that reaches the back edge without passing through the test.
+	 *
+	 * @return loop depth of each block, by id; 0 outside loops and for unreachable blocks
+	 */
+	public int[] getLoopDepths() {
+		int[] depth = new int[blocks.size()];
+		int[] mark = new int[blocks.size()]; //number of the last loop a block was found in, from 1
+		BasicBlock[] stack = new BasicBlock[blocks.size()];
+		int loops = 0;
+		for (BasicBlock tail : order) {
+			for (BasicBlock head : tail.succs) {
+				if (head.rpo < 0 || head.rpo > tail.rpo) continue;
+				loops++;
+				mark[head.id] = loops;
+				depth[head.id]++;
+				int sp = 0;
+				if (mark[tail.id] != loops) {
+					mark[tail.id] = loops;
+					depth[tail.id]++;
+					stack[sp++] = tail;
+				}
+				while (sp > 0) {
+					for (BasicBlock p : stack[--sp].preds) {
+						if (p.rpo >= 0 && mark[p.id] != loops) {
+							mark[p.id] = loops;
+							depth[p.id]++;
+							stack[sp++] = p;
+						}
+					}
+				}
+			}
+		}
+		return depth;
+	}
+
+	/**
+	 * @return the instructions, in order; blocks are ranges of this array
+	 */
+	public Instruction[] getCode() {
+		return code;
+	}
+
+	/**
+	 * @return every block, including unreachable ones, indexed by id
+	 */
+	public List<BasicBlock> getBlocks() {
+		return blocks;
+	}
+
+	/**
+	 * @return the reachable blocks in reverse postorder
+	 */
+	public BasicBlock[] getOrder() {
+		return order;
+	}
+
+	public BasicBlock getEntry() {
+		return blocks.get(0);
+	}
+
+	public BasicBlock getExit() {
+		return blocks.get(blocks.size() - 1);
+	}
+
+	/**
+	 * @return the block holding the instruction at <code>index</code>
+	 */
+	public BasicBlock getBlock(int index) {
+		return blocks.get(blockOf[index]);
+	}
+
+	/**
+	 * @return the block starting with <code>label</code>, or null if there is none
+	 */
+	public BasicBlock getBlock(String label) {
+		return labels.get(label);
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (BasicBlock b : blocks) {
+			sb.append(b).append(" -> ").append(b.succs).append('\n');
+			for (int i = b.start; i < b.end; i++) {
+				sb.append('\t').append(code[i]).append('\n');
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,175 @@
+package assembly;
+
+import java.util.BitSet;
+import java.util.List;
+
+import assembly.ControlFlowGraph.BasicBlock;
+
+/**
+ * Bit-vector dataflow problem over a {@link ControlFlowGraph}, solved with a
+ * worklist.
+ *
+ * A problem says which way facts flow, how they combine where paths meet (union for
+ * "on some path", intersection for "on every path"), and what each block generates
+ * and kills. Facts are bits (a virtual register's {@link assembly.instructions.Register#index},
+ * an instruction index, an expression number, ...). Each block's gen and kill sets are
+ * computed once, and then
+ *
+ * 		forward:	in = meet(out of predecessors)		out = gen | (in - kill)
+ * 		backward:	out = meet(in of successors)		in = gen | (out - kill)
+ *
+ * are iterated to a fixed point, visiting blocks in reverse postorder (forward) or
+ * postorder (backward) so most problems settle in a couple of passes. Unreachable
+ * blocks are left empty.
+ *
+ * Subclasses fill in {@link #summarize} and call {@link #solve} at the end of their
+ * constructor.
+ */
+public abstract class Dataflow {
+
+	public enum Direction {
+		FORWARD,
+		BACKWARD
+	}
+
+	public enum Meet {
+		UNION,
+		INTERSECTION
+	}
+
+	protected final ControlFlowGraph cfg;
+	protected final int size; //number of bits in a fact set
+	private final Direction direction;
+	private final Meet meet;
+
+	private final BitSet[] gen;
+	private final BitSet[] kill;
+	private final BitSet[] in;
+	private final BitSet[] out;
+	private int visits;
+
+	protected Dataflow(ControlFlowGraph cfg, Direction direction, Meet meet, int size) {
+		this.cfg = cfg;
+		this.direction = direction;
+		this.meet = meet;
+		this.size = size;
+
+		int n = cfg.getBlocks().size();
+		gen = new BitSet[n];
+		kill = new BitSet[n];
+		in = new BitSet[n];
+		out = new BitSet[n];
+	}
+
+	/**
+	 * Compute what block <code>b</code> generates and kills. Called once per reachable block.
+	 */
+	protected abstract void summarize(BasicBlock b, BitSet gen, BitSet kill);
+
+	/**
+	 * @return the facts at the start of the entry block (forward) or the end of the
+	 * exit block (backward). Nothing, unless overridden.
+	 */
+	protected BitSet boundary() {
+		return new BitSet();
+	}
+
+	protected final void solve() {
+		boolean forward = (direction == Direction.FORWARD);
+		BasicBlock[] rpo = cfg.getOrder();
+		int n = rpo.length;
+
+		for (BasicBlock b : cfg.getBlocks()) {
+			//sets start small and grow, since most are sparse
+			in[b.id] = new BitSet();
+			out[b.id] = new BitSet();
+			gen[b.id] = new BitSet();
+			kill[b.id] = new BitSet();
+		}
+		for (BasicBlock b : rpo) {
+			summarize(b, gen[b.id], kill[b.id]);
+			if (meet == Meet.INTERSECTION) {
+				//start from everything and let the iteration take facts away
+				result(b, forward).set(0, size);
+			}
+		}
+		BasicBlock start = forward ? cfg.getEntry() : cfg.getExit();
+
+		BitSet work = new BitSet(n); //positions in visiting order
+		work.set(0, n);
+		BitSet next = new BitSet();
+		int pos = 0;
+		while (!work.isEmpty()) {
+			int p = work.nextSetBit(pos);
+			if (p < 0) p = work.nextSetBit(0);
+			work.clear(p);
+			pos = p + 1;
+			visits++;
+
+			BasicBlock b = forward ? rpo[p] : rpo[n - 1 - p];
+			BitSet x = input(b, forward);
+			if (b == start) {
+				x.clear();
+				x.or(boundary());
+			} else {
+				boolean first = true;
+				for (BasicBlock f : forward ? b.preds : b.succs) {
+					if (f.rpo < 0) continue; //unreachable
+					BitSet v = result(f, forward);
+					if (first) {
+						x.clear();
+						x.or(v);
+						first = false;
+					} else if (meet == Meet.UNION) {
+						x.or(v);
+					} else {
+						x.and(v);
+					}
+				}
+			}
+
+			next.clear();
+			next.or(x);
+			next.andNot(kill[b.id]);
+			next.or(gen[b.id]);
+			BitSet old = result(b, forward);
+			if (!next.equals(old)) {
+				old.clear();
+				old.or(next);
+				List<BasicBlock> dependents = forward ? b.succs : b.preds;
+				for (BasicBlock d : dependents) {
+					if (d.rpo >= 0) work.set(forward ? d.rpo : n - 1 - d.rpo);
+				}
+			}
+		}
+	}
+
+	private BitSet input(BasicBlock b, boolean forward) {
+		return forward ? in[b.id] : out[b.id];
+	}
+
+	private BitSet result(BasicBlock b, boolean forward) {
+		return forward ? out[b.id] : in[b.id];
+	}
+
+	/**
+	 * @return facts at the start of <code>b</code>. Do not modify.
+	 */
+	public BitSet in(BasicBlock b) {
+		return in[b.id];
+	}
+
+	/**
+	 * @return facts at the end of <code>b</code>. Do not modify.
+	 */
+	public BitSet out(BasicBlock b) {
+		return out[b.id];
+	}
+
+	/**
+	 * @return how many times a block was visited before the solution settled
+	 */
+	public int getVisits() {
+		return visits;
+	}
+}
@@ -0,0 +1,71 @@
+package assembly;
+
+import java.io.PrintStream;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.function.IntFunction;
+
+import assembly.ControlFlowGraph.BasicBlock;
+import assembly.instructions.Instruction;
+import assembly.instructions.Register;
+
+/**
+ * Prints the solution of each dataflow problem for one function's code, as assembly
+ * comments, for <code>--dump-dataflow</code>. The code is the body before register
+ * allocation, numbered from 0. Each block with code is printed with its instructions
+ * and, at its start and end:
+ *
+ * 		live			virtual registers ({@link Liveness})
+ * 		reaching		indexes of the instructions whose definitions reach ({@link ReachingDefinitions})
+ * 		available		expressions ({@link AvailableExpressions})
+ * 		anticipated		expressions ({@link AnticipatedExpressions})
+ *
+ * An expression is printed as <code>e</code> and its number; the list of them at the
+ * top gives the first instruction that computes each.
+ */
+public final class DataflowDump {
+
+	private DataflowDump() { }
+
+	public static void print(PrintStream out, String function, Collection<Instruction> body) {
+		ControlFlowGraph cfg = new ControlFlowGraph(body);
+		Instruction[] code = cfg.getCode();
+		Liveness live = new Liveness(cfg);
+		ReachingDefinitions reaching = new ReachingDefinitions(cfg);
+		Expressions exprs = new Expressions(code);
+		AvailableExpressions available = new AvailableExpressions(cfg, exprs);
+		AnticipatedExpressions anticipated = new AnticipatedExpressions(cfg, exprs);
+
+		out.println("; Dataflow: " + function);
+		for (int e = 0; e < exprs.count(); e++) {
+			out.println(";   e" + e + " = " + code[exprs.first(e)]);
+		}
+		IntFunction<String> reg = i -> Register.toString(Register.fromIndex(i));
+		IntFunction<String> index = i -> String.valueOf(i);
+		IntFunction<String> expr = e -> "e" + e;
+		for (BasicBlock b : cfg.getOrder()) {
+			if (b.start == b.end) continue; //entry and exit
+			StringBuilder succs = new StringBuilder();
+			for (BasicBlock s : b.succs) {
+				succs.append(' ').append(s.start == s.end ? "exit" : "B" + s.id);
+			}
+			out.println("; B" + b.id + " ->" + succs);
+			for (int i = b.start; i < b.end; i++) {
+				out.println(";   " + i + ": " + code[i]);
+			}
+			out.println(";   live         in " + set(live.in(b), reg) + " out " + set(live.out(b), reg));
+			out.println(";   reaching     in " + set(reaching.in(b), index) + " out " + set(reaching.out(b), index));
+			out.println(";   available    in " + set(available.in(b), expr) + " out " + set(available.out(b), expr));
+			out.println(";   anticipated  in " + set(anticipated.in(b), expr) + " out " + set(anticipated.out(b), expr));
+		}
+	}
+
+	private static String set(BitSet bits, IntFunction<String> name) {
+		StringBuilder sb = new StringBuilder("{");
+		for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+			if (sb.length() > 1) sb.append(' ');
+			sb.append(name.apply(i));
+		}
+		return sb.append('}').toString();
+	}
+}
@@ -0,0 +1,113 @@
+package assembly;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import assembly.instructions.Instruction;
+import assembly.instructions.Instruction.OpCode;
+import assembly.instructions.Instruction.Operand;
+import assembly.instructions.Register;
+
+/**
+ * Numbers the expressions computed in a function's code, for the expression
+ * dataflow problems. An expression is an instruction that only computes a register
+ * from its operands: it writes dest, does not touch memory, has no side effects and
+ * is not a plain move. Instructions with the same op code and operands are the same
+ * expression.
+ */
+public class Expressions {
+
+	private final int[] exprOf; //instruction index -> expression number, or -1
+	private final List<Integer> first = new ArrayList<Integer>(); //expression number -> index of the first instruction computing it
+	private final Map<Key, Integer> numbers = new HashMap<Key, Integer>();
+	private final Map<Integer, BitSet> users = new HashMap<Integer, BitSet>(); //register -> expressions that read it
+
+	public Expressions(Instruction[] code) {
+		exprOf = new int[code.length];
+		for (int i = 0; i < code.length; i++) {
+			exprOf[i] = -1;
+			OpCode oc = code[i].getOC();
+			if (oc == null || !oc.defines(Operand.DEST) || oc.isRequired() || oc.readsMemory()
+					|| oc == OpCode.MV || oc == OpCode.FMVS) {
+				continue;
+			}
+			Key k = new Key(code[i]);
+			Integer n = numbers.get(k);
+			if (n == null) {
+				n = numbers.size();
+				numbers.put(k, n);
+				first.add(i);
+				use(k.src1, n);
+				use(k.src2, n);
+			}
+			exprOf[i] = n;
+		}
+	}
+
+	private void use(int reg, int expr) {
+		if (reg != Register.NONE) {
+			users.computeIfAbsent(reg, r -> new BitSet()).set(expr);
+		}
+	}
+
+	/**
+	 * @return how many different expressions there are
+	 */
+	public int count() {
+		return numbers.size();
+	}
+
+	/**
+	 * @return the expression the instruction at <code>index</code> computes, or -1
+	 */
+	public int at(int index) {
+		return exprOf[index];
+	}
+
+	/**
+	 * @return index of the first instruction that computes expression <code>expr</code>
+	 */
+	public int first(int expr) {
+		return first.get(expr);
+	}
+
+	/**
+	 * @return the expressions that read <code>reg</code> (virtual or physical), which
+	 * writing it kills. Do not modify.
+	 */
+	public BitSet usersOf(int reg) {
+		BitSet b = users.get(reg);
+		return (b != null) ? b : new BitSet();
+	}
+
+	/* Op code and operands of an expression; dest does not matter */
+	private static final class Key {
+		final OpCode oc;
+		final int src1;
+		final int src2;
+		final String label;
+
+		Key(Instruction i) {
+			oc = i.getOC();
+			src1 = i.getOperand(Operand.SRC1);
+			src2 = i.getOperand(Operand.SRC2);
+			label = i.label;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+			Key k = (Key) o;
+			return oc == k.oc && src1 == k.src1 && src2 == k.src2 && Objects.equals(label, k.label);
+		}
+
+		@Override
+		public int hashCode() {
+			return ((oc.hashCode() * 31 + src1) * 31 + src2) * 31 + Objects.hashCode(label);
+		}
+	}
+}
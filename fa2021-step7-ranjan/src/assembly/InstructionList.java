@@ -1,97 +1,141 @@
 package assembly;
 
 import java.io.StringWriter;
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.NoSuchElementException;
 
 import assembly.instructions.Instruction;
 
-public class InstructionList implements Collection<Instruction> {
+/**
+ * List of instructions, built as a rope so that code generation can splice a
+ * child's code into its parent's without copying it.
+ *
+ * The list is an immutable tree of chunks (<code>root</code>) followed by a chunk
+ * this list owns and appends to (<code>tail</code>). Splicing another list in with
+ * {@link #addAll} closes off both lists' tails into the tree and joins the two trees,
+ * which is O(1) no matter how long the other list is. Since the tree is never
+ * modified, the other list can keep being used and added to afterwards. Small lists
+ * are simply copied, which is cheaper than a new tree node.
+ */
+public class InstructionList extends AbstractCollection<Instruction> {
+
+	/* Lists up to this size are copied by addAll rather than linked */
+	private static final int COPY_LIMIT = 8;
+
+	private Rope root; //instructions that have been closed off; null if none
+	private Instruction[] tail; //instructions added since, owned by this list
+	private int tailSize;
 
-	
-	List<Instruction> nodes;
-	
 	InstructionList() {
-		nodes = new LinkedList<Instruction>();
+		root = null;
+		tail = null;
+		tailSize = 0;
 	}
-		
+
 	@Override
 	public Iterator<Instruction> iterator() {
-		return nodes.iterator();
+		return new Itr();
 	}
 
 	@Override
 	public int size() {
-		return nodes.size();
-	}
-
-	@Override
-	public boolean isEmpty() {
-		return nodes.isEmpty();
-	}
-
-	@Override
-	public boolean contains(Object o) {
-		return nodes.contains(o);
-	}
-
-	@Override
-	public Object[] toArray() {
-		return nodes.toArray();
-	}
-
-	@Override
-	public <T> T[] toArray(T[] a) {
-		return nodes.toArray(a);
+		return ((root != null) ? root.size : 0) + tailSize;
 	}
 
 	@Override
 	public boolean add(Instruction i) {
-		return nodes.add(i);
+		if (tail == null) {
+			tail = new Instruction[4];
+		} else if (tailSize == tail.length) {
+			tail = Arrays.copyOf(tail, tailSize * 2);
+		}
+		tail[tailSize++] = i;
+		return true;
 	}
 
 	@Override
 	public boolean remove(Object o) {
-		//throw new UnsupportedOperationException();
-		return nodes.remove(o);
-	}
-
-	@Override
-	public boolean containsAll(Collection<?> c) {
-		return nodes.containsAll(c);
+		//rare, so just flatten the list into the tail and remove from there
+		Instruction[] all = toArray(new Instruction[size()]);
+		for (int i = 0; i < all.length; i++) {
+			if (o == null ? all[i] == null : o.equals(all[i])) {
+				System.arraycopy(all, i + 1, all, i, all.length - i - 1);
+				root = null;
+				tail = all;
+				tailSize = all.length - 1;
+				tail[tailSize] = null;
+				return true;
+			}
+		}
+		return false;
 	}
 
 	@Override
 	public boolean addAll(Collection<? extends Instruction> c) {
-		boolean retval = false;
-		for (Instruction i : c) {
-			retval |= add(i);
+		if (!(c instanceof InstructionList)) {
+			return super.addAll(c);
+		}
+		InstructionList other = (InstructionList) c;
+		if (other.isEmpty()) {
+			return false;
+		}
+		if (other.root == null && other.tailSize <= COPY_LIMIT) {
+			for (int i = 0; i < other.tailSize; i++) {
+				add(other.tail[i]);
+			}
+			return true;
 		}
-		return retval;
+		seal();
+		other.seal();
+		root = concat(root, other.root);
+		return true;
 	}
 
 	@Override
 	public boolean removeAll(Collection<?> c) {
-		throw new UnsupportedOperationException();
+		return filter(c, false);
 	}
 
 	@Override
 	public boolean retainAll(Collection<?> c) {
-		throw new UnsupportedOperationException();
+		return filter(c, true);
 	}
 
 	@Override
 	public void clear() {
-		throw new UnsupportedOperationException();
+		root = null;
+		tail = null;
+		tailSize = 0;
+	}
+
+	/* Like remove, flatten the list into the tail, keeping the instructions that are (or are not) in c */
+	private boolean filter(Collection<?> c, boolean inC) {
+		Instruction[] all = toArray(new Instruction[size()]);
+		int kept = 0;
+		for (Instruction i : all) {
+			if (c.contains(i) == inC) {
+				all[kept++] = i;
+			}
+		}
+		if (kept == all.length) {
+			return false;
+		}
+		Arrays.fill(all, kept, all.length, null);
+		root = null;
+		tail = (kept > 0) ? all : null;
+		tailSize = kept;
+		return true;
 	}
-	
+
 	public String toString() {
-		
+
 		StringWriter sw = new StringWriter();
-		
-		for (Instruction ir : nodes) {
+
+		for (Instruction ir : this) {
 			sw.write(ir.toString());
 			sw.write("\n");
 		}
@@ -100,7 +144,112 @@ public class InstructionList implements Collection<Instruction> {
 	}
 
 	public Instruction getLast() {
-		return nodes.get(nodes.size() - 1);
+		if (tailSize > 0) {
+			return tail[tailSize - 1];
+		}
+		if (root == null) {
+			throw new NoSuchElementException();
+		}
+		return root.last;
+	}
+
+	/**
+	 * Close off the tail into the tree. The tail array now belongs to the tree, so
+	 * the next add starts a new one.
+	 */
+	private void seal() {
+		if (tailSize > 0) {
+			root = concat(root, new Leaf(tail, tailSize));
+		}
+		tail = null;
+		tailSize = 0;
+	}
+
+	private static Rope concat(Rope left, Rope right) {
+		if (left == null) return right;
+		if (right == null) return left;
+		return new Concat(left, right);
+	}
+
+	/* Immutable tree of instructions. Every node knows its size and last instruction */
+	private static abstract class Rope {
+		final int size;
+		final Instruction last;
+
+		Rope(int size, Instruction last) {
+			this.size = size;
+			this.last = last;
+		}
+	}
+
+	private static final class Leaf extends Rope {
+		final Instruction[] items;
+
+		Leaf(Instruction[] items, int size) {
+			super(size, items[size - 1]);
+			this.items = items;
+		}
 	}
-	
+
+	private static final class Concat extends Rope {
+		final Rope left;
+		final Rope right;
+
+		Concat(Rope left, Rope right) {
+			super(left.size + right.size, right.last);
+			this.left = left;
+			this.right = right;
+		}
+	}
+
+	/**
+	 * Walks the leaves of the tree left to right, then the tail. Trees built by code
+	 * generation can be very deep, so this keeps its own stack of right subtrees
+	 * rather than recursing.
+	 */
+	private class Itr implements Iterator<Instruction> {
+		private final ArrayDeque<Rope> pending = new ArrayDeque<Rope>();
+		private boolean tailDone = false;
+		private Instruction[] items;
+		private int n;
+		private int i;
+
+		Itr() {
+			if (root != null) {
+				pending.push(root);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (i == n) {
+				if (!pending.isEmpty()) {
+					Rope r = pending.pop();
+					while (r instanceof Concat) {
+						pending.push(((Concat) r).right);
+						r = ((Concat) r).left;
+					}
+					items = ((Leaf) r).items;
+					n = r.size;
+				} else if (!tailDone) {
+					tailDone = true;
+					items = tail;
+					n = tailSize;
+				} else {
+					return false;
+				}
+				i = 0;
+			}
+			return true;
+		}
+
+		@Override
+		public Instruction next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return items[i++];
+		}
+	}
+
 }
@@ -0,0 +1,650 @@
+package assembly;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import assembly.ControlFlowGraph.BasicBlock;
+import assembly.instructions.FMv;
+import assembly.instructions.Instruction;
+import assembly.instructions.Instruction.OpCode;
+import assembly.instructions.Instruction.Operand;
+import assembly.instructions.J;
+import assembly.instructions.Label;
+import assembly.instructions.Mv;
+import assembly.instructions.Register;
+import assembly.instructions.Register.RegClass;
+import compiler.LocalScope;
+
+/**
+ * Linear-scan register allocator, for functions too big to color quickly: second-chance
+ * binpacking (Traub, Holloway and Smith, PLDI 1998), in the interval-splitting form of
+ * Wimmer and Moessenboeck (VEE 2005).
+ *
+ * Instructions are numbered in code order, instruction <i>i</i> reading its sources
+ * at 2<i>i</i> and writing its destination at 2<i>i</i>+1. Each virtual register gets a
+ * lifetime interval: the ranges of positions where it is live, with holes where it
+ * is not, and the positions where it is read or written. Intervals are handed
+ * registers in order of their start. An interval may take a register that another
+ * one holds but is in a hole of, as long as the two do not overlap; when a register
+ * is only free for part of an interval, the interval is split and the rest waits its
+ * turn. When no register is free, whichever interval is needed furthest in the future
+ * goes to its spill slot until its next use, where it gets a second chance at a
+ * register. Each allocation looks at no more than the K registers' intervals, and the
+ * intervals are kept in a priority queue, so allocation takes about O(n log n).
+ *
+ * Where an interval was split the value is stored, loaded or moved. Where a value is
+ * in different places at the end of a block and the start of a successor, the moves go
+ * on the edge: at the end of the predecessor, at the start of the successor, or, for
+ * the taken side of a branch to a block with several predecessors, in a new block
+ * placed before the last label of the code.
+ */
+public class LinearScanRegisterAllocator extends RegisterAllocator {
+
+	private static final int MAX = Integer.MAX_VALUE;
+
+	/**
+	 * Lifetime of a virtual register, or the part of one that stays in one place
+	 * after splitting
+	 */
+	private static final class Interval {
+		final int vreg;
+		final Interval parent; //the whole lifetime this is a part of; itself if not split off
+		final List<Interval> children; //parts of the whole lifetime in order, set on the parent only
+		int[] from = new int[2]; //ranges [from, to), sorted
+		int[] to = new int[2];
+		int ranges;
+		int[] uses = new int[2]; //sorted positions where the register is read or written
+		int useCount;
+		int reg = -1; //pool position, or -1 while in the spill slot
+		int hint = -1; //virtual register this one is copied from, which it would like to share a register with
+
+		Interval(int vreg, Interval parent) {
+			this.vreg = vreg;
+			this.parent = (parent == null) ? this : parent;
+			this.children = (parent == null) ? new ArrayList<Interval>(1) : null;
+			if (parent == null) children.add(this);
+		}
+
+		int start() {
+			return from[0];
+		}
+
+		int end() {
+			return to[ranges - 1];
+		}
+
+		/* Ranges and uses are added backwards while building, so prepend, merging touching ranges */
+		void addRange(int f, int t) {
+			if (ranges > 0 && t >= from[0]) {
+				from[0] = Math.min(from[0], f);
+				to[0] = Math.max(to[0], t);
+				return;
+			}
+			if (ranges == from.length) {
+				from = Arrays.copyOf(from, 2 * ranges);
+				to = Arrays.copyOf(to, 2 * ranges);
+			}
+			System.arraycopy(from, 0, from, 1, ranges);
+			System.arraycopy(to, 0, to, 1, ranges);
+			from[0] = f;
+			to[0] = t;
+			ranges++;
+		}
+
+		/* A write at pos starts the value: its live range begins there */
+		void define(int pos) {
+			if (ranges > 0 && from[0] <= pos && pos < to[0]) {
+				from[0] = pos;
+			} else {
+				addRange(pos, pos + 1); //written but never read
+			}
+			addUse(pos);
+		}
+
+		void addUse(int pos) {
+			if (useCount > 0 && uses[0] == pos) return;
+			if (useCount == uses.length) uses = Arrays.copyOf(uses, 2 * useCount);
+			System.arraycopy(uses, 0, uses, 1, useCount);
+			uses[0] = pos;
+			useCount++;
+		}
+
+		boolean covers(int pos) {
+			int lo = 0, hi = ranges - 1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				if (to[mid] <= pos) {
+					lo = mid + 1;
+				} else if (from[mid] > pos) {
+					hi = mid - 1;
+				} else {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/* First position at or after pos where the register is read or written */
+		int nextUse(int pos) {
+			int lo = 0, hi = useCount;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (uses[mid] < pos) lo = mid + 1; else hi = mid;
+			}
+			return (lo < useCount) ? uses[lo] : MAX;
+		}
+
+		/* First position both intervals cover, or MAX */
+		int nextIntersection(Interval other) {
+			int i = 0, j = 0;
+			while (i < ranges && j < other.ranges) {
+				if (to[i] <= other.from[j]) {
+					i++;
+				} else if (other.to[j] <= from[i]) {
+					j++;
+				} else {
+					return Math.max(from[i], other.from[j]);
+				}
+			}
+			return MAX;
+		}
+
+		/* Start of the first range at or after pos */
+		int nextRangeStart(int pos) {
+			for (int i = 0; i < ranges; i++) {
+				if (from[i] >= pos) return from[i];
+			}
+			return MAX;
+		}
+
+		/* Split off everything from pos on into a new interval */
+		Interval split(int pos) {
+			if (pos <= start() || pos >= end()) {
+				throw new Error("Cannot split " + Register.toString(Register.fromIndex(vreg)) + " at " + pos);
+			}
+			Interval child = new Interval(vreg, parent);
+			int r = 0;
+			while (to[r] <= pos) r++;
+			child.from = new int[ranges - r + 1];
+			child.to = new int[ranges - r + 1];
+			if (from[r] < pos) {
+				child.from[0] = pos;
+				child.to[0] = to[r];
+				to[r] = pos;
+				r++;
+				child.ranges = 1;
+			}
+			for (int i = r; i < ranges; i++) {
+				child.from[child.ranges] = from[i];
+				child.to[child.ranges++] = to[i];
+			}
+			ranges = r;
+
+			int u = 0;
+			while (u < useCount && uses[u] < pos) u++;
+			child.uses = Arrays.copyOfRange(uses, u, Math.max(useCount, u + 1));
+			child.useCount = useCount - u;
+			useCount = u;
+			child.hint = hint;
+
+			List<Interval> siblings = parent.children;
+			int at = siblings.indexOf(this) + 1;
+			siblings.add(at, child);
+			return child;
+		}
+
+		/* The part of the whole lifetime that holds position pos */
+		Interval childAt(int pos) {
+			List<Interval> siblings = parent.children;
+			int lo = 0, hi = siblings.size() - 1;
+			while (lo < hi) {
+				int mid = (lo + hi + 1) >>> 1;
+				if (siblings.get(mid).start() <= pos) lo = mid; else hi = mid - 1;
+			}
+			return siblings.get(lo);
+		}
+	}
+
+	private Interval[] intervals; //by Register.index
+	private int[][] defs; //positions each register is written at, by index
+	private int[] defCount;
+
+	private final PriorityQueue<Interval> unhandled = new PriorityQueue<Interval>(
+			(a, b) -> (a.start() != b.start()) ? Integer.compare(a.start(), b.start()) : Integer.compare(a.vreg, b.vreg));
+	private final List<List<Interval>> active = List.of(new ArrayList<Interval>(), new ArrayList<Interval>()); //by register class
+	private final List<List<Interval>> inactive = List.of(new ArrayList<Interval>(), new ArrayList<Interval>());
+
+	/* Code to add around each instruction, by instruction index */
+	private InstructionList[] entry; //moves on the edges into a block, ahead of those for splits at its first instruction
+	private InstructionList[] before;
+	private InstructionList[] after;
+	private final List<Instruction> edgeBlocks = new ArrayList<Instruction>();
+
+	public LinearScanRegisterAllocator(int registers, LocalScope scope) {
+		super(registers, scope);
+	}
+
+	@Override
+	public InstructionList allocate(Collection<Instruction> code) {
+		ControlFlowGraph cfg = new ControlFlowGraph(code);
+		Liveness live = new Liveness(cfg);
+		Instruction[] insts = cfg.getCode();
+
+		buildIntervals(cfg, live);
+		for (Interval it : intervals) {
+			if (it != null) unhandled.add(it);
+		}
+		while (!unhandled.isEmpty()) {
+			Interval cur = unhandled.poll();
+			int c = cur.vreg & 1;
+			advance(c, cur.start());
+			if (!tryAllocateFree(cur)) {
+				allocateBlocked(cur);
+			}
+			if (cur.reg >= 0) active.get(c).add(cur);
+		}
+
+		entry = new InstructionList[insts.length];
+		before = new InstructionList[insts.length];
+		after = new InstructionList[insts.length];
+		resolveSplits(cfg);
+		resolveEdges(cfg, live);
+		return rewrite(insts);
+	}
+
+	private void buildIntervals(ControlFlowGraph cfg, Liveness live) {
+		Instruction[] code = cfg.getCode();
+		int n = Liveness.registerCount(code);
+		intervals = new Interval[n];
+		defs = new int[n][];
+		defCount = new int[n];
+
+		List<BasicBlock> blocks = cfg.getBlocks();
+		for (int id = blocks.size() - 2; id >= 1; id--) {
+			BasicBlock b = blocks.get(id);
+			BitSet out = live.out(b);
+			for (int v = out.nextSetBit(0); v >= 0; v = out.nextSetBit(v + 1)) {
+				interval(v).addRange(2 * b.start, 2 * b.end);
+			}
+			for (int i = b.end - 1; i >= b.start; i--) {
+				Instruction ins = code[i];
+				OpCode oc = ins.getOC();
+				if (oc == null) continue;
+				int d = ins.getOperand(Operand.DEST);
+				if (Register.isVirtual(d)) {
+					int v = Register.index(d);
+					interval(v).define(2 * i + 1);
+					defs[v] = (defs[v] == null) ? new int[2] : (defCount[v] == defs[v].length) ? Arrays.copyOf(defs[v], 2 * defCount[v]) : defs[v];
+					defs[v][defCount[v]++] = 2 * i + 1;
+					int s = ins.getOperand(Operand.SRC1);
+					if ((oc == OpCode.MV || oc == OpCode.FMVS) && Register.isVirtual(s)) {
+						interval(v).hint = Register.index(s);
+					}
+				}
+				for (Operand o : new Operand[] {Operand.SRC1, Operand.SRC2}) {
+					int s = ins.getOperand(o);
+					if (Register.isVirtual(s)) {
+						Interval it = interval(Register.index(s));
+						it.addRange(2 * b.start, 2 * i + 1);
+						it.addUse(2 * i);
+					}
+				}
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			if (defs[v] != null) Arrays.sort(defs[v], 0, defCount[v]);
+		}
+	}
+
+	private Interval interval(int v) {
+		if (intervals[v] == null) intervals[v] = new Interval(v, null);
+		return intervals[v];
+	}
+
+	/* Retire intervals that ended before pos, and move the others between active and inactive */
+	private void advance(int c, int pos) {
+		List<Interval> act = active.get(c);
+		List<Interval> inact = inactive.get(c);
+		for (int i = act.size() - 1; i >= 0; i--) {
+			Interval it = act.get(i);
+			if (it.end() <= pos) {
+				act.remove(i);
+			} else if (!it.covers(pos)) {
+				act.remove(i);
+				inact.add(it);
+			}
+		}
+		for (int i = inact.size() - 1; i >= 0; i--) {
+			Interval it = inact.get(i);
+			if (it.end() <= pos) {
+				inact.remove(i);
+			} else if (it.covers(pos)) {
+				inact.remove(i);
+				act.add(it);
+			}
+		}
+	}
+
+	private boolean tryAllocateFree(Interval cur) {
+		int c = cur.vreg & 1;
+		int[] freeUntil = new int[registers];
+		Arrays.fill(freeUntil, MAX);
+		for (Interval it : active.get(c)) {
+			freeUntil[it.reg] = 0;
+		}
+		for (Interval it : inactive.get(c)) {
+			freeUntil[it.reg] = Math.min(freeUntil[it.reg], it.nextIntersection(cur));
+		}
+
+		int reg = 0;
+		for (int r = 1; r < registers; r++) {
+			if (freeUntil[r] > freeUntil[reg]) reg = r;
+		}
+		//a copy's destination takes its source's register if that works as well
+		if (cur.hint >= 0 && intervals[cur.hint] != null) {
+			int h = intervals[cur.hint].childAt(cur.start() - 1).reg;
+			if (h >= 0 && freeUntil[h] >= Math.min(freeUntil[reg], cur.end())) reg = h;
+		}
+
+		if (freeUntil[reg] >= cur.end()) {
+			cur.reg = reg;
+			return true;
+		}
+		int pos = freeUntil[reg] & ~1; //split before an instruction, not between its reads and its write
+		if (pos <= cur.start()) {
+			return false;
+		}
+		cur.reg = reg;
+		unhandled.add(cur.split(pos));
+		return true;
+	}
+
+	private void allocateBlocked(Interval cur) {
+		int c = cur.vreg & 1;
+		int pos = cur.start();
+		int[] nextUse = new int[registers];
+		Arrays.fill(nextUse, MAX);
+		for (Interval it : active.get(c)) {
+			nextUse[it.reg] = it.nextUse(pos);
+		}
+		for (Interval it : inactive.get(c)) {
+			if (it.nextIntersection(cur) != MAX) {
+				nextUse[it.reg] = Math.min(nextUse[it.reg], it.nextUse(pos));
+			}
+		}
+		int reg = 0;
+		for (int r = 1; r < registers; r++) {
+			if (nextUse[r] > nextUse[reg]) reg = r;
+		}
+
+		int first = cur.nextUse(pos);
+		if (first == MAX || first > nextUse[reg]) {
+			//everything in a register is needed sooner: wait in memory until the first use
+			toMemory(cur);
+			return;
+		}
+
+		//take the register from whoever holds it, who waits in memory until their next use
+		cur.reg = reg;
+		for (int i = active.get(c).size() - 1; i >= 0; i--) {
+			Interval it = active.get(c).get(i);
+			if (it.reg == reg) {
+				active.get(c).remove(i);
+				toMemory((pos > it.start()) ? it.split(pos) : it);
+			}
+		}
+		for (int i = inactive.get(c).size() - 1; i >= 0; i--) {
+			Interval it = inactive.get(c).get(i);
+			if (it.reg == reg && it.nextIntersection(cur) != MAX) {
+				inactive.get(c).remove(i);
+				toMemory(it.split(it.nextRangeStart(pos)));
+			}
+		}
+	}
+
+	/* Keep it in its spill slot until it is next used, and queue the rest for a register */
+	private void toMemory(Interval it) {
+		it.reg = -1;
+		int use = it.nextUse(it.start());
+		if (use == it.start()) {
+			unhandled.add(it); //needs a register right away, just not this one
+		} else if (use != MAX) {
+			unhandled.add(it.split(use));
+		}
+	}
+
+	/*
+	 * Store, load or move the values whose intervals were split inside a block, all at
+	 * once for each position. Both positions of an instruction are done before it: a
+	 * part that starts at a write position without being written there is one sent to
+	 * its slot, and storing it early leaves the register for the instruction to read.
+	 */
+	private void resolveSplits(ControlFlowGraph cfg) {
+		List<int[]> splits = new ArrayList<int[]>(); //position, virtual register, from, to
+		for (Interval whole : intervals) {
+			if (whole == null) continue;
+			List<Interval> parts = whole.children;
+			for (int k = 1; k < parts.size(); k++) {
+				Interval prev = parts.get(k - 1);
+				Interval part = parts.get(k);
+				int pos = part.start();
+				if (prev.reg == part.reg || pos == 2 * cfg.getBlock(pos >> 1).start) continue; //block starts are done on edges
+				if ((pos & 1) == 1 && part.useCount > 0 && part.uses[0] == pos) continue; //written here, nothing to carry over
+				if (prev.end() < pos) continue; //in a hole: nothing to carry over
+				if (part.reg < 0 && slotValid(cfg, part)) continue;
+				splits.add(new int[] {pos, whole.vreg, prev.reg, part.reg});
+			}
+		}
+		splits.sort((a, b) -> Integer.compare(a[0], b[0]));
+		int s = 0;
+		while (s < splits.size()) {
+			int pos = splits.get(s)[0];
+			int e = s + 1;
+			while (e < splits.size() && splits.get(e)[0] == pos) e++;
+			int[] vregs = new int[e - s];
+			int[] src = new int[e - s];
+			int[] dst = new int[e - s];
+			for (int k = s; k < e; k++) {
+				vregs[k - s] = splits.get(k)[1];
+				src[k - s] = splits.get(k)[2];
+				dst[k - s] = splits.get(k)[3];
+			}
+			moves(list(before, pos >> 1), vregs, src, dst);
+			s = e;
+		}
+	}
+
+	/* Whether the value is already in its slot where this part starts: some part since the last write, in the same block, was in memory */
+	private boolean slotValid(ControlFlowGraph cfg, Interval part) {
+		int v = part.vreg;
+		int pos = part.start();
+		int lo = 2 * cfg.getBlock(pos >> 1).start;
+		for (int d = defCount[v] - 1; d >= 0; d--) {
+			if (defs[v][d] < pos) {
+				lo = Math.max(lo, defs[v][d] + 1);
+				break;
+			}
+		}
+		for (Interval p : part.parent.children) {
+			if (p == part) break;
+			if (p.reg < 0 && p.end() > lo) return true;
+		}
+		return false;
+	}
+
+	/* Make values live into a block be where the block expects them, on every edge into it */
+	private void resolveEdges(ControlFlowGraph cfg, Liveness live) {
+		Instruction[] code = cfg.getCode();
+		List<BasicBlock> blocks = cfg.getBlocks();
+		int edges = 0;
+		for (BasicBlock pred : cfg.getOrder()) {
+			if (pred.start == pred.end) continue;
+			for (int si = 0; si < pred.succs.size(); si++) {
+				BasicBlock succ = pred.succs.get(si);
+				if (succ.start == succ.end || pred.succs.indexOf(succ) != si) continue;
+
+				BitSet in = live.in(succ);
+				int[] vregs = new int[in.cardinality()];
+				int[] src = new int[vregs.length];
+				int[] dst = new int[vregs.length];
+				int n = 0;
+				for (int v = in.nextSetBit(0); v >= 0; v = in.nextSetBit(v + 1)) {
+					int f = intervals[v].childAt(2 * pred.end - 1).reg;
+					int t = intervals[v].childAt(2 * succ.start).reg;
+					if (f != t) {
+						vregs[n] = v;
+						src[n] = f;
+						dst[n++] = t;
+					}
+				}
+				if (n == 0) continue;
+				vregs = Arrays.copyOf(vregs, n);
+				src = Arrays.copyOf(src, n);
+				dst = Arrays.copyOf(dst, n);
+
+				Instruction last = code[pred.end - 1];
+				OpCode oc = last.getOC();
+				InstructionList where;
+				if (distinct(pred.succs) == 1) {
+					where = (oc != null && oc.endsBlock()) ? list(before, pred.end - 1) : list(after, pred.end - 1);
+				} else if (distinct(succ.preds) == 1) {
+					where = (code[succ.start] instanceof Label) ? list(after, succ.start) : list(entry, succ.start);
+				} else if (succ == blocks.get(pred.id + 1) && !succ.equals(cfg.getBlock(last.label))) {
+					where = list(after, pred.end - 1); //only the fall-through path gets here
+				} else {
+					//the taken side of a branch: give it a block of its own
+					String label = last.label + "_edge" + (++edges);
+					InstructionList block = new InstructionList();
+					block.add(new Label(label));
+					moves(block, vregs, src, dst);
+					block.add(new J(last.label));
+					edgeBlocks.addAll(block);
+					last.label = label;
+					continue;
+				}
+				moves(where, vregs, src, dst);
+			}
+		}
+	}
+
+	private static int distinct(List<BasicBlock> bs) {
+		int n = 0;
+		for (int i = 0; i < bs.size(); i++) {
+			if (bs.indexOf(bs.get(i)) == i) n++;
+		}
+		return n;
+	}
+
+	private static InstructionList list(InstructionList[] lists, int i) {
+		if (lists[i] == null) lists[i] = new InstructionList();
+		return lists[i];
+	}
+
+	/*
+	 * Move values from src to dst locations (pool positions, or -1 for the spill slot)
+	 * all at once: first the stores, then the moves between registers in an order that
+	 * does not overwrite one still to be read, then the loads. A cycle of moves is
+	 * broken by going through one value's slot.
+	 */
+	private void moves(InstructionList out, int[] vregs, int[] src, int[] dst) {
+		int n = vregs.length;
+		boolean[] done = new boolean[n];
+		for (int i = 0; i < n; i++) {
+			if (dst[i] < 0) {
+				int r = Register.fromIndex(vregs[i]);
+				out.add(store(physical(Register.regClass(r), src[i]), r));
+				done[i] = true;
+			}
+		}
+		boolean[] reload = new boolean[n];
+		int left = 0;
+		for (int i = 0; i < n; i++) {
+			if (!done[i] && src[i] >= 0) left++;
+		}
+		while (left > 0) {
+			boolean progress = false;
+			for (int i = 0; i < n; i++) {
+				if (done[i] || src[i] < 0) continue;
+				boolean blocked = false;
+				for (int j = 0; j < n && !blocked; j++) {
+					blocked = (j != i && !done[j] && src[j] == dst[i] && (vregs[j] & 1) == (vregs[i] & 1));
+				}
+				if (blocked) continue;
+				RegClass rc = Register.regClass(Register.fromIndex(vregs[i]));
+				int s = physical(rc, src[i]);
+				int d = physical(rc, dst[i]);
+				out.add((rc == RegClass.INT) ? new Mv(s, d) : new FMv(s, d));
+				done[i] = true;
+				left--;
+				progress = true;
+			}
+			if (!progress) {
+				//every remaining move waits on another: park one value in its slot
+				for (int i = 0; i < n; i++) {
+					if (!done[i] && src[i] >= 0) {
+						int r = Register.fromIndex(vregs[i]);
+						out.add(store(physical(Register.regClass(r), src[i]), r));
+						done[i] = true;
+						reload[i] = true;
+						left--;
+						break;
+					}
+				}
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			if (src[i] < 0 || reload[i]) {
+				int r = Register.fromIndex(vregs[i]);
+				out.add(load(physical(Register.regClass(r), dst[i]), r));
+			}
+		}
+	}
+
+	/* Give every operand its register, and put the moves in */
+	private InstructionList rewrite(Instruction[] code) {
+		InstructionList out = new InstructionList();
+		for (int i = 0; i < code.length; i++) {
+			Instruction ins = code[i];
+			if (entry[i] != null) out.addAll(entry[i]);
+			if (before[i] != null) out.addAll(before[i]);
+			if (i == code.length - 1 && !edgeBlocks.isEmpty()) {
+				//the new blocks go before the last label, where nothing falls into them
+				if (!(ins instanceof Label)) {
+					throw new Error("Code to split branch edges into must end with a label");
+				}
+				Instruction prev = (i > 0) ? code[i - 1] : null;
+				if (prev == null || prev.getOC() == null || !prev.getOC().isTerminator()
+						|| entry[i] != null || before[i] != null || after[i - 1] != null) {
+					out.add(new J(ins.label));
+				}
+				out.addAll(edgeBlocks);
+			}
+			OpCode oc = ins.getOC();
+			boolean keep = true;
+			if (oc != null) {
+				for (Operand o : Operand.values()) {
+					int r = ins.getOperand(o);
+					if (!Register.isVirtual(r)) continue;
+					int pos = (o == Operand.DEST) ? 2 * i + 1 : 2 * i;
+					Interval part = intervals[Register.index(r)].childAt(pos);
+					if (part.reg < 0) {
+						throw new Error(Register.toString(r) + " has no register at " + pos);
+					}
+					ins.setOperand(o, physical(Register.regClass(r), part.reg));
+				}
+				if ((oc == OpCode.MV || oc == OpCode.FMVS)
+						&& ins.getOperand(Operand.SRC1) == ins.getOperand(Operand.DEST)) {
+					movesRemoved++;
+					keep = false;
+				}
+			}
+			if (keep) out.add(ins);
+			if (after[i] != null) out.addAll(after[i]);
+		}
+		return out;
+	}
+}
@@ -0,0 +1,63 @@
+package assembly;
+
+import java.util.BitSet;
+
+import assembly.ControlFlowGraph.BasicBlock;
+import assembly.instructions.Instruction;
+import assembly.instructions.Instruction.Operand;
+import assembly.instructions.Register;
+
+/**
+ * Live virtual registers: a register is live at a point if some path from there
+ * reads it before writing it. Backward, union; bits are {@link Register#index}.
+ * Physical registers are not tracked.
+ */
+public class Liveness extends Dataflow {
+
+	private static final Operand[] OPERANDS = Operand.values();
+
+	public Liveness(ControlFlowGraph cfg) {
+		super(cfg, Direction.BACKWARD, Meet.UNION, registerCount(cfg.getCode()));
+		solve();
+	}
+
+	@Override
+	protected void summarize(BasicBlock b, BitSet gen, BitSet kill) {
+		Instruction[] code = cfg.getCode();
+		for (int i = b.end - 1; i >= b.start; i--) {
+			step(code[i], gen, kill);
+		}
+	}
+
+	/**
+	 * Move a set of live registers from after <code>i</code> to before it, and
+	 * record what it writes in <code>defined</code> (if not null)
+	 */
+	public static void step(Instruction i, BitSet live, BitSet defined) {
+		if (i.getOC() == null) return;
+		int d = i.getOperand(Operand.DEST);
+		if (Register.isVirtual(d)) {
+			live.clear(Register.index(d));
+			if (defined != null) defined.set(Register.index(d));
+		}
+		int s1 = i.getOperand(Operand.SRC1);
+		if (Register.isVirtual(s1)) live.set(Register.index(s1));
+		int s2 = i.getOperand(Operand.SRC2);
+		if (Register.isVirtual(s2)) live.set(Register.index(s2));
+	}
+
+	/**
+	 * @return one more than the largest {@link Register#index} of a virtual register in the code
+	 */
+	public static int registerCount(Instruction[] code) {
+		int max = -1;
+		for (Instruction i : code) {
+			if (i.getOC() == null) continue;
+			for (Operand o : OPERANDS) {
+				int r = i.getOperand(o);
+				if (Register.isVirtual(r)) max = Math.max(max, Register.index(r));
+			}
+		}
+		return max + 1;
+	}
+}
@@ -0,0 +1,235 @@
+package assembly;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+import assembly.ControlFlowGraph.BasicBlock;
+import assembly.instructions.Instruction;
+import assembly.instructions.Instruction.OpCode;
+import assembly.instructions.Instruction.Operand;
+import assembly.instructions.Register;
+import assembly.instructions.Register.RegClass;
+import compiler.LocalScope;
+
+/**
+ * Bottom-up local register allocator: each basic block is allocated on its own,
+ * walking it top to bottom.
+ *
+ * Sources that are not in a register are loaded from their slot, and a source read
+ * for the last time frees its register right away, so the destination can reuse it.
+ * When no register is free, the one whose value is needed furthest in the future is
+ * taken, preferring one whose value is already in memory (clean) on a tie; a dirty
+ * value that is still needed is stored to its slot first. Values are only kept in
+ * registers within a block: at the end of a block every dirty value that is live
+ * out is written back (before the branch or jump that ends it), and the next block
+ * starts with all registers free.
+ */
+public class LocalRegisterAllocator extends RegisterAllocator {
+
+	private static final int NEVER = Integer.MAX_VALUE; //next use of a value that is not needed again
+	private static final Operand[] SOURCES = {Operand.SRC1, Operand.SRC2};
+
+	/* Register state, per class and pool position */
+	private final int[][] holds = new int[2][]; //virtual register held, or NONE
+	private final boolean[][] dirty = new boolean[2][]; //value differs from its slot
+	private final int[][] nextUse = new int[2][]; //instruction index of the held value's next use
+	private final boolean[][] locked = new boolean[2][]; //holds a source of the current instruction
+
+	private int[] where; //pool position holding each virtual register, by index, or -1
+	private int[] nextOf; //next use of each virtual register, while scanning a block backwards
+	private int[] stamp; //block nextOf was last set in, by index
+	private InstructionList out;
+
+	public LocalRegisterAllocator(int registers, LocalScope scope) {
+		super(registers, scope);
+		for (int c = 0; c < 2; c++) {
+			holds[c] = new int[this.registers];
+			Arrays.fill(holds[c], Register.NONE);
+			dirty[c] = new boolean[this.registers];
+			nextUse[c] = new int[this.registers];
+			locked[c] = new boolean[this.registers];
+		}
+	}
+
+	@Override
+	public InstructionList allocate(Collection<Instruction> code) {
+		ControlFlowGraph cfg = new ControlFlowGraph(code);
+		Liveness live = new Liveness(cfg);
+		Instruction[] insts = cfg.getCode();
+
+		int n = Liveness.registerCount(insts);
+		where = new int[n];
+		Arrays.fill(where, -1);
+		nextOf = new int[n];
+		stamp = new int[n];
+		out = new InstructionList();
+
+		List<BasicBlock> blocks = cfg.getBlocks();
+		for (int id = 1; id < blocks.size() - 1; id++) { //skip the empty entry and exit
+			BasicBlock b = blocks.get(id);
+			allocateBlock(insts, b, live.out(b));
+		}
+		return out;
+	}
+
+	private void allocateBlock(Instruction[] code, BasicBlock b, BitSet liveOut) {
+		//where each operand's value is used next, after its instruction
+		int[] next = new int[3 * (b.end - b.start)];
+		for (int i = b.end - 1; i >= b.start; i--) {
+			Instruction ins = code[i];
+			if (ins.getOC() == null) continue;
+			int base = 3 * (i - b.start);
+			int d = ins.getOperand(Operand.DEST);
+			if (Register.isVirtual(d)) {
+				next[base + Operand.DEST.ordinal()] = nextUse(d, b, liveOut);
+				nextOf[Register.index(d)] = NEVER; //the value before this is not the one read later
+			}
+			for (Operand o : SOURCES) {
+				int s = ins.getOperand(o);
+				if (Register.isVirtual(s)) {
+					next[base + o.ordinal()] = nextUse(s, b, liveOut);
+					nextOf[Register.index(s)] = i;
+				}
+			}
+		}
+
+		for (int i = b.start; i < b.end; i++) {
+			Instruction ins = code[i];
+			OpCode oc = ins.getOC();
+			if (oc == null) {
+				out.add(ins);
+				continue;
+			}
+			int base = 3 * (i - b.start);
+
+			int s1 = ins.getOperand(Operand.SRC1);
+			int s2 = ins.getOperand(Operand.SRC2);
+			if (Register.isVirtual(s1)) ensure(ins, Operand.SRC1, s1);
+			if (Register.isVirtual(s2)) ensure(ins, Operand.SRC2, s2);
+			Arrays.fill(locked[0], false);
+			Arrays.fill(locked[1], false);
+			if (Register.isVirtual(s1)) used(s1, next[base + Operand.SRC1.ordinal()]);
+			if (Register.isVirtual(s2)) used(s2, next[base + Operand.SRC2.ordinal()]);
+
+			int d = ins.getOperand(Operand.DEST);
+			boolean deadDest = false;
+			if (Register.isVirtual(d)) {
+				int c = Register.regClass(d).ordinal();
+				int p = where[Register.index(d)];
+				if (p < 0) {
+					p = take(Register.regClass(d));
+					holds[c][p] = d;
+					where[Register.index(d)] = p;
+				}
+				dirty[c][p] = true;
+				nextUse[c][p] = next[base + Operand.DEST.ordinal()];
+				ins.setOperand(Operand.DEST, physical(Register.regClass(d), p));
+				deadDest = (nextUse[c][p] == NEVER);
+			}
+
+			boolean last = (i == b.end - 1);
+			if (last && oc.endsBlock()) {
+				writeBack(liveOut);
+				out.add(ins);
+			} else {
+				out.add(ins);
+				if (deadDest) free(d);
+				if (last) writeBack(liveOut);
+			}
+		}
+
+		//nothing stays in a register from one block to the next
+		for (int c = 0; c < 2; c++) {
+			for (int p = 0; p < registers; p++) {
+				if (holds[c][p] != Register.NONE) {
+					where[Register.index(holds[c][p])] = -1;
+					holds[c][p] = Register.NONE;
+					dirty[c][p] = false;
+				}
+			}
+		}
+	}
+
+	/* Next use of r seen so far in the backward scan of b: the end of b if it is live out, or NEVER */
+	private int nextUse(int r, BasicBlock b, BitSet liveOut) {
+		int idx = Register.index(r);
+		if (stamp[idx] != b.id) {
+			stamp[idx] = b.id;
+			nextOf[idx] = liveOut.get(idx) ? b.end : NEVER;
+		}
+		return nextOf[idx];
+	}
+
+	/* Put source r of ins in a register, loading it if it is not in one, and rewrite the operand */
+	private void ensure(Instruction ins, Operand o, int r) {
+		RegClass rc = Register.regClass(r);
+		int c = rc.ordinal();
+		int p = where[Register.index(r)];
+		if (p < 0) {
+			p = take(rc);
+			out.add(load(physical(rc, p), r));
+			holds[c][p] = r;
+			dirty[c][p] = false;
+			where[Register.index(r)] = p;
+		}
+		locked[c][p] = true;
+		ins.setOperand(o, physical(rc, p));
+	}
+
+	/* Note the next use of a source just read, freeing its register if there is none */
+	private void used(int r, int next) {
+		int p = where[Register.index(r)];
+		if (p < 0) return; //both sources were r, and it is already free
+		nextUse[Register.regClass(r).ordinal()][p] = next;
+		if (next == NEVER) free(r);
+	}
+
+	private void free(int r) {
+		int idx = Register.index(r);
+		int p = where[idx];
+		if (p < 0) return;
+		int c = Register.regClass(r).ordinal();
+		holds[c][p] = Register.NONE;
+		dirty[c][p] = false;
+		where[idx] = -1;
+	}
+
+	/* A free register of class rc, emptying the one whose value is needed last if there is none */
+	private int take(RegClass rc) {
+		int c = rc.ordinal();
+		int victim = -1;
+		for (int p = 0; p < registers; p++) {
+			if (locked[c][p]) continue;
+			if (holds[c][p] == Register.NONE) return p;
+			if (victim < 0 || nextUse[c][p] > nextUse[c][victim]
+					|| (nextUse[c][p] == nextUse[c][victim] && dirty[c][victim] && !dirty[c][p])) {
+				victim = p;
+			}
+		}
+		if (victim < 0) {
+			throw new Error("No " + rc + " register left to allocate");
+		}
+		int v = holds[c][victim];
+		if (dirty[c][victim] && nextUse[c][victim] != NEVER) {
+			out.add(store(physical(rc, victim), v));
+		}
+		free(v);
+		return victim;
+	}
+
+	/* Store the dirty values that later blocks read */
+	private void writeBack(BitSet liveOut) {
+		for (RegClass rc : RegClass.values()) {
+			int c = rc.ordinal();
+			for (int p = 0; p < registers; p++) {
+				int v = holds[c][p];
+				if (v != Register.NONE && dirty[c][p] && liveOut.get(Register.index(v))) {
+					out.add(store(physical(rc, p), v));
+					dirty[c][p] = false;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package assembly;
+
+import java.util.BitSet;
+
+import assembly.ControlFlowGraph.BasicBlock;
+import assembly.instructions.Instruction;
+import assembly.instructions.Instruction.Operand;
+import assembly.instructions.Register;
+
+/**
+ * Definitions of virtual registers that reach each point: the instructions whose
+ * write to a register may still be the value it holds there. Forward, union; bits
+ * are indexes into {@link ControlFlowGraph#getCode}.
+ */
+public class ReachingDefinitions extends Dataflow {
+
+	private final BitSet[] defsOf; //register index -> instructions that write it
+
+	public ReachingDefinitions(ControlFlowGraph cfg) {
+		super(cfg, Direction.FORWARD, Meet.UNION, cfg.getCode().length);
+		Instruction[] code = cfg.getCode();
+		defsOf = new BitSet[Liveness.registerCount(code)];
+		for (int i = 0; i < code.length; i++) {
+			int d = dest(code[i]);
+			if (d < 0) continue;
+			if (defsOf[d] == null) defsOf[d] = new BitSet();
+			defsOf[d].set(i);
+		}
+		solve();
+	}
+
+	@Override
+	protected void summarize(BasicBlock b, BitSet gen, BitSet kill) {
+		Instruction[] code = cfg.getCode();
+		for (int i = b.start; i < b.end; i++) {
+			int d = dest(code[i]);
+			if (d < 0) continue;
+			gen.andNot(defsOf[d]);
+			gen.set(i);
+			kill.or(defsOf[d]);
+		}
+	}
+
+	/**
+	 * @return the instructions that write the virtual register with index <code>reg</code>
+	 */
+	public BitSet definitionsOf(int reg) {
+		return (reg < defsOf.length && defsOf[reg] != null) ? defsOf[reg] : new BitSet();
+	}
+
+	/* Index of the virtual register the instruction writes, or -1 */
+	private static int dest(Instruction i) {
+		if (i.getOC() == null) return -1;
+		int d = i.getOperand(Operand.DEST);
+		return Register.isVirtual(d) ? Register.index(d) : -1;
+	}
+}
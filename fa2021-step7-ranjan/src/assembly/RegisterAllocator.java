@@ -0,0 +1,148 @@
+package assembly;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import assembly.instructions.Flw;
+import assembly.instructions.Fsw;
+import assembly.instructions.Instruction;
+import assembly.instructions.Lw;
+import assembly.instructions.Register;
+import assembly.instructions.Register.RegClass;
+import assembly.instructions.Sw;
+import compiler.LocalScope;
+
+/**
+ * Maps the virtual registers of one function's code onto physical registers.
+ *
+ * Each register class gets the first <code>registers</code> of the registers in
+ * {@link Register#allocatable}. A virtual register that does not fit is kept in a
+ * slot of the function's frame, made on demand with {@link LocalScope#addSpillSlot},
+ * and loaded and stored around its uses. Physical operands (fp, sp, ra, ...) are
+ * left alone.
+ *
+ * The allocator rewrites the instructions it is given in place and returns the
+ * code with the loads and stores it added.
+ */
+public abstract class RegisterAllocator {
+
+	/**
+	 * The allocators, as chosen with <code>--allocator</code>
+	 */
+	public enum Kind {
+		LOCAL,
+		COLORING,
+		LINEAR
+	}
+
+	protected final int registers; //per register class
+	private final LocalScope scope;
+	private int[] slots = new int[0]; //frame offset of each virtual register's slot, by index; 0 if it has none
+
+	protected int spillStores;
+	protected int reloads;
+	protected int movesRemoved;
+
+	/**
+	 * @param registers how many registers of each class the code may use (at least 2)
+	 * @param scope scope of the function, where spill slots go
+	 */
+	protected RegisterAllocator(int registers, LocalScope scope) {
+		if (registers < 2) {
+			throw new Error("Cannot allocate registers with fewer than 2 of each class");
+		}
+		this.registers = Math.min(registers, maxRegisters());
+		this.scope = scope;
+	}
+
+	/**
+	 * @return how many registers of each class there are to allocate; the default for <code>--registers</code>
+	 */
+	public static int maxRegisters() {
+		return Math.min(Register.allocatableCount(RegClass.INT), Register.allocatableCount(RegClass.FLOAT));
+	}
+
+	/**
+	 * @return a new allocator of the given kind
+	 */
+	public static RegisterAllocator create(Kind kind, int registers, LocalScope scope) {
+		switch (kind) {
+			case LOCAL: return new LocalRegisterAllocator(registers, scope);
+			case COLORING: return new ColoringRegisterAllocator(registers, scope);
+			case LINEAR: return new LinearScanRegisterAllocator(registers, scope);
+			default: throw new Error("Unknown register allocator " + kind);
+		}
+	}
+
+	/**
+	 * Allocate registers for a function body. Every virtual register in the result
+	 * is replaced by a physical one.
+	 */
+	public abstract InstructionList allocate(Collection<Instruction> code);
+
+	/**
+	 * @return the <code>i</code>th register of class <code>c</code>
+	 */
+	protected int physical(RegClass c, int i) {
+		return Register.allocatable(c, i);
+	}
+
+	/**
+	 * @return frame offset of the slot that holds virtual register <code>r</code> when it is not in a register
+	 */
+	protected int slot(int r) {
+		int idx = Register.index(r);
+		if (idx >= slots.length) {
+			slots = Arrays.copyOf(slots, Math.max(2 * slots.length, idx + 1));
+		}
+		if (slots[idx] == 0) {
+			slots[idx] = scope.addSpillSlot();
+		}
+		return slots[idx];
+	}
+
+	/**
+	 * @return instruction storing physical register <code>reg</code> to the slot of virtual register <code>r</code>
+	 */
+	protected Instruction store(int reg, int r) {
+		spillStores++;
+		String offset = String.valueOf(slot(r));
+		if (Register.regClass(r) == RegClass.INT) {
+			return new Sw(reg, Register.FP, offset);
+		}
+		return new Fsw(reg, Register.FP, offset);
+	}
+
+	/**
+	 * @return instruction loading physical register <code>reg</code> from the slot of virtual register <code>r</code>
+	 */
+	protected Instruction load(int reg, int r) {
+		reloads++;
+		String offset = String.valueOf(slot(r));
+		if (Register.regClass(r) == RegClass.INT) {
+			return new Lw(reg, Register.FP, offset);
+		}
+		return new Flw(reg, Register.FP, offset);
+	}
+
+	/**
+	 * @return how many stores to spill slots the allocator added
+	 */
+	public int getSpillStores() {
+		return spillStores;
+	}
+
+	/**
+	 * @return how many loads from spill slots the allocator added
+	 */
+	public int getReloads() {
+		return reloads;
+	}
+
+	/**
+	 * @return how many register-to-register moves the allocator made unnecessary and removed
+	 */
+	public int getMovesRemoved() {
+		return movesRemoved;
+	}
+}
@@ -1,13 +1,15 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Class corresponding to RISC-V ADDI instruction
  * 
  * Models: addi dest src1 imm #dest = src1 + imm
  * 
- * Uses the <code>toString</code> method of {@link Instruction3O} to emit code
+ * Like {@link Instruction3O}, but the second source is an immediate
  */
-public class Addi extends Instruction3O {
+public class Addi extends Instruction {
 
     /**
      * Initializes an ADDI instruction that will print: ADDI dest src1 src2
@@ -16,9 +18,24 @@ public class Addi extends Instruction3O {
      * @param imm source operand 2
      * @param dest destination operand
      */
-    public Addi(String src1, String imm, String dest) {
-        super(src1, imm, dest);
+    public Addi(int src1, String imm, int dest) {
+        super();
+        this.src1 = src1;
+        this.dest = dest;
+        this.label = imm;
         this.oc = OpCode.ADDI;
     }
-    
+
+    /**
+     * @return "ADDI dest src1 imm"
+     */
+    public String toString() {
+        return this.oc + " " + Register.toString(this.dest) + ", " + Register.toString(this.src1) + ", " + this.label;
+    }
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(oc).print(' ').printRegister(dest).print(", ").printRegister(src1).print(", ").print(label);
+    }
+
 }
\ No newline at end of file
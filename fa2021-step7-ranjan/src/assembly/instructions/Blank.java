@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Dummy instruction that just prints a blank space
  */
@@ -15,4 +17,8 @@ public class Blank extends Instruction {
     public String toString() {
         return "";
     }
+
+    @Override
+    public void emit(AsmEmitter out) {
+    }
 }
\ No newline at end of file
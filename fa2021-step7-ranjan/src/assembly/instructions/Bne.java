@@ -12,7 +12,7 @@ public class Bne extends InstructionBranch {
      * 
      * @param dest Destination register
      */
-    public Bne(String src1, String src2, String label) {
+    public Bne(int src1, int src2, String label) {
         super(src1, src2, label);
         this.oc = OpCode.BNE;
     }
@@ -16,7 +16,7 @@ public class FDiv extends Instruction3O {
      * @param src2 source operand 2
      * @param dest destination operand
      */
-    public FDiv(String src1, String src2, String dest) {
+    public FDiv(int src1, int src2, int dest) {
         super(src1, src2, dest);
         this.oc = OpCode.FDIVS;
     }
@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Class corresponding to RISC-V pseudo instruction FIMM.S
  * 
@@ -13,7 +15,7 @@ public class FImm extends Instruction {
      * @param dest destination operand
      * @param value value to put in destination
      */
-    public FImm(String dest, String value) {
+    public FImm(int dest, String value) {
         super();
         this.dest = dest;
         this.label = value;
@@ -24,6 +26,11 @@ public class FImm extends Instruction {
      * @return "fimm.s dest label" with label printed as decimal
      */
     public String toString() {
-        return this.oc + " " + this.dest + ", " + this.label;
+        return this.oc + " " + Register.toString(this.dest) + ", " + this.label;
+    }
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(oc).print(' ').printRegister(dest).print(", ").print(label);
     }
 }
\ No newline at end of file
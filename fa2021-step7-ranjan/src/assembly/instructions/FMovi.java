@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 public class FMovi extends Instruction{
     /**
      * Initializes a Float mov to Int instruction that will print: FMOIV.s dest src
@@ -8,7 +10,7 @@ public class FMovi extends Instruction{
      * @param dest destination operand
      */
 
-    public FMovi(String src, String dest) {
+    public FMovi(int src, int dest) {
         super();
         this.src1 = src;
         this.dest = dest;
@@ -19,6 +21,11 @@ public class FMovi extends Instruction{
      * @return "FMOIV.s dest src"
      */
     public String toString() {
-        return this.oc + " " + this.dest + ", " + this.src1;
+        return this.oc + " " + Register.toString(this.dest) + ", " + Register.toString(this.src1);
     }  
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(oc).print(' ').printRegister(dest).print(", ").printRegister(src1);
+    }
 }
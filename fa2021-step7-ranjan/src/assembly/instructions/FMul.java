@@ -16,7 +16,7 @@ public class FMul extends Instruction3O {
      * @param src2 source operand 2
      * @param dest destination operand
      */
-    public FMul(String src1, String src2, String dest) {
+    public FMul(int src1, int src2, int dest) {
         super(src1, src2, dest);
         this.oc = OpCode.FMULS;
     }
@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Class corresponding to RISC-V FNEG instruction
  * 
@@ -14,7 +16,7 @@ public class FNeg extends Instruction {
      * @param dest destination operand
      */
 
-    public FNeg(String src, String dest) {
+    public FNeg(int src, int dest) {
         super();
         this.src1 = src;
         this.dest = dest;
@@ -25,6 +27,11 @@ public class FNeg extends Instruction {
      * @return "FNEG.S dest src"
      */
     public String toString() {
-        return this.oc + " " + this.dest + ", " + this.src1;
+        return this.oc + " " + Register.toString(this.dest) + ", " + Register.toString(this.src1);
+    }
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(oc).print(' ').printRegister(dest).print(", ").printRegister(src1);
     }
 }
\ No newline at end of file
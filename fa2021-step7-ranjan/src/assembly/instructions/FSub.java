@@ -16,7 +16,7 @@ public class FSub extends Instruction3O {
      * @param src2 source operand 2
      * @param dest destination operand
      */
-    public FSub(String src1, String src2, String dest) {
+    public FSub(int src1, int src2, int dest) {
         super(src1, src2, dest);
         this.oc = OpCode.FSUBS;
     }
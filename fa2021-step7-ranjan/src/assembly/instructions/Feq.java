@@ -16,7 +16,7 @@ public class Feq extends Instruction3O {
      * @param src2 source operand 2
      * @param dest destination operand
      */
-    public Feq(String src1, String src2, String dest) {
+    public Feq(int src1, int src2, int dest) {
         super(src1, src2, dest);
         this.oc = OpCode.FEQ;
     }
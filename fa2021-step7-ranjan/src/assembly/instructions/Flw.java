@@ -15,8 +15,8 @@ public class Flw extends InstructionLS {
      * @param baseAddress register operand holding base address
      * @param offset immediate offset
      */
-    public Flw(String dest, String baseAddress, String offset) {
-        super(dest, baseAddress, offset);
+    public Flw(int dest, int baseAddress, String offset) {
+        super(dest, baseAddress, offset, false);
         this.oc = OpCode.FLW;
     }
     
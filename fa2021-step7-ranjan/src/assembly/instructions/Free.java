@@ -1,15 +1,15 @@
 package assembly.instructions;
 
-public class Free extends Instruction {
+import assembly.AsmEmitter;
 
-    String src;
+public class Free extends Instruction {
 
     /**
      * Models the magic instruction MALLOC
      */
-    public Free(String src) {
+    public Free(int src) {
         super();
-        this.src = src;
+        this.src1 = src;
         this.oc = OpCode.FREE;
     }
 
@@ -17,6 +17,11 @@ public class Free extends Instruction {
      * @return "HALT"
      */
     public String toString() {
-        return String.valueOf(this.oc) + " " + src;
+        return String.valueOf(this.oc) + " " + Register.toString(src1);
+    }
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(oc).print(' ').printRegister(src1);
     }
 }
\ No newline at end of file
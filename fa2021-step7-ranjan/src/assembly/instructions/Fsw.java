@@ -14,8 +14,8 @@ public class Fsw extends InstructionLS {
      * @param baseAddress register holding base address
      * @param offset immediate holding address offset
      */
-    public Fsw(String src, String baseAddress, String offset) {
-        super(src, baseAddress, offset);
+    public Fsw(int src, int baseAddress, String offset) {
+        super(src, baseAddress, offset, true);
         this.oc = OpCode.FSW;
     }
     
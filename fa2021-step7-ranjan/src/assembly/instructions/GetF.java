@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Class for magic instruction to read float from user
  * 
@@ -12,7 +14,7 @@ public class GetF extends Instruction {
      * 
      * @param dest Destination register
      */
-    public GetF(String dest) {
+    public GetF(int dest) {
         super();
         this.dest = dest;
         this.oc = OpCode.GETF;
@@ -22,6 +24,11 @@ public class GetF extends Instruction {
      * @return "GETF dest"
      */
     public String toString() {
-        return this.oc + " " + this.dest;
+        return this.oc + " " + Register.toString(this.dest);
+    }
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(oc).print(' ').printRegister(dest);
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 public class Halt extends Instruction {
 
     /**
@@ -16,4 +18,9 @@ public class Halt extends Instruction {
     public String toString() {
         return String.valueOf(this.oc);
     }
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(oc);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 public class Imovf extends Instruction{
 /**
      * Initializes a MV instruction that will print: IMOVF.s dest src
@@ -8,7 +10,7 @@ public class Imovf extends Instruction{
      * @param dest destination operand
      */
 
-    public Imovf(String src, String dest) {
+    public Imovf(int src, int dest) {
         super();
         this.src1 = src;
         this.dest = dest;
@@ -19,7 +21,12 @@ public class Imovf extends Instruction{
      * @return "IMOVF.s dest src"
      */
     public String toString() {
-        return this.oc + " " + this.dest + ", " + this.src1;
+        return this.oc + " " + Register.toString(this.dest) + ", " + Register.toString(this.src1);
     }
     
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(oc).print(' ').printRegister(dest).print(", ").printRegister(src1);
+    }
 }
@@ -1,81 +1,220 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+import assembly.instructions.Register.RegClass;
+
 /**
  * Superclass for all Instructions. Most fields do not have accessors
  * because they are only used in toString methods used to emit instructions.
  */
 public abstract class Instruction {
 
+	/* Register classes and properties used in the op code table below */
+	private static final RegClass I = RegClass.INT;
+	private static final RegClass F = RegClass.FLOAT;
+
+	private static final int BRANCH = 1; //conditional branch to label
+	private static final int JUMP = 2; //unconditional jump to label
+	private static final int CALL = 4; //jump to label, leaving the return address in ra
+	private static final int RETURN = 8; //jump to ra
+	private static final int LOAD = 16; //reads memory
+	private static final int STORE = 32; //writes memory
+	private static final int EFFECT = 64; //does something besides computing dest (I/O, heap, stopping)
+	private static final int STOP = 128; //ends the program
+
 	/*
 	* list of possible op codess
+	*
+	* Each op code also describes its instructions, so passes over the code can ask
+	* (in constant time) what an instruction reads and writes instead of knowing about
+	* every instruction class:
+	*
+	* 		- the register class of each register operand it has (dest, src1, src2), or
+	* 		  null for operands it does not have. dest is the only operand written
+	* 		- whether it branches, jumps, calls or returns, which decides where basic
+	* 		  blocks end
+	* 		- whether it reads or writes memory or has other side effects, which decides
+	* 		  whether it can be removed or moved
+	* 		- roughly how many cycles it takes, from the simulator's timing model
 	*/
-	enum OpCode {
-        LI("LI"),
-        LA("LA"),
-		ADD("ADD"),
-		SUB("SUB"),
-		DIV("DIV"),
-		MUL("MUL"),
-		NEG("NEG"),
-		MV("MV"),
-		LW("LW"),
-		SW("SW"),
-		PUTS("PUTS"),
-		PUTI("PUTI"),
-		GETI("GETI"),
-		HALT("HALT"),
-		ADDI("ADDI"),
+	public enum OpCode {
+		//		name		dest	src1	src2	cycles	properties
+		LI(		"LI",		I,		null,	null,	1,		0),
+		LA(		"LA",		I,		null,	null,	1,		0),
+		ADD(	"ADD",		I,		I,		I,		1,		0),
+		SUB(	"SUB",		I,		I,		I,		2,		0),
+		DIV(	"DIV",		I,		I,		I,		4,		0),
+		MUL(	"MUL",		I,		I,		I,		3,		0),
+		NEG(	"NEG",		I,		I,		null,	1,		0),
+		MV(		"MV",		I,		I,		null,	1,		0),
+		LW(		"LW",		I,		I,		null,	2,		LOAD),
+		SW(		"SW",		null,	I,		I,		1,		STORE),
+		PUTS(	"PUTS",		null,	I,		null,	1,		LOAD | EFFECT),
+		PUTI(	"PUTI",		null,	I,		null,	1,		EFFECT),
+		GETI(	"GETI",		I,		null,	null,	1,		EFFECT),
+		HALT(	"HALT",		null,	null,	null,	0,		EFFECT | STOP),
+		ADDI(	"ADDI",		I,		I,		null,	1,		0),
 		//adding int to float move inst for step 7
-		IMOVFS("IMOVF.S"),
+		IMOVFS(	"IMOVF.S",	F,		I,		null,	4,		0),
 		/* BRANCH INSTRUCTIONS */
-		BEQ("BEQ"),
-		BGE("BGE"),
-		BGT("BGT"),
-		BLE("BLE"),
-		BLT("BLT"),
-		BNE("BNE"),
-		J("J"),
+		BEQ(	"BEQ",		null,	I,		I,		1,		BRANCH),
+		BGE(	"BGE",		null,	I,		I,		1,		BRANCH),
+		BGT(	"BGT",		null,	I,		I,		1,		BRANCH),
+		BLE(	"BLE",		null,	I,		I,		1,		BRANCH),
+		BLT(	"BLT",		null,	I,		I,		1,		BRANCH),
+		BNE(	"BNE",		null,	I,		I,		1,		BRANCH),
+		J(		"J",		null,	null,	null,	1,		JUMP),
 		/* FLOAT INSTRUCTIONS */
-		FADDS("FADD.S"),
-		FSUBS("FSUB.S"),
-		FDIVS("FDIV.S"),
-		FMULS("FMUL.S"),
-		FMVS("FMV.S"),
-		FNEGS("FNEG.S"),
-		FLW("FLW"),
-		FSW("FSW"),
-		GETF("GETF"),
-		PUTF("PUTF"),
-		FIMMS("FIMM.S"),
-		FLT("FLT.S"),
-		FLE("FLE.S"),
-		FEQ("FEQ.S"),
+		FADDS(	"FADD.S",	F,		F,		F,		4,		0),
+		FSUBS(	"FSUB.S",	F,		F,		F,		4,		0),
+		FDIVS(	"FDIV.S",	F,		F,		F,		6,		0),
+		FMULS(	"FMUL.S",	F,		F,		F,		5,		0),
+		FMVS(	"FMV.S",	F,		F,		null,	1,		0),
+		FNEGS(	"FNEG.S",	F,		F,		null,	1,		0),
+		FLW(	"FLW",		F,		I,		null,	2,		LOAD),
+		FSW(	"FSW",		null,	I,		F,		1,		STORE),
+		GETF(	"GETF",		F,		null,	null,	1,		EFFECT),
+		PUTF(	"PUTF",		null,	F,		null,	1,		EFFECT),
+		FIMMS(	"FIMM.S",	F,		null,	null,	2,		0),
+		FLT(	"FLT.S",	I,		F,		F,		3,		0),
+		FLE(	"FLE.S",	I,		F,		F,		3,		0),
+		FEQ(	"FEQ.S",	I,		F,		F,		3,		0),
 		//adding float move to int inst for step 7
-		FMOVIS("FMOVI.S"),
+		FMOVIS(	"FMOVI.S",	I,		F,		null,	4,		0),
 		/* FUNCTION CALL AND RETURN */
-		JR("JR"),
-		RET("RET"),
+		JR(		"JR",		null,	null,	null,	1,		CALL),
+		RET(	"RET",		null,	null,	null,	1,		RETURN),
 		/* MALLOC AND FREE */
-		MALLOC("MALLOC"),
-		FREE("FREE");
+		MALLOC(	"MALLOC",	I,		I,		null,	1,		EFFECT),
+		FREE(	"FREE",		null,	I,		null,	1,		EFFECT);
 
 
 		private String opCodeName;
-		private OpCode(String name) {
+		private final RegClass dest;
+		private final RegClass src1;
+		private final RegClass src2;
+		private final int latency;
+		private final int properties;
+
+		private OpCode(String name, RegClass dest, RegClass src1, RegClass src2, int latency, int properties) {
 			this.opCodeName = name;
+			this.dest = dest;
+			this.src1 = src1;
+			this.src2 = src2;
+			this.latency = latency;
+			this.properties = properties;
 		}
 
 		public String toString() {
 			return this.opCodeName;
 		}
+
+		/**
+		 * @return the register class of operand <code>o</code>, or null if the op code does not have it
+		 */
+		public RegClass regClass(Operand o) {
+			switch (o) {
+				case SRC1: return src1;
+				case SRC2: return src2;
+				case DEST: return dest;
+				default: throw new Error("Shouldn't get here");
+			}
+		}
+
+		/**
+		 * @return true if operand <code>o</code> is a register the instruction writes
+		 */
+		public boolean defines(Operand o) {
+			return o == Operand.DEST && dest != null;
+		}
+
+		/**
+		 * @return true if operand <code>o</code> is a register the instruction reads
+		 */
+		public boolean uses(Operand o) {
+			return o != Operand.DEST && regClass(o) != null;
+		}
+
+		/** @return true for conditional branches, which go to their label or fall through */
+		public boolean isBranch() {
+			return (properties & BRANCH) != 0;
+		}
+
+		/** @return true for J, which always goes to its label */
+		public boolean isJump() {
+			return (properties & JUMP) != 0;
+		}
+
+		/** @return true for JR, which calls the function at its label and comes back */
+		public boolean isCall() {
+			return (properties & CALL) != 0;
+		}
+
+		/** @return true for RET */
+		public boolean isReturn() {
+			return (properties & RETURN) != 0;
+		}
+
+		/** @return true if the next instruction never runs right after this one (J, RET, HALT) */
+		public boolean isTerminator() {
+			return (properties & (JUMP | RETURN | STOP)) != 0;
+		}
+
+		/** @return true if a basic block ends after this instruction */
+		public boolean endsBlock() {
+			return (properties & (BRANCH | JUMP | CALL | RETURN | STOP)) != 0;
+		}
+
+		/** @return true if the instruction reads memory */
+		public boolean readsMemory() {
+			return (properties & LOAD) != 0;
+		}
+
+		/** @return true if the instruction writes memory */
+		public boolean writesMemory() {
+			return (properties & STORE) != 0;
+		}
+
+		/**
+		 * @return true if the instruction does something besides writing dest: I/O,
+		 * malloc and free, and HALT
+		 */
+		public boolean hasSideEffects() {
+			return (properties & EFFECT) != 0;
+		}
+
+		/**
+		 * @return true if the instruction may not be removed even if nothing reads dest:
+		 * stores, control flow and side effects
+		 */
+		public boolean isRequired() {
+			return (properties & ~LOAD) != 0;
+		}
+
+		/**
+		 * @return estimated cycles, as the simulator's timing model counts them
+		 */
+		public int getLatency() {
+			return latency;
+		}
 	}
 	
-	String src1; //holds src operand, if needed
-	String src2; //holds src operand, if needed
-	String dest; //holds destination operand, if needed
-	public String label; //holds other value (immediate, label)
+	/*
+	 * Register operands are ints (see {@link Register}), so an instruction is a few
+	 * primitive fields and nothing is formatted until it is emitted
+	 */
+	int src1 = Register.NONE; //holds src operand, if needed
+	int src2 = Register.NONE; //holds src operand, if needed
+	int dest = Register.NONE; //holds destination operand, if needed
+	public String label; //holds other value (immediate, label, address)
 	OpCode oc; //op code
-	
+
+	public enum Operand {
+		SRC1,
+		SRC2,
+		DEST
+	};
+
 	/** 
 	 * Default constructor, not used except by implementing class
 	 */
@@ -85,7 +224,49 @@ public abstract class Instruction {
     /**
 	 * @return Returns destination of instruction. Useful for code generation
 	 */
-    public String getDest() {
+    public int getDest() {
         return this.dest;
     }
+
+    /**
+     * @return the register in operand <code>o</code>, or {@link Register#NONE}
+     */
+    public int getOperand(Operand o) {
+        switch (o) {
+            case SRC1: return src1;
+            case SRC2: return src2;
+            case DEST: return dest;
+            default: throw new Error("Shouldn't get here");
+        }
+    }
+
+    /**
+     * Replace the register in operand <code>o</code>, e.g. a virtual register with
+     * the physical register it was given
+     */
+    public void setOperand(Operand o, int reg) {
+        switch (o) {
+            case SRC1: src1 = reg; break;
+            case SRC2: src2 = reg; break;
+            case DEST: dest = reg; break;
+            default: throw new Error("Shouldn't get here");
+        }
+    }
+
+    /**
+     * @return the op code, or null for labels and blank lines
+     */
+    public OpCode getOC() {
+        return this.oc;
+    }
+
+    /**
+     * Write this instruction, without a newline, the same as {@link #toString} would
+     * print it but without building a String
+     *
+     * @param out emitter to write to
+     */
+    public void emit(AsmEmitter out) {
+        out.print(toString());
+    }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Superclass for 3-operand instructions
  * 
@@ -7,7 +9,7 @@ package assembly.instructions;
  */
 public abstract class Instruction3O extends Instruction {
 	
-	protected Instruction3O(String src1, String src2, String dest) {
+	protected Instruction3O(int src1, int src2, int dest) {
 		super();
 
 		this.src1 = src1;
@@ -19,6 +21,11 @@ public abstract class Instruction3O extends Instruction {
 	 * @return "op dest src1 src2"
 	 */
 	public String toString() {
-		return this.oc + " " + this.dest + ", " + this.src1 + ", " + this.src2;
+		return this.oc + " " + Register.toString(this.dest) + ", " + Register.toString(this.src1) + ", " + Register.toString(this.src2);
+	}
+
+	@Override
+	public void emit(AsmEmitter out) {
+		out.print(oc).print(' ').printRegister(dest).print(", ").printRegister(src1).print(", ").printRegister(src2);
 	}
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Superclass for branch instructions
  * 
@@ -7,7 +9,7 @@ package assembly.instructions;
  */
 public abstract class InstructionBranch extends Instruction {
 	
-	protected InstructionBranch(String src1, String src2, String label) {
+	protected InstructionBranch(int src1, int src2, String label) {
 		super();
 
 		this.src1 = src1;
@@ -19,6 +21,11 @@ public abstract class InstructionBranch extends Instruction {
 	 * @return "op dest src1 src2"
 	 */
 	public String toString() {
-		return this.oc + " " + this.src1 + ", " + this.src2 + ", " + this.label;
+		return this.oc + " " + Register.toString(this.src1) + ", " + Register.toString(this.src2) + ", " + this.label;
+	}
+
+	@Override
+	public void emit(AsmEmitter out) {
+		out.print(oc).print(' ').printRegister(src1).print(", ").printRegister(src2).print(", ").print(label);
 	}
 }
\ No newline at end of file
@@ -1,23 +1,44 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Absstract class for load store instructions. Used because they print the same way:
+ *
+ * 		op reg1 offset(reg2)
+ *
+ * A load writes reg1, so it is kept as the destination; a store reads it, so it is
+ * kept as the second source.
  */
 public abstract class InstructionLS extends Instruction {
 	
 
-	InstructionLS(String reg1, String reg2, String offset) {
+	InstructionLS(int reg1, int reg2, String offset, boolean store) {
 		super();
 
-		this.dest = reg1;
+		if (store) {
+			this.src2 = reg1;
+		} else {
+			this.dest = reg1;
+		}
 		this.src1 = reg2;
 		this.label = offset;
 	}
 
+	/* The register before the offset: what is loaded into or stored from */
+	private int reg1() {
+		return (dest != Register.NONE) ? dest : src2;
+	}
+
 	/**
-	 * @return "op dest label(src1)"
+	 * @return "op reg1 label(src1)"
 	 */
 	public String toString() {
-		return this.oc + " " + this.dest + ", " + this.label + "(" + this.src1 + ")";
+		return this.oc + " " + Register.toString(reg1()) + ", " + this.label + "(" + Register.toString(this.src1) + ")";
+	}
+
+	@Override
+	public void emit(AsmEmitter out) {
+		out.print(oc).print(' ').printRegister(reg1()).print(", ").print(label).print('(').printRegister(src1).print(')');
 	}
 }
\ No newline at end of file
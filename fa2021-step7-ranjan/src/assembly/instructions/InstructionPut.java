@@ -1,11 +1,13 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Abstract class for put instructions, used for puts and puti
  */
 public abstract class InstructionPut extends Instruction {
 
-    InstructionPut(String src) {
+    InstructionPut(int src) {
         this.src1 = src;
     }
 
@@ -13,7 +15,12 @@ public abstract class InstructionPut extends Instruction {
      * @return "op src1"
      */
     public String toString() {
-        return this.oc + " " + src1;
+        return this.oc + " " + Register.toString(src1);
     }
     
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(oc).print(' ').printRegister(src1);
+    }
 }
\ No newline at end of file
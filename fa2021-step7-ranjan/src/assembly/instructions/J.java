@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Class corresponding to RISC-V J instruction
  * 
@@ -22,4 +24,9 @@ public class J extends Instruction {
     public String toString() {
         return OpCode.J + " " + label;
     }
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(OpCode.J).print(' ').print(label);
+    }
 }
\ No newline at end of file
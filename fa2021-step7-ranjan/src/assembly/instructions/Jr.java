@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Class corresponding to RISC-V JR instruction
  * 
@@ -22,4 +24,9 @@ public class Jr extends Instruction {
     public String toString() {
         return OpCode.JR + " " + label;
     }
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(OpCode.JR).print(' ').print(label);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Class corresponding to RISC-V pseudo-instruction LA
  * 
@@ -13,7 +15,7 @@ public class La extends Instruction {
      * @param dest destination operand
      * @param address address to put in destination
      */
-    public La(String dest, String address) {
+    public La(int dest, String address) {
         super();
         this.dest = dest;
         this.label = address;
@@ -24,6 +26,11 @@ public class La extends Instruction {
      * @return "LA dest address"
      */
     public String toString() {
-        return this.oc + " " + this.dest + ", " + this.label;
+        return this.oc + " " + Register.toString(this.dest) + ", " + this.label;
+    }
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(oc).print(' ').printRegister(dest).print(", ").print(label);
     }
 }
\ No newline at end of file
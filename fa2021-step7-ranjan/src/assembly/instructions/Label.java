@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Label for jump targets
  */
@@ -19,4 +21,9 @@ public class Label extends Instruction {
     public String toString() {
         return label + ":";
     }
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(label).print(':');
+    }
 }
\ No newline at end of file
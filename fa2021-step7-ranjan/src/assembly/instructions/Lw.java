@@ -15,8 +15,8 @@ public class Lw extends InstructionLS {
      * @param baseAddress register operand holding base address
      * @param offset immediate offset
      */
-    public Lw(String dest, String baseAddress, String offset) {
-        super(dest, baseAddress, offset);
+    public Lw(int dest, int baseAddress, String offset) {
+        super(dest, baseAddress, offset, false);
         this.oc = OpCode.LW;
     }
     
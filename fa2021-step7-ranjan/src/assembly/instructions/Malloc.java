@@ -1,17 +1,16 @@
 package assembly.instructions;
 
-public class Malloc extends Instruction {
+import assembly.AsmEmitter;
 
-    String src;
-    String dst;
+public class Malloc extends Instruction {
 
     /**
      * Models the magic instruction MALLOC
      */
-    public Malloc(String src, String dst) {
+    public Malloc(int src, int dst) {
         super();
-        this.src = src;
-        this.dst = dst;
+        this.src1 = src;
+        this.dest = dst;
         this.oc = OpCode.MALLOC;
     }
 
@@ -19,6 +18,11 @@ public class Malloc extends Instruction {
      * @return "HALT"
      */
     public String toString() {
-        return String.valueOf(this.oc) + " " + dst + ", " + src;
+        return String.valueOf(this.oc) + " " + Register.toString(dest) + ", " + Register.toString(src1);
+    }
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(oc).print(' ').printRegister(dest).print(", ").printRegister(src1);
     }
 }
\ No newline at end of file
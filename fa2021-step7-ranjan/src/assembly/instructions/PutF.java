@@ -14,7 +14,7 @@ public class PutF extends InstructionPut {
      * 
      * @param srcValue register holding the value to print
      */
-    public PutF(String srcValue) {
+    public PutF(int srcValue) {
         super(srcValue);
         this.oc = OpCode.PUTF;
     }
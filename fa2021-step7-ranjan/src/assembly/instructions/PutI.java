@@ -14,7 +14,7 @@ public class PutI extends InstructionPut {
      * 
      * @param srcValue register holding the value to print
      */
-    public PutI(String srcValue) {
+    public PutI(int srcValue) {
         super(srcValue);
         this.oc = OpCode.PUTI;
     }
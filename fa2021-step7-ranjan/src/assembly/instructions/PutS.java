@@ -14,7 +14,7 @@ public class PutS extends InstructionPut {
      * 
      * @param srcAddress register holding address of string to print
      */
-    public PutS(String srcAddress) {
+    public PutS(int srcAddress) {
         super(srcAddress);
         this.oc = OpCode.PUTS;
     }
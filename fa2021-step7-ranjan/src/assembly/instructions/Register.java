@@ -0,0 +1,189 @@
+package assembly.instructions;
+
+import assembly.AsmEmitter;
+
+/**
+ * Register operands. A register is a plain int, so instructions keep their operands
+ * in primitive fields and analyses can index arrays and BitSets by register:
+ *
+ * 		bits 31..2	register number
+ * 		bit 1		1 if physical, 0 if virtual
+ * 		bit 0		register class: 1 for FLOAT, 0 for INT
+ *
+ * Virtual registers are the temps code generation makes (t1, t2, ... and f1, f2, ...),
+ * numbered from 1 in each function. Physical registers are the machine's x0..x255 and
+ * f0..f255, printed with their usual names (x0, ra, sp, fp, a0, ft0, ...). Nothing is
+ * turned into text until the instruction is emitted.
+ */
+public final class Register {
+
+	public enum RegClass {
+		INT,
+		FLOAT
+	}
+
+	/** No register: the operand is not used by the instruction */
+	public static final int NONE = -1;
+
+	public static final int X0 = physical(RegClass.INT, 0);
+	public static final int RA = physical(RegClass.INT, 1);
+	public static final int SP = physical(RegClass.INT, 2);
+	public static final int FP = physical(RegClass.INT, 8);
+
+	/** How many arguments of each class go in registers under the register calling convention */
+	public static final int ARG_REGISTERS = 8;
+
+	/* Names of x0..x31 and f0..f31; the simulator calls the ones past 31 t7... and ft12... */
+	private static final String[] INT_NAMES = {
+		"x0", "ra", "sp", "gp", "tp", "t0", "t1", "t2", "fp", "s1", "a0", "a1", "a2", "a3", "a4", "a5",
+		"a6", "a7", "s2", "s3", "s4", "s5", "s6", "s7", "s8", "s9", "s10", "s11", "t3", "t4", "t5", "t6"
+	};
+	private static final String[] FLOAT_NAMES = {
+		"ft0", "ft1", "ft2", "ft3", "ft4", "ft5", "ft6", "ft7", "fs0", "fs1", "fa0", "fa1", "fa2", "fa3", "fa4", "fa5",
+		"fa6", "fa7", "fs2", "fs3", "fs4", "fs5", "fs6", "fs7", "fs8", "fs9", "fs10", "fs11", "ft8", "ft9", "ft10", "ft11"
+	};
+
+	/*
+	 * Registers the allocators hand out, in the order they hand them out. Left out
+	 * are x0, ra, sp, gp, tp, fp and the argument registers a0-a7 and fa0-fa7
+	 */
+	private static final int[] INT_POOL = pool(RegClass.INT, 256, 0, 1, 2, 3, 4, 8, 10, 11, 12, 13, 14, 15, 16, 17);
+	private static final int[] FLOAT_POOL = pool(RegClass.FLOAT, 256, 10, 11, 12, 13, 14, 15, 16, 17);
+	private static final boolean[][] POOLED = {pooled(INT_POOL), pooled(FLOAT_POOL)}; //by class and number
+
+	private Register() {
+	}
+
+	private static int[] pool(RegClass c, int count, int... reserved) {
+		int[] order = new int[count - reserved.length];
+		int n = 0;
+		//the usual temporaries and saved registers first, so small programs read like RISC-V
+		int[] first = (c == RegClass.INT) ? new int[] {5, 6, 7, 28, 29, 30, 31, 9, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27} : new int[0];
+		boolean[] taken = new boolean[count];
+		for (int r : reserved) taken[r] = true;
+		for (int r : first) {
+			order[n++] = physical(c, r);
+			taken[r] = true;
+		}
+		for (int r = 0; r < count; r++) {
+			if (!taken[r]) order[n++] = physical(c, r);
+		}
+		return order;
+	}
+
+	private static boolean[] pooled(int[] pool) {
+		boolean[] in = new boolean[256];
+		for (int r : pool) in[number(r)] = true;
+		return in;
+	}
+
+	/**
+	 * @return how many registers of class <code>c</code> the allocators can use
+	 */
+	public static int allocatableCount(RegClass c) {
+		return (c == RegClass.INT) ? INT_POOL.length : FLOAT_POOL.length;
+	}
+
+	/**
+	 * @return the <code>i</code>th register of class <code>c</code> the allocators use
+	 */
+	public static int allocatable(RegClass c, int i) {
+		return (c == RegClass.INT) ? INT_POOL[i] : FLOAT_POOL[i];
+	}
+
+	/**
+	 * @return argument register <code>k</code> of class <code>c</code> (a<i>k</i> or fa<i>k</i>), which also holds a result when <code>k</code> is 0
+	 */
+	public static int arg(RegClass c, int k) {
+		return physical(c, 10 + k);
+	}
+
+	/**
+	 * Whether a function has to give physical register <code>r</code> back to its caller
+	 * as it found it. Callers keep values in registers across calls without saving
+	 * them, so that is every register the allocators hand out. The argument registers,
+	 * ra (saved by the caller around the call), sp and fp (reset by the epilogue) are not.
+	 */
+	public static boolean isCalleeSaved(int r) {
+		if (isVirtual(r)) {
+			throw new Error("Virtual register " + toString(r) + " was never allocated");
+		}
+		int n = number(r);
+		return n < 256 && POOLED[regClass(r).ordinal()][n];
+	}
+
+	/**
+	 * @return virtual register <code>n</code> (t<i>n</i> or f<i>n</i>)
+	 */
+	public static int virtual(RegClass c, int n) {
+		return (n << 2) | c.ordinal();
+	}
+
+	/**
+	 * @return physical register <code>n</code> (x<i>n</i> or f<i>n</i>)
+	 */
+	public static int physical(RegClass c, int n) {
+		return (n << 2) | 2 | c.ordinal();
+	}
+
+	public static boolean isVirtual(int r) {
+		return r != NONE && (r & 2) == 0;
+	}
+
+	public static boolean isPhysical(int r) {
+		return r != NONE && (r & 2) != 0;
+	}
+
+	public static RegClass regClass(int r) {
+		return ((r & 1) == 0) ? RegClass.INT : RegClass.FLOAT;
+	}
+
+	public static int number(int r) {
+		return r >>> 2;
+	}
+
+	/**
+	 * Dense index of a virtual register, for indexing arrays and BitSets: t<i>n</i>
+	 * is 2<i>n</i> and f<i>n</i> is 2<i>n</i>+1
+	 */
+	public static int index(int r) {
+		return (r >>> 1) | (r & 1);
+	}
+
+	/**
+	 * @return the virtual register with the given {@link #index}
+	 */
+	public static int fromIndex(int index) {
+		return ((index >>> 1) << 2) | (index & 1);
+	}
+
+	/**
+	 * @return how many indexes the virtual registers of a function with the given temp counts need
+	 */
+	public static int indexCount(int intTemps, int floatTemps) {
+		return 2 * Math.max(intTemps, floatTemps) + 2;
+	}
+
+	public static String toString(int r) {
+		if (r == NONE) return "null";
+		int n = number(r);
+		if (isVirtual(r)) {
+			return ((regClass(r) == RegClass.INT) ? "t" : "f") + n;
+		}
+		if (regClass(r) == RegClass.INT) {
+			return (n < INT_NAMES.length) ? INT_NAMES[n] : "t" + (n - 25);
+		}
+		return (n < FLOAT_NAMES.length) ? FLOAT_NAMES[n] : "ft" + (n - 20);
+	}
+
+	/**
+	 * Write the register's name without building a String for it
+	 */
+	public static void emit(AsmEmitter out, int r) {
+		if (isVirtual(r)) {
+			out.print((regClass(r) == RegClass.INT) ? 't' : 'f').print(number(r));
+		} else {
+			out.print(toString(r));
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package assembly.instructions;
 
+import assembly.AsmEmitter;
+
 /**
  * Class for return instruction
  * 
@@ -21,4 +23,9 @@ public class Ret extends Instruction {
     public String toString() {
         return String.valueOf(this.oc);
     }
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(oc);
+    }
 }
\ No newline at end of file
@@ -14,8 +14,8 @@ public class Sw extends InstructionLS {
      * @param baseAddress register holding base address
      * @param offset immediate holding address offset
      */
-    public Sw(String src, String baseAddress, String offset) {
-        super(src, baseAddress, offset);
+    public Sw(int src, int baseAddress, String offset) {
+        super(src, baseAddress, offset, true);
         this.oc = OpCode.SW;
     }
     
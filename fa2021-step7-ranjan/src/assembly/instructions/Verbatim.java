@@ -0,0 +1,44 @@
+package assembly.instructions;
+
+import java.util.Map;
+
+import assembly.AsmEmitter;
+
+/**
+ * A run of instructions kept as the text they were emitted as, one per line, e.g.
+ * when a function's code is reused from {@link compiler.FunctionCache}. Prints
+ * exactly that text, and has no op code of its own.
+ */
+public class Verbatim extends Instruction {
+
+    private final Map<OpCode, Integer> opCodes;
+
+    /**
+     * @param text the instructions as they were emitted, without a newline after the last
+     * @param opCodes how many of the instructions have each op code
+     */
+    public Verbatim(String text, Map<OpCode, Integer> opCodes) {
+        super();
+        this.label = text;
+        this.opCodes = opCodes;
+    }
+
+    /**
+     * @return how many of the instructions have each op code
+     */
+    public Map<OpCode, Integer> getOpCodes() {
+        return opCodes;
+    }
+
+    /**
+     * @return the text it was created with
+     */
+    public String toString() {
+        return label;
+    }
+
+    @Override
+    public void emit(AsmEmitter out) {
+        out.print(label);
+    }
+}
@@ -5,7 +5,7 @@ import compiler.Scope;
 import java.util.List;
 
 import ast.visitor.ASTVisitor;
-import compiler.Compiler;
+import compiler.CompilationContext;
 
 public class CallNode extends AbstractCallNode {
 
@@ -13,8 +13,8 @@ public class CallNode extends AbstractCallNode {
     String funcName;
     Scope.FunctionSymbolTableEntry ste;
 
-    public CallNode(String funcName, List<ExpressionNode> args) {
-        this.ste = (Scope.FunctionSymbolTableEntry) Compiler.symbolTable.getFunctionSymbol(funcName);
+    public CallNode(String funcName, List<ExpressionNode> args, CompilationContext ctx) {
+        this.ste = ctx.getSymbolTable().getFunctionSymbol(funcName);
         this.funcName = funcName;
         this.args = args;
         this.type = ste.getReturnType();
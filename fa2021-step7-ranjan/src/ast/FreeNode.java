@@ -3,7 +3,6 @@ package ast;
 import compiler.Scope;
 
 import ast.visitor.ASTVisitor;
-import compiler.Compiler;
 
 public class FreeNode extends AbstractCallNode {
 
@@ -12,9 +11,8 @@ public class FreeNode extends AbstractCallNode {
     Scope.FunctionSymbolTableEntry ste;
 
     public FreeNode(ExpressionNode arg) {
-        this.ste = (Scope.FunctionSymbolTableEntry) Compiler.symbolTable.getFunctionSymbol(funcName);
         this.arg = arg;
-        this.type = new Scope.Type(Scope.InnerType.VOID); //set this to void
+        this.type = Scope.Type.VOID; //set this to void
     }
 
     @Override
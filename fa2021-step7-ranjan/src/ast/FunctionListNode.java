@@ -1,6 +1,6 @@
 package ast;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import ast.visitor.ASTVisitor;
@@ -18,7 +18,7 @@ public class FunctionListNode implements ASTNode {
 	 * An empty statement list node
 	 */
 	public FunctionListNode() {
-		functions = new LinkedList<FunctionNode>();
+		functions = new ArrayList<FunctionNode>();
 	}
 	
 	/**
@@ -27,7 +27,7 @@ public class FunctionListNode implements ASTNode {
 	 * @param f the statement
 	 */
 	public FunctionListNode(FunctionNode f) {
-		functions = new LinkedList<FunctionNode>();
+		functions = new ArrayList<FunctionNode>();
 		functions.add(f);
 	}
 	
@@ -39,7 +39,7 @@ public class FunctionListNode implements ASTNode {
 	 * @param fl The rests of the statements
 	 */
 	public FunctionListNode(FunctionNode f, FunctionListNode fl) {
-		functions = new LinkedList<FunctionNode>();
+		functions = new ArrayList<FunctionNode>();
 		functions.add(f);
 		functions.addAll(fl.functions);
 	}
@@ -52,11 +52,21 @@ public class FunctionListNode implements ASTNode {
 	 * @param f The last statement
 	 */
 	public FunctionListNode(FunctionListNode fl, FunctionNode f) {
-		functions = new LinkedList<FunctionNode>();
+		functions = new ArrayList<FunctionNode>();
 		functions.addAll(fl.functions);
 		functions.add(f);
 	}
 	
+	/**
+	 * Append a function to the end of the list. The parser builds lists this
+	 * way, so a list of n functions costs O(n) to construct.
+	 * 
+	 * @param f the function to append
+	 */
+	public void add(FunctionNode f) {
+		functions.add(f);
+	}
+	
 	@Override
 	public <R> R accept(ASTVisitor<R> visitor) {
 		return visitor.visit(this);
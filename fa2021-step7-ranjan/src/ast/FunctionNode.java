@@ -9,6 +9,8 @@ public class FunctionNode implements StatementNode {
     private String funcName;
 
     private LocalScope scope;
+
+    private String source; //the function's tokens, kept when functions are cached
     
     public FunctionNode(StatementListNode funcBody, String funcName, LocalScope scope) {
         this.funcBody = funcBody;
@@ -36,5 +38,16 @@ public class FunctionNode implements StatementNode {
     public LocalScope getScope() {
         return scope;
     }
+
+    /**
+     * @return the text of the function's tokens separated by spaces, or null if it was not kept
+     */
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
     
 }
\ No newline at end of file
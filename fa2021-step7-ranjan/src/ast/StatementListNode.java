@@ -1,6 +1,6 @@
 package ast;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import ast.visitor.ASTVisitor;
@@ -18,7 +18,7 @@ public class StatementListNode implements ASTNode {
 	 * An empty statement list node
 	 */
 	public StatementListNode() {
-		statements = new LinkedList<StatementNode>();
+		statements = new ArrayList<StatementNode>();
 	}
 	
 	/**
@@ -27,7 +27,7 @@ public class StatementListNode implements ASTNode {
 	 * @param s the statement
 	 */
 	public StatementListNode(StatementNode s) {
-		statements = new LinkedList<StatementNode>();
+		statements = new ArrayList<StatementNode>();
 		statements.add(s);
 	}
 	
@@ -39,7 +39,7 @@ public class StatementListNode implements ASTNode {
 	 * @param sl The rests of the statements
 	 */
 	public StatementListNode(StatementNode s, StatementListNode sl) {
-		statements = new LinkedList<StatementNode>();
+		statements = new ArrayList<StatementNode>();
 		statements.add(s);
 		statements.addAll(sl.statements);
 	}
@@ -52,11 +52,21 @@ public class StatementListNode implements ASTNode {
 	 * @param s The last statement
 	 */
 	public StatementListNode(StatementListNode sl, StatementNode s) {
-		statements = new LinkedList<StatementNode>();
+		statements = new ArrayList<StatementNode>();
 		statements.addAll(sl.statements);
 		statements.add(s);
 	}
 	
+	/**
+	 * Append a statement to the end of the list. The parser builds lists this
+	 * way, so a list of n statements costs O(n) to construct.
+	 * 
+	 * @param s the statement to append
+	 */
+	public void add(StatementNode s) {
+		statements.add(s);
+	}
+	
 	@Override
 	public <R> R accept(ASTVisitor<R> visitor) {
 		return visitor.visit(this);
@@ -1,6 +1,7 @@
 package ast.visitor;
 
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 
 import ast.ASTNode;
@@ -17,13 +18,11 @@ import ast.PtrDerefNode;
 import ast.ReadNode;
 import ast.ReturnNode;
 import ast.StatementListNode;
-import ast.StatementNode;
 import ast.UnaryOpNode;
 import ast.VarNode;
 import ast.WriteNode;
 import compiler.Scope.Type;
 import ast.CondNode;
-import ast.ExpressionNode;
 import ast.FunctionListNode;
 import ast.FunctionNode;
 import ast.FloatLitNode;
@@ -47,188 +46,461 @@ import ast.FreeNode;
  * need to change <code>preprocess</code>). More complicated visitors may need to
  * override both (e.g., to generate labels before visiting children).
  * 
+ * The traversal itself does not recurse (see {@link #traverse}). The list handed to
+ * the <code>postprocess</code> methods of list nodes is only valid during the call;
+ * copy it if you need to keep it.
+ * 
  * @param <R> The data type returned by the visitor. For code generation, this is {@link CodeObject}
  */
 public abstract class AbstractASTVisitor<R> implements ASTVisitor<R> {
 
+	/* What Step does when a node accepts it */
+	private static final int ENTER = 0; //run preprocess and report the number of children
+	private static final int CHILD = 1; //report child number index
+	private static final int EXIT = 2; //run postprocess on the children's results
+
+	/* Work stack: one frame per node whose children are still being visited */
+	private ASTNode[] nodes = new ASTNode[64];
+	private int[] nextChild = new int[64];
+	private int[] numChildren = new int[64];
+	private int frames;
+
+	/* Results of finished nodes, waiting for their parent's postprocess */
+	private Object[] results = new Object[64];
+	private int numResults;
+
+	private final Step step = new Step();
+	private final ResultList resultList = new ResultList();
+
 	protected AbstractASTVisitor() { }
 
 	@Override
 	public R run(ASTNode node) {
-		return node.accept(this);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(VarNode node) {
-		preprocess(node);
-		return postprocess(node);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(IntLitNode node) {
-		preprocess(node);
-		return postprocess(node);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(FloatLitNode node) {
-		preprocess(node);
-		return postprocess(node);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(BinaryOpNode node) {
-		preprocess(node);
-		R left = node.getLeft().accept(this);
-		R right = node.getRight().accept(this);
-		return postprocess(node, left, right);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(UnaryOpNode node) {
-		preprocess(node);
-		R child = node.getExpr().accept(this);
-		return postprocess(node, child);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(AssignNode node) {
-		preprocess(node);
-		R left = node.getLeft().accept(this);
-		R right = node.getRight().accept(this);
-		return postprocess(node, left, right);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(StatementListNode node) {
-		preprocess(node);
-		List<R> rs = new LinkedList<R>();
-		for (StatementNode n : node.getStatements()) {
-			rs.add(n.accept(this));	
-		}
-		R retval = postprocess(node, rs);
-		return retval;
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(ReadNode node) {
-		preprocess(node);
-		R var = node.getVarNode().accept(this);
-		return postprocess(node, var);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(WriteNode node) {
-		preprocess(node);
-		R writeExpr = node.getWriteExpr().accept(this);
-		return postprocess(node, writeExpr);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(CondNode node) {
-		preprocess(node);
-		R left = node.getLeft().accept(this);
-		R right = node.getRight().accept(this);
-		return postprocess(node, left, right);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(IfStatementNode node) {
-		preprocess(node);
-		R cond = node.getCondExpr().accept(this);
-		R tlist = node.getThenBlock().accept(this);
-		R elist = null;
-		if (node.getElseBlock() != null) { //only traverse the else block if it exists
-			elist = node.getElseBlock().accept(this);
-		}
-		return postprocess(node, cond, tlist, elist);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(WhileNode node) {
-		preprocess(node);
-		R cond = node.getCond().accept(this);
-		R slist = node.getSlist().accept(this);
-		return postprocess(node, cond, slist);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(ReturnNode node) {
-		preprocess(node);
-		R retExpr = null;
-		if (node.getRetExpr() != null) {
-			retExpr = node.getRetExpr().accept(this);
-		}
-		return postprocess(node, retExpr);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(FunctionNode node) {
-		preprocess(node);
-		R body = node.getFuncBody().accept(this);
-		return postprocess(node, body);
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(FunctionListNode node) {
-		preprocess(node);
-		List<R> fs = new LinkedList<R>();
-		for (StatementNode n : node.getFunctions()) {
-			fs.add(n.accept(this));	
-		}
-		R retval = postprocess(node, fs);
-		return retval;
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(CallNode node) {
-		preprocess(node);
-		List<R> as = new LinkedList<R>();
-		for (ExpressionNode n : node.getArgs()) {
-			as.add(n.accept(this));
-		}
-		R retval = postprocess(node, as);
-		return retval;
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(PtrDerefNode node) {
-		preprocess(node);
-		R expr = node.getExpr().accept(this);
-		R retval = postprocess(node, expr);
-		return retval;
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(AddrOfNode node) {
-		preprocess(node);
-		R expr = node.getExpr().accept(this);
-		R retval = postprocess(node, expr);
-		return retval;
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(MallocNode node) {
-		preprocess(node);
-		R arg = node.getArg().accept(this);
-		R retval = postprocess(node, arg);
-		return retval;
+		return traverse(node);
 	}
 
 	@Override
 	public R visit(FreeNode node) {
-		preprocess(node);
-		R arg = node.getArg().accept(this);
-		R retval = postprocess(node, arg);
-		return retval;
-	}
-	 /*STEP 7 */
-	 @Override
-	 public R visit(CastExprNode node){
-		preprocess(node);
-	 	R arg = node.getNode().accept(this);
-	 	return postprocess(node, arg);
-	 }
+		return traverse(node);
+	}
+
+	@Override
+	public R visit(CastExprNode node) {
+		return traverse(node);
+	}
+
+	/**
+	 * Visit the tree rooted at <code>root</code>, calling <code>preprocess</code> and
+	 * <code>postprocess</code> for every node in the same order a recursive traversal
+	 * would.
+	 * 
+	 * The traversal keeps its own work stack instead of using the Java call stack, so
+	 * arbitrarily deep trees (e.g., long chains of binary operators) are fine. The
+	 * stacks are kept between runs, so once they have grown to the depth of the tree a
+	 * traversal allocates nothing. It is safe to start a new traversal from inside a
+	 * <code>preprocess</code> or <code>postprocess</code> method.
+	 * 
+	 * @param root the node to start from
+	 * @return the result of the root's <code>postprocess</code>
+	 */
+	protected final R traverse(ASTNode root) {
+		int baseFrames = frames;
+		int baseResults = numResults;
+		int listFrom = resultList.from;
+		int listTo = resultList.to;
+		try {
+			push(root);
+			while (frames > baseFrames) {
+				int f = frames - 1;
+				if (nextChild[f] < numChildren[f]) {
+					step.mode = CHILD;
+					step.index = nextChild[f]++;
+					nodes[f].accept(step);
+					if (step.child != null) {
+						push(step.child);
+					} else {
+						pushResult(null); //missing optional child (else block, return value)
+					}
+				} else {
+					ASTNode node = nodes[f];
+					int n = numChildren[f];
+					step.mode = EXIT;
+					R r = node.accept(step);
+					popResults(n);
+					nodes[f] = null;
+					frames = f;
+					pushResult(r);
+				}
+			}
+			@SuppressWarnings("unchecked")
+			R r = (R) results[--numResults];
+			results[numResults] = null;
+			return r;
+		} finally {
+			//only does anything if a pre/postprocess threw
+			while (frames > baseFrames) nodes[--frames] = null;
+			popResults(numResults - baseResults);
+			resultList.from = listFrom;
+			resultList.to = listTo;
+		}
+	}
+
+	private void push(ASTNode node) {
+		if (frames == nodes.length) {
+			nodes = Arrays.copyOf(nodes, frames * 2);
+			nextChild = Arrays.copyOf(nextChild, frames * 2);
+			numChildren = Arrays.copyOf(numChildren, frames * 2);
+		}
+		int f = frames++;
+		nodes[f] = node;
+		nextChild[f] = 0;
+		step.mode = ENTER;
+		node.accept(step);
+		numChildren[f] = step.count;
+	}
+
+	private void pushResult(R r) {
+		if (numResults == results.length) {
+			results = Arrays.copyOf(results, numResults * 2);
+		}
+		results[numResults++] = r;
+	}
+
+	private void popResults(int n) {
+		for (int i = 0; i < n; i++) {
+			results[--numResults] = null;
+		}
+	}
+
+	/* Result of child i of a node with n children, while the node is exiting */
+	@SuppressWarnings("unchecked")
+	private R result(int i, int n) {
+		return (R) results[numResults - n + i];
+	}
+
+	/* Results of all n children of a list node, while the node is exiting */
+	private List<R> results(int n) {
+		resultList.from = numResults - n;
+		resultList.to = numResults;
+		return resultList;
+	}
+
+	/**
+	 * View of the children's results on the result stack, handed to the
+	 * <code>postprocess</code> methods of list nodes. Only valid during that call.
+	 */
+	private final class ResultList extends AbstractList<R> {
+		int from;
+		int to;
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public R get(int i) {
+			return (R) results[from + i];
+		}
+
+		@Override
+		public int size() {
+			return to - from;
+		}
+	}
+
+	/**
+	 * Per-node-type part of the traversal. Nodes dispatch to it through
+	 * <code>accept</code> like to any visitor, and <code>mode</code> says which step to do.
+	 */
+	private final class Step implements ASTVisitor<R> {
+		int mode;
+		int index; //in: child wanted, for CHILD
+		int count; //out: number of children, for ENTER
+		ASTNode child; //out: the child, for CHILD
+
+		@Override
+		public R run(ASTNode node) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public R visit(VarNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 0; return null;
+				default: return postprocess(node);
+			}
+		}
+
+		@Override
+		public R visit(IntLitNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 0; return null;
+				default: return postprocess(node);
+			}
+		}
+
+		@Override
+		public R visit(FloatLitNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 0; return null;
+				default: return postprocess(node);
+			}
+		}
+
+		@Override
+		public R visit(BinaryOpNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 2; return null;
+				case CHILD: child = (index == 0) ? node.getLeft() : node.getRight(); return null;
+				default: return postprocess(node, result(0, 2), result(1, 2));
+			}
+		}
+
+		@Override
+		public R visit(UnaryOpNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 1; return null;
+				case CHILD: child = node.getExpr(); return null;
+				default: return postprocess(node, result(0, 1));
+			}
+		}
+
+		@Override
+		public R visit(AssignNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 2; return null;
+				case CHILD: child = (index == 0) ? node.getLeft() : node.getRight(); return null;
+				default: return postprocess(node, result(0, 2), result(1, 2));
+			}
+		}
+
+		@Override
+		public R visit(StatementListNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = node.getStatements().size(); return null;
+				case CHILD: child = node.getStatements().get(index); return null;
+				default: return postprocess(node, results(node.getStatements().size()));
+			}
+		}
+
+		@Override
+		public R visit(ReadNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 1; return null;
+				case CHILD: child = node.getVarNode(); return null;
+				default: return postprocess(node, result(0, 1));
+			}
+		}
+
+		@Override
+		public R visit(WriteNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 1; return null;
+				case CHILD: child = node.getWriteExpr(); return null;
+				default: return postprocess(node, result(0, 1));
+			}
+		}
+
+		@Override
+		public R visit(CondNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 2; return null;
+				case CHILD: child = (index == 0) ? node.getLeft() : node.getRight(); return null;
+				default: return postprocess(node, result(0, 2), result(1, 2));
+			}
+		}
+
+		@Override
+		public R visit(IfStatementNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 3; return null;
+				case CHILD: child = (index == 0) ? node.getCondExpr() : (index == 1) ? node.getThenBlock() : node.getElseBlock(); return null;
+				default: return postprocess(node, result(0, 3), result(1, 3), result(2, 3));
+			}
+		}
+
+		@Override
+		public R visit(WhileNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 2; return null;
+				case CHILD: child = (index == 0) ? node.getCond() : node.getSlist(); return null;
+				default: return postprocess(node, result(0, 2), result(1, 2));
+			}
+		}
+
+		@Override
+		public R visit(ReturnNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 1; return null;
+				case CHILD: child = node.getRetExpr(); return null;
+				default: return postprocess(node, result(0, 1));
+			}
+		}
+
+		@Override
+		public R visit(FunctionNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 1; return null;
+				case CHILD: child = node.getFuncBody(); return null;
+				default: return postprocess(node, result(0, 1));
+			}
+		}
+
+		@Override
+		public R visit(FunctionListNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = node.getFunctions().size(); return null;
+				case CHILD: child = node.getFunctions().get(index); return null;
+				default: return postprocess(node, results(node.getFunctions().size()));
+			}
+		}
+
+		@Override
+		public R visit(CallNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = node.getArgs().size(); return null;
+				case CHILD: child = node.getArgs().get(index); return null;
+				default: return postprocess(node, results(node.getArgs().size()));
+			}
+		}
+
+		@Override
+		public R visit(PtrDerefNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 1; return null;
+				case CHILD: child = node.getExpr(); return null;
+				default: return postprocess(node, result(0, 1));
+			}
+		}
+
+		@Override
+		public R visit(AddrOfNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 1; return null;
+				case CHILD: child = node.getExpr(); return null;
+				default: return postprocess(node, result(0, 1));
+			}
+		}
+
+		@Override
+		public R visit(MallocNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 1; return null;
+				case CHILD: child = node.getArg(); return null;
+				default: return postprocess(node, result(0, 1));
+			}
+		}
+
+		@Override
+		public R visit(FreeNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 1; return null;
+				case CHILD: child = node.getArg(); return null;
+				default: return postprocess(node, result(0, 1));
+			}
+		}
+
+		@Override
+		public R visit(CastExprNode node) {
+			switch (mode) {
+				case ENTER: preprocess(node); count = 1; return null;
+				case CHILD: child = node.getNode(); return null;
+				default: return postprocess(node, result(0, 1));
+			}
+		}
+	}
 
 	protected R postprocess(VarNode node) {
 		return null;
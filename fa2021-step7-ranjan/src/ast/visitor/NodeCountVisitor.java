@@ -0,0 +1,156 @@
+package ast.visitor;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import ast.ASTNode;
+import ast.AddrOfNode;
+import ast.AssignNode;
+import ast.BinaryOpNode;
+import ast.CallNode;
+import ast.CastExprNode;
+import ast.CondNode;
+import ast.FloatLitNode;
+import ast.FreeNode;
+import ast.FunctionListNode;
+import ast.FunctionNode;
+import ast.IfStatementNode;
+import ast.IntLitNode;
+import ast.MallocNode;
+import ast.PtrDerefNode;
+import ast.ReadNode;
+import ast.ReturnNode;
+import ast.StatementListNode;
+import ast.UnaryOpNode;
+import ast.VarNode;
+import ast.WhileNode;
+import ast.WriteNode;
+
+/**
+ * Counts the nodes of an AST by class (used for <code>--stats</code>). Counts
+ * accumulate over every tree the visitor is run on.
+ */
+public class NodeCountVisitor extends AbstractASTVisitor<Void> {
+
+	private final Map<String, Integer> counts;
+
+	public NodeCountVisitor() {
+		counts = new TreeMap<String, Integer>();
+	}
+
+	/**
+	 * @return node class name -> number of nodes seen, sorted by name
+	 */
+	public Map<String, Integer> getCounts() {
+		return counts;
+	}
+
+	private void count(ASTNode node) {
+		counts.merge(node.getClass().getSimpleName(), 1, Integer::sum);
+	}
+
+	@Override
+	protected void preprocess(VarNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(IntLitNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(FloatLitNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(BinaryOpNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(UnaryOpNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(AssignNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(StatementListNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(ReadNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(WriteNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(CondNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(IfStatementNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(WhileNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(ReturnNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(FunctionNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(FunctionListNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(CallNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(PtrDerefNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(AddrOfNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(MallocNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(FreeNode node) {
+		count(node);
+	}
+
+	@Override
+	protected void preprocess(CastExprNode node) {
+		count(node);
+	}
+}
@@ -35,7 +35,7 @@ public class TypeCheckVisitor extends AbstractASTVisitor<Scope.Type> {
 	@Override
 	public Type run(ASTNode node) {
 		depth = 0;
-		return node.accept(this);
+		return super.run(node);
 	}
 	
 	@Override
@@ -53,7 +53,7 @@ public class TypeCheckVisitor extends AbstractASTVisitor<Scope.Type> {
 
 	@Override
 	protected Type postprocess(IntLitNode node){
-		Type temp = new Type(InnerType.INT); // for step 6
+		Type temp = Type.INT; // for step 6
 		return temp;
 	}
 
@@ -62,7 +62,7 @@ public class TypeCheckVisitor extends AbstractASTVisitor<Scope.Type> {
 	}
 	@Override
 	protected  Type postprocess(FloatLitNode node){
-		Type temp = new Type(InnerType.FLOAT); // for step 6
+		Type temp = Type.FLOAT; // for step 6
 		return temp;
 	}
 
@@ -0,0 +1,113 @@
+package compiler;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+/**
+ * Compiles many files at once:
+ *
+ * 		compiler.Compiler --jobs N [-d outdir] [options] a.uC b.uC ...
+ *
+ * Every file gets its own {@link CompilationContext}, lexer and parser on a worker
+ * thread, and writes to its own output file (<code>a.asm</code> next to the input, or
+ * in <code>outdir</code>), so the output is the same as compiling the files one by one.
+ * Nothing is compiled if two inputs would write the same output file.
+ * The options are the single-file compiler's (see {@link CompilerOptions}), and all
+ * files share one {@link FunctionCache} if a cache directory is given. With
+ * <code>--emit-obj</code> each file becomes an object (<code>a.o</code>) for
+ * {@link Linker} instead.
+ */
+public class BatchCompiler {
+
+	private BatchCompiler() { }
+
+	/**
+	 * @param options parsed command line, with <code>--jobs</code>
+	 * @return exit status: 0 if every file compiled, otherwise the status of the first failure
+	 */
+	public static int run(CompilerOptions options) {
+		ForkJoinPool pool = new ForkJoinPool(options.jobs);
+		try {
+			List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+			Map<String, String> inputOf = new HashMap<String, String>(); //by output path
+			for (String input : options.inputs) {
+				String output = outputFile(input, options.outDir, options.emitObj ? ".o" : ".asm");
+				//two jobs writing one file would leave only one of them, with no error
+				String other = inputOf.put(new File(output).getCanonicalPath(), input);
+				if (other != null) {
+					System.err.println(input + ": output " + output + " is also the output of " + other);
+					return 1;
+				}
+				tasks.add(() -> compileFile(input, output, options));
+			}
+
+			int status = 0;
+			for (Future<Integer> f : pool.invokeAll(tasks)) {
+				int s = f.get();
+				if (status == 0) status = s;
+			}
+			return status;
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			return 1;
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+			return 1;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static String outputFile(String input, String outDir, String extension) {
+		String name = new File(input).getName();
+		if (name.endsWith(".uC")) {
+			name = name.substring(0, name.length() - 3);
+		}
+		File dir = (outDir != null) ? new File(outDir) : new File(input).getAbsoluteFile().getParentFile();
+		return new File(dir, name + extension).getPath();
+	}
+
+	private static int compileFile(String input, String output, CompilerOptions options) {
+		MicroCLexer lexer;
+		try {
+			lexer = new MicroCLexer(CharStreams.fromFileName(input));
+		} catch (IOException e) {
+			System.err.println(input + ": File not found");
+			return 1;
+		}
+		MicroCParser parser = new MicroCParser(new CommonTokenStream(lexer));
+
+		try (PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+			CompilationContext ctx = options.newContext(out);
+			if (options.emitObj) {
+				Compiler.compileObject(parser, ctx).write(out);
+			} else {
+				Compiler.compile(parser, ctx);
+			}
+			return 0;
+		} catch (CompilationException e) {
+			System.err.println(input + ": " + e.getMessage());
+			return e.getStatus();
+		} catch (IOException e) {
+			System.err.println(input + ": cannot write " + output);
+			return 1;
+		} catch (RuntimeException | Error e) {
+			System.err.println(input + ": " + e);
+			return 1;
+		}
+	}
+}
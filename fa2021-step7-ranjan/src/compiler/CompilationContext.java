@@ -0,0 +1,132 @@
+package compiler;
+
+import java.io.PrintStream;
+
+import assembly.CodeGenerator;
+import assembly.RegisterAllocator;
+
+/**
+ * State that belongs to the compilation of one translation unit.
+ * 
+ * A context is confined to the thread compiling its unit. The parser actions, the
+ * AST constructors and the code generator get their symbol table and output from
+ * here instead of from static fields, so several units can be compiled at the same
+ * time (see {@link BatchCompiler}) and a daemon can compile one program after another
+ * without state leaking between them.
+ */
+public class CompilationContext {
+
+	private final SymbolTable symbolTable;
+	private final PrintStream out;
+	private int codegenThreads;
+	private CompilerStats stats;
+	private FunctionCache functionCache;
+	private int registers;
+	private RegisterAllocator.Kind allocator;
+	private CodeGenerator.Abi abi;
+	private boolean dumpDataflow;
+
+	public CompilationContext() {
+		this(System.out);
+	}
+
+	/**
+	 * @param out where the assembly (and the comments printed along with it) goes
+	 */
+	public CompilationContext(PrintStream out) {
+		this.out = out;
+		this.symbolTable = new SymbolTable();
+		symbolTable.setOutput(out);
+		this.codegenThreads = 1;
+		this.stats = CompilerStats.DISABLED;
+		this.registers = RegisterAllocator.maxRegisters();
+		this.allocator = RegisterAllocator.Kind.COLORING;
+		this.abi = CodeGenerator.Abi.REGISTERS;
+	}
+
+	public SymbolTable getSymbolTable() {
+		return symbolTable;
+	}
+
+	public PrintStream getOutput() {
+		return out;
+	}
+
+	/**
+	 * @return how many threads may generate code for this unit's functions at once
+	 */
+	public int getCodegenThreads() {
+		return codegenThreads;
+	}
+
+	public void setCodegenThreads(int codegenThreads) {
+		this.codegenThreads = codegenThreads;
+	}
+
+	/**
+	 * @return where measurements go; {@link CompilerStats#DISABLED} unless <code>--stats</code> was given
+	 */
+	public CompilerStats getStats() {
+		return stats;
+	}
+
+	public void setStats(CompilerStats stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * @return where generated functions are cached; null unless <code>--fn-cache</code> was given
+	 */
+	public FunctionCache getFunctionCache() {
+		return functionCache;
+	}
+
+	public void setFunctionCache(FunctionCache functionCache) {
+		this.functionCache = functionCache;
+	}
+
+	/**
+	 * @return how many registers of each class the generated code may use; all of
+	 * them ({@link RegisterAllocator#maxRegisters}) unless <code>--registers</code> was given
+	 */
+	public int getRegisters() {
+		return registers;
+	}
+
+	public void setRegisters(int registers) {
+		this.registers = registers;
+	}
+
+	/**
+	 * @return which register allocator maps temps onto the registers (see {@link #getRegisters})
+	 */
+	public RegisterAllocator.Kind getAllocator() {
+		return allocator;
+	}
+
+	public void setAllocator(RegisterAllocator.Kind allocator) {
+		this.allocator = allocator;
+	}
+
+	/**
+	 * @return how calls pass arguments and results
+	 */
+	public CodeGenerator.Abi getAbi() {
+		return abi;
+	}
+
+	public void setAbi(CodeGenerator.Abi abi) {
+		this.abi = abi;
+	}
+
+	/**
+	 * @return whether to print each function's dataflow solutions as comments (see {@link assembly.DataflowDump})
+	 */
+	public boolean isDumpDataflow() {
+		return dumpDataflow;
+	}
+
+	public void setDumpDataflow(boolean dumpDataflow) {
+		this.dumpDataflow = dumpDataflow;
+	}
+}
@@ -0,0 +1,26 @@
+package compiler;
+
+/**
+ * Thrown when a compilation has to be abandoned (e.g., a declaration error).
+ * 
+ * The command line driver turns this into the process exit status; the
+ * compile daemon reports it back to the client and keeps serving.
+ */
+public class CompilationException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int status;
+
+	public CompilationException(String message, int status) {
+		super(message);
+		this.status = status;
+	}
+
+	/**
+	 * @return the exit status the command line compiler uses for this error
+	 */
+	public int getStatus() {
+		return status;
+	}
+}
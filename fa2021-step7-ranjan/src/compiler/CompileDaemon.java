@@ -0,0 +1,181 @@
+package compiler;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+/**
+ * Long-running compile server used by the <code>runme-client</code> script.
+ *
+ * Starting a JVM and warming up the lexer and parser costs far more than compiling
+ * one of our test programs, so the daemon keeps a single lexer/parser pair alive and
+ * points it at each new input. All per-program state is created fresh by
+ * {@link Compiler#compile} for every request.
+ *
+ * Any local user can connect to a loopback port, so at startup the daemon writes a
+ * random token to a file only its own user can read ({@link #tokenFile}). The first
+ * line of every connection must be <code>AUTH &lt;token&gt;</code>; a connection that
+ * sends anything else is answered <code>ERROR 1 not authorized</code> and closed.
+ *
+ * Protocol (one request per line, on a loopback socket, after <code>AUTH</code>):
+ *
+ * 		&lt;input file&gt; TAB &lt;output file&gt;	compile input into output
+ * 		STATS								report how programs have been parsed so far
+ * 		QUIT								stop the daemon
+ *
+ * Each request is answered with one line: <code>OK</code>, or
+ * <code>ERROR &lt;exit status&gt; &lt;message&gt;</code>. <code>STATS</code> is answered
+ * with <code>OK sll=&lt;n&gt; llFallbacks=&lt;n&gt;</code>, the number of programs parsed
+ * with SLL prediction alone and the number that needed full LL (see {@link TwoStageParser}).
+ */
+public class CompileDaemon {
+
+	static final public int DEFAULT_PORT = 5073;
+
+	private final int port;
+	private final MicroCLexer lexer;
+	private final MicroCParser parser;
+	private byte[] token;
+	private boolean running;
+
+	public CompileDaemon(int port) {
+		this.port = port;
+		lexer = new MicroCLexer(CharStreams.fromString(""));
+		parser = new MicroCParser(new CommonTokenStream(lexer));
+	}
+
+	/**
+	 * @return the file the daemon on <code>port</code> keeps its token in
+	 */
+	public static File tokenFile(int port) {
+		return new File(System.getProperty("user.home"), ".ucc-daemon-" + port);
+	}
+
+	/**
+	 * Accept connections until a client sends <code>QUIT</code>. Requests are handled
+	 * one at a time, since the lexer and parser are shared.
+	 */
+	public void serve() {
+		running = true;
+		try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+			writeToken();
+			System.err.println("compile daemon listening on port " + port);
+			while (running) {
+				try (Socket client = server.accept()) {
+					handle(client);
+				} catch (IOException e) {
+					System.err.println("compile daemon: " + e.getMessage());
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("compile daemon could not listen on port " + port + ": " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Make a new token and write it where only this user can read it
+	 */
+	private void writeToken() throws IOException {
+		byte[] bytes = new byte[16];
+		new SecureRandom().nextBytes(bytes);
+		StringBuilder hex = new StringBuilder();
+		for (byte b : bytes) {
+			hex.append(String.format("%02x", b));
+		}
+		token = hex.toString().getBytes(StandardCharsets.US_ASCII);
+
+		Path file = tokenFile(port).toPath();
+		Files.deleteIfExists(file);
+		try {
+			Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		} catch (UnsupportedOperationException e) {
+			throw new IOException("cannot make " + file + " private to this user");
+		}
+		file.toFile().deleteOnExit();
+		Files.write(file, token);
+	}
+
+	private boolean authorized(String line) {
+		if (line == null || !line.startsWith("AUTH ")) {
+			return false;
+		}
+		return MessageDigest.isEqual(token, line.substring(5).getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private void handle(Socket client) throws IOException {
+		BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream()));
+		PrintWriter reply = new PrintWriter(client.getOutputStream(), true);
+
+		if (!authorized(in.readLine())) {
+			reply.println("ERROR 1 not authorized");
+			return;
+		}
+		reply.println("OK");
+
+		String request;
+		while ((request = in.readLine()) != null) {
+			if (request.equals("QUIT")) {
+				running = false;
+				reply.println("OK");
+				return;
+			}
+
+			if (request.equals("STATS")) {
+				reply.println("OK sll=" + TwoStageParser.getSllParses() + " llFallbacks=" + TwoStageParser.getLlFallbacks());
+				continue;
+			}
+
+			String[] files = request.split("\t");
+			if (files.length != 2) {
+				reply.println("ERROR 1 expected: <input>\\t<output>");
+				continue;
+			}
+			reply.println(compile(files[0], files[1]));
+		}
+	}
+
+	/**
+	 * Compile one program with the shared lexer and parser.
+	 *
+	 * @return the reply line for the client
+	 */
+	private String compile(String input, String output) {
+		try {
+			lexer.setInputStream(CharStreams.fromFileName(input));
+		} catch (IOException e) {
+			return "ERROR 1 File not found: " + input;
+		}
+		parser.setTokenStream(new CommonTokenStream(lexer));
+
+		try (PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+			Compiler.compile(parser, new CompilationContext(out));
+			return "OK";
+		} catch (CompilationException e) {
+			return "ERROR " + e.getStatus() + " " + e.getMessage();
+		} catch (IOException e) {
+			return "ERROR 1 cannot write " + output;
+		} catch (RuntimeException | Error e) {
+			//a crash in one program must not take down the daemon
+			e.printStackTrace();
+			return "ERROR 1 " + e;
+		}
+	}
+}
@@ -1,73 +1,236 @@
 package compiler;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
 
+import org.antlr.v4.runtime.BufferedTokenStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
 
+import assembly.AsmEmitter;
 import assembly.CodeGenerator;
 import assembly.CodeObject;
+import assembly.instructions.Blank;
+import assembly.instructions.Instruction;
+import ast.FunctionListNode;
+import ast.FunctionNode;
 import ast.ASTNode;
 import ast.visitor.PrintVisitor;
 import ast.visitor.TypeCheckVisitor;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 public class Compiler {
 
-	static public SymbolTable symbolTable = new SymbolTable();
-
 	public Compiler() {
-		
+
 	}
 
 	public static void main(String args[]) {
-		
-		
-		try {
-			MicroCLexer lexer = new MicroCLexer(CharStreams.fromFileName(args[0]));
-			
-			MicroCParser parser = new MicroCParser(new CommonTokenStream(lexer));
 
-			parser.setSymbolTable(symbolTable);
-			
-			parser.program(); //parse the program to build the ast
-			
-			//Print out the symbol table. Helpful for debugging
-			symbolTable.printTable();
+		if (args.length > 0 && args[0].equals("--daemon")) {
+			int port = (args.length > 1) ? Integer.parseInt(args[1]) : CompileDaemon.DEFAULT_PORT;
+			new CompileDaemon(port).serve();
+			return;
+		}
 
-			ASTNode ast = parser.getAST();
+		CompilerOptions options = CompilerOptions.parse(args);
+		if (options.jobs != 0) {
+			System.exit(BatchCompiler.run(options));
+		}
 
-			// Uncomment this line to print out your AST for debugging purposes
-			//  PrintVisitor pv = new PrintVisitor();
-			//  pv.run(ast);
+		String input = options.inputs.get(0);
+		String output = options.output;
+		boolean stream = options.stream;
+		String statsFile = options.statsFile;
+		File dfaCache = options.dfaCache;
 
-			//Type checking before codegen
-			// TypeCheckVisitor tcv = new TypeCheckVisitor();
-			// tcv.run(ast);
+		int warmStates = 0;
+		if (dfaCache != null) {
+			DfaCache.load(dfaCache);
+			warmStates = DfaCache.stateCount();
+		}
 
-			CodeGenerator cg = new CodeGenerator();
-			CodeObject co = cg.run(ast);
+		try {
+			MicroCParser parser = null;
+			InputStream in = null;
+			if (stream) {
+				in = new FileInputStream(input);
+			} else {
+				MicroCLexer lexer = new MicroCLexer(CharStreams.fromFileName(input));
+
+				parser = new MicroCParser(new CommonTokenStream(lexer));
+			}
 
-			// Print out ".section .text"
-			System.out.println(".section .text");
+			PrintStream out = System.out;
+			if (output != null) {
+				try {
+					out = new PrintStream(new BufferedOutputStream(new FileOutputStream(output)));
+				} catch (IOException e) {
+					System.out.println("Cannot write " + output);
+					System.exit(1);
+				}
+			}
 
-			// Print out the code. Runme script will redirect as necessary
-			System.out.println(co);
+			CompilationContext ctx = options.newContext(out);
+
+			try {
+				if (stream) {
+					new StreamingCompiler(ctx).compile(in);
+				} else if (options.emitObj) {
+					compileObject(parser, ctx).write(out);
+				} else {
+					compile(parser, ctx);
+				}
+			} finally {
+				out.flush();
+			}
 
-			//Print out strings
-			printStrings();
+			if (statsFile != null) {
+				writeStats(ctx.getStats(), statsFile);
+			}
+
+			//only rewrite the cache if this program taught the DFAs something new
+			if (dfaCache != null && DfaCache.stateCount() > warmStates) {
+				try {
+					DfaCache.save(dfaCache);
+				} catch (IOException e) {
+					System.err.println("Cannot write " + dfaCache);
+				}
+			}
 
 		} catch (IOException e) {
 			System.out.println("File not found");
 			e.printStackTrace();
 			System.exit(1);
-		}		
+		} catch (CompilationException e) {
+			System.exit(e.getStatus());
+		}
+	}
+
+	/**
+	 * Compile the program the parser is pointed at and write the assembly to the
+	 * context's output.
+	 *
+	 * Everything that belongs to one compilation lives in <code>ctx</code> or is
+	 * created here, so the same lexer and parser can be reused for the next program.
+	 *
+	 * @param parser parser whose token stream holds the program to compile
+	 * @param ctx fresh context for this program
+	 */
+	public static void compile(MicroCParser parser, CompilationContext ctx) {
+		SymbolTable symbolTable = ctx.getSymbolTable();
+		PrintStream out = ctx.getOutput();
+		CompilerStats stats = ctx.getStats();
+
+		parser.setContext(ctx);
+
+		if (stats.isEnabled() && parser.getTokenStream() instanceof BufferedTokenStream) {
+			//lex everything up front so lexing and parsing are timed separately
+			stats.enter("lex");
+			((BufferedTokenStream) parser.getTokenStream()).fill();
+			stats.exit();
+		}
+
+		stats.enter("parse");
+		TwoStageParser.parse(parser, ctx); //parse the program to build the ast
+		stats.exit();
+
+		//Print out the symbol table. Helpful for debugging
+		stats.enter("emit");
+		symbolTable.printTable();
+		stats.exit();
+
+		ASTNode ast = parser.getAST();
+		stats.countNodes(ast);
+
+		// Uncomment this line to print out your AST for debugging purposes
+		//  PrintVisitor pv = new PrintVisitor();
+		//  pv.run(ast);
+
+		//Type checking before codegen
+		// TypeCheckVisitor tcv = new TypeCheckVisitor();
+		// tcv.run(ast);
+
+		stats.enter("codegen");
+		CodeGenerator cg = new CodeGenerator(ctx);
+		CodeObject co = cg.run(ast);
+		stats.exit();
+
+		stats.countInstructions(co.getCode());
+
+		//Stream the assembly out through the same output as everything above
+		stats.enter("emit");
+		AsmEmitter asm = new AsmEmitter(out);
+
+		// Print out ".section .text"
+		asm.println(".section .text");
+
+		// Print out the code. Runme script will redirect as necessary
+		asm.emit(co.getCode());
+		asm.println();
+
+		//Print out strings
+		printStrings(symbolTable, asm);
+
+		asm.flush();
+		stats.exit();
 	}
 
-	private static void printStrings() {
-		System.out.println();
-		System.out.println(".section .strings");
+	/**
+	 * Compile the program the parser is pointed at into a relocatable object, to be
+	 * linked with others by {@link Linker}. Nothing is written to the context's
+	 * output but comments, which the object does not keep.
+	 *
+	 * @param parser parser whose token stream holds the program to compile
+	 * @param ctx fresh context for this program
+	 */
+	public static ObjectFile compileObject(MicroCParser parser, CompilationContext ctx) {
+		CompilerStats stats = ctx.getStats();
+
+		parser.setContext(ctx);
+
+		stats.enter("parse");
+		TwoStageParser.parse(parser, ctx);
+		stats.exit();
+
+		ASTNode ast = parser.getAST();
+		stats.countNodes(ast);
+
+		//the functions only; the program entry is the linker's
+		stats.enter("codegen");
+		CodeGenerator cg = new CodeGenerator(ctx);
+		List<Instruction> code = new ArrayList<Instruction>();
+		for (FunctionNode f : ((FunctionListNode) ast).getFunctions()) {
+			code.addAll(cg.run(f).getCode());
+			code.add(new Blank());
+		}
+		stats.exit();
+
+		stats.countInstructions(code);
+		return ObjectFile.build(ctx.getSymbolTable(), code, ctx.getAbi());
+	}
+
+	private static void writeStats(CompilerStats stats, String file) throws IOException {
+		if (file.equals("-")) {
+			stats.print(System.err);
+			return;
+		}
+		try (PrintStream s = new PrintStream(new FileOutputStream(file))) {
+			stats.print(s);
+		}
+	}
+
+	static void printStrings(SymbolTable symbolTable, AsmEmitter out) {
+		out.println();
+		out.println(".section .strings");
 
 		Scope g = symbolTable.getGlobalScope();
 
@@ -75,9 +238,9 @@ public class Compiler {
 		for (Scope.SymbolTableEntry ste : stes) {
 			if (ste.getType().type == Scope.InnerType.STRING) {
 				Scope.StringSymbolTableEntry sste = (Scope.StringSymbolTableEntry) ste;
-				System.out.println(String.format("0x%x", sste.getAddress()) + " " + sste.getValue());
+				out.print("0x").print(Integer.toHexString(sste.getAddress())).print(' ').println(sste.getValue());
 			}
 		}
 	}
-	
-}
\ No newline at end of file
+
+}
@@ -0,0 +1,140 @@
+package compiler;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import assembly.CodeGenerator;
+import assembly.RegisterAllocator;
+
+/**
+ * Command line options, parsed once for every way of running the compiler:
+ *
+ * 		compiler.Compiler [options] [-o out.asm] file.uC
+ * 		compiler.Compiler --jobs N [-d outdir] [options] a.uC b.uC ...
+ *
+ * Options that shape the generated code (<code>--registers</code>, <code>--allocator</code>,
+ * <code>--abi</code>, <code>--fn-cache</code>, ...) are applied to each unit's
+ * {@link CompilationContext} by {@link #newContext}, so a file compiles to the same code
+ * on its own and in a batch.
+ */
+public class CompilerOptions {
+
+	int jobs; //0 unless --jobs was given
+	String outDir;
+	String output;
+	final List<String> inputs = new ArrayList<String>();
+	int codegenThreads = 1;
+	boolean stream;
+	String statsFile;
+	File dfaCache;
+	File fnCache;
+	boolean emitObj;
+	int registers = RegisterAllocator.maxRegisters();
+	RegisterAllocator.Kind allocator = RegisterAllocator.Kind.COLORING;
+	CodeGenerator.Abi abi = CodeGenerator.Abi.REGISTERS;
+	boolean dumpDataflow;
+	private FunctionCache functionCache;
+
+	private CompilerOptions() { }
+
+	/**
+	 * Parse a command line. Prints a message and exits with status 1 if the options
+	 * are unknown or do not go together.
+	 */
+	public static CompilerOptions parse(String args[]) {
+		CompilerOptions o = new CompilerOptions();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--jobs": o.jobs = Math.max(1, Integer.parseInt(args[++i])); break;
+				case "-d": o.outDir = args[++i]; break;
+				case "-o": o.output = args[++i]; break;
+				case "--codegen-threads": o.codegenThreads = Integer.parseInt(args[++i]); break;
+				case "--stream": o.stream = true; break;
+				case "--stats": o.statsFile = args[++i]; break;
+				case "--dfa-cache": o.dfaCache = new File(args[++i]); break;
+				case "--fn-cache": o.fnCache = new File(args[++i]); break;
+				case "--emit-obj": o.emitObj = true; break;
+				case "--registers": o.registers = Integer.parseInt(args[++i]); break;
+				case "--allocator": o.allocator = allocator(args[++i]); break;
+				case "--abi": o.abi = abi(args[++i]); break;
+				case "--dump-dataflow": o.dumpDataflow = true; break;
+				default: o.inputs.add(args[i]);
+			}
+		}
+
+		if (o.registers < 2) {
+			fail("--registers needs at least 2 registers");
+		}
+		if (o.stream && o.emitObj) {
+			fail("--emit-obj cannot be used with --stream");
+		}
+		if (o.jobs != 0) {
+			if (o.output != null) fail("-o cannot be used with --jobs; use -d");
+			if (o.stream) fail("--stream cannot be used with --jobs");
+			if (o.statsFile != null) fail("--stats cannot be used with --jobs");
+			if (o.dfaCache != null) fail("--dfa-cache cannot be used with --jobs");
+		} else if (o.inputs.size() != 1) {
+			fail("Expected one input file");
+		}
+		if (o.fnCache != null) {
+			o.functionCache = new FunctionCache(o.fnCache);
+		}
+		return o;
+	}
+
+	private static void fail(String message) {
+		System.err.println(message);
+		System.exit(1);
+	}
+
+	/**
+	 * @return the allocator named on the command line (local, coloring, ...)
+	 */
+	static RegisterAllocator.Kind allocator(String name) {
+		try {
+			return RegisterAllocator.Kind.valueOf(name.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			fail("Unknown register allocator " + name);
+			return null;
+		}
+	}
+
+	/**
+	 * @return the calling convention named on the command line (stack or registers)
+	 */
+	static CodeGenerator.Abi abi(String name) {
+		try {
+			return CodeGenerator.Abi.valueOf(name.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			fail("Unknown calling convention " + name);
+			return null;
+		}
+	}
+
+	/**
+	 * Make the context for compiling one unit with these options. Units of one batch
+	 * share the function cache.
+	 *
+	 * @param out where the assembly or object goes
+	 */
+	public CompilationContext newContext(PrintStream out) {
+		//an object keeps no comments, so the symbol tables printed while compiling go nowhere
+		CompilationContext ctx = new CompilationContext(emitObj ? new PrintStream(OutputStream.nullOutputStream()) : out);
+		ctx.setCodegenThreads(codegenThreads);
+		ctx.setRegisters(registers);
+		ctx.setAllocator(allocator);
+		ctx.setAbi(abi);
+		ctx.setDumpDataflow(dumpDataflow);
+		//streamed and object code is generated a function at a time, outside the cache
+		if (!stream && !emitObj) {
+			ctx.setFunctionCache(functionCache);
+		}
+		if (statsFile != null) {
+			ctx.setStats(new CompilerStats());
+		}
+		return ctx;
+	}
+}
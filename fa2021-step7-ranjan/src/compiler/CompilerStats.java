@@ -0,0 +1,261 @@
+package compiler;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import assembly.instructions.Instruction;
+import assembly.instructions.Verbatim;
+import ast.ASTNode;
+import ast.visitor.NodeCountVisitor;
+
+/**
+ * Measurements of one compilation, written as JSON by <code>--stats FILE</code>
+ * (<code>-</code> for stderr):
+ *
+ * <pre>
+ * {
+ *   "phases": { "parse": { "wallNanos": ..., "allocBytes": ... }, ... },
+ *   "parser": { "sllParses": ..., "llFallbacks": ... },
+ *   "functionCache": { "hits": ..., "misses": ... },
+ *   "registers": { "coloring": { "spillStores": ..., "reloads": ..., "movesRemoved": ... } },
+ *   "astNodes": { "AssignNode": ..., ... },
+ *   "instructions": { "ADD": ..., ... },
+ *   "functions": [ { "name": "main", "intTemps": ..., "floatTemps": ...,
+ *                    "locals": ..., "savedRegisters": ..., "frameBytes": ... }, ... ],
+ *   "peakHeapBytes": ...
+ * }
+ * </pre>
+ *
+ * Phases are lex, parse, typecheck, codegen and emit, in the order they first ran.
+ * A phase that runs inside another (code generation inside parsing when streaming)
+ * is not counted in the outer one. Allocated bytes are those of the compiling thread,
+ * so they leave out code generation worker threads. <code>llFallbacks</code> counts
+ * programs SLL prediction could not parse, which had to be parsed again with full
+ * LL prediction (see {@link TwoStageParser}). The function cache counts stay 0
+ * without <code>--fn-cache</code> (see {@link FunctionCache}). The register counts are
+ * the loads and stores of spilled values the register allocator added and the copies
+ * it removed, under the name of the allocator (local, coloring or linear), so runs
+ * with different <code>--allocator</code>s can be put side by side. Every function
+ * is allocated; <code>--registers</code> only caps how many registers of each class the
+ * allocator may use. Functions taken from the cache add nothing.
+ *
+ * When stats are off the context holds {@link #DISABLED}, whose methods return
+ * right away, so the compiler does not have to check for null.
+ */
+public class CompilerStats {
+
+	public static final CompilerStats DISABLED = new CompilerStats(false);
+
+	private final boolean enabled;
+
+	private final Map<String, long[]> phases = new LinkedHashMap<String, long[]>(); //name -> {wall nanos, alloc bytes}
+	private final Deque<String> running = new ArrayDeque<String>();
+	private long markNanos;
+	private long markBytes;
+
+	private int sllParses;
+	private int llFallbacks;
+
+	private int cacheHits;
+	private int cacheMisses;
+
+	private final Map<String, int[]> allocations = new TreeMap<String, int[]>(); //allocator -> {spill stores, reloads, moves removed}
+
+	private final NodeCountVisitor nodeCounter = new NodeCountVisitor();
+	private final Map<Instruction.OpCode, Integer> instructions = new EnumMap<Instruction.OpCode, Integer>(Instruction.OpCode.class);
+	private final Map<String, int[]> functions = new TreeMap<String, int[]>(); //name -> {int temps, float temps, locals}
+
+	public CompilerStats() {
+		this(true);
+	}
+
+	private CompilerStats(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Start timing a phase. If another phase is running it is paused until the
+	 * matching {@link #exit}.
+	 */
+	public void enter(String phase) {
+		if (!enabled) return;
+		charge();
+		running.push(phase);
+	}
+
+	/**
+	 * Stop timing the phase started last
+	 */
+	public void exit() {
+		if (!enabled) return;
+		charge();
+		running.pop();
+	}
+
+	/* Charge the time and bytes since the last mark to the running phase */
+	private void charge() {
+		long nanos = System.nanoTime();
+		long bytes = allocatedBytes();
+		String phase = running.peek();
+		if (phase != null) {
+			long[] p = phases.computeIfAbsent(phase, k -> new long[2]);
+			p[0] += nanos - markNanos;
+			p[1] += bytes - markBytes;
+		}
+		markNanos = nanos;
+		markBytes = bytes;
+	}
+
+	/**
+	 * Record how a program was parsed
+	 *
+	 * @param fellBack whether it had to be parsed again with full LL prediction
+	 */
+	public void parsed(boolean fellBack) {
+		if (!enabled) return;
+		if (fellBack) {
+			llFallbacks++;
+		} else {
+			sllParses++;
+		}
+	}
+
+	/**
+	 * Record whether a function's code came from the function cache. May be called
+	 * from several code generation threads.
+	 */
+	public synchronized void cachedFunction(boolean hit) {
+		if (!enabled) return;
+		if (hit) {
+			cacheHits++;
+		} else {
+			cacheMisses++;
+		}
+	}
+
+	/**
+	 * Record what register allocation did to a function. May be called from several
+	 * code generation threads.
+	 */
+	public synchronized void allocation(String allocator, int spillStores, int reloads, int movesRemoved) {
+		if (!enabled) return;
+		int[] a = allocations.computeIfAbsent(allocator, k -> new int[3]);
+		a[0] += spillStores;
+		a[1] += reloads;
+		a[2] += movesRemoved;
+	}
+
+	public void countNodes(ASTNode node) {
+		if (!enabled) return;
+		nodeCounter.run(node);
+	}
+
+	public void countInstructions(Iterable<Instruction> code) {
+		if (!enabled) return;
+		for (Instruction i : code) {
+			if (i instanceof Verbatim) { //code reused from the function cache
+				for (Map.Entry<Instruction.OpCode, Integer> e : ((Verbatim) i).getOpCodes().entrySet()) {
+					instructions.merge(e.getKey(), e.getValue(), Integer::sum);
+				}
+			} else if (i.getOC() != null) { //labels and blank lines have none
+				instructions.merge(i.getOC(), 1, Integer::sum);
+			}
+		}
+	}
+
+	/**
+	 * Record a function after its code has been generated. May be called from
+	 * several code generation threads.
+	 */
+	public synchronized void function(String name, int intTemps, int floatTemps, int locals, int savedRegisters) {
+		if (!enabled) return;
+		functions.put(name, new int[] {intTemps, floatTemps, locals, savedRegisters});
+	}
+
+	public void print(PrintStream out) {
+		out.println("{");
+
+		out.println("  \"phases\": {");
+		int n = 0;
+		for (Map.Entry<String, long[]> e : phases.entrySet()) {
+			out.print("    \"" + e.getKey() + "\": { \"wallNanos\": " + e.getValue()[0] + ", \"allocBytes\": " + e.getValue()[1] + " }");
+			out.println((++n < phases.size()) ? "," : "");
+		}
+		out.println("  },");
+
+		out.println("  \"parser\": { \"sllParses\": " + sllParses + ", \"llFallbacks\": " + llFallbacks + " },");
+		out.println("  \"functionCache\": { \"hits\": " + cacheHits + ", \"misses\": " + cacheMisses + " },");
+
+		out.print("  \"registers\": {");
+		n = 0;
+		for (Map.Entry<String, int[]> e : allocations.entrySet()) {
+			int[] a = e.getValue();
+			out.print(((n++ > 0) ? ", " : " ") + "\"" + e.getKey() + "\": { \"spillStores\": " + a[0]
+					+ ", \"reloads\": " + a[1] + ", \"movesRemoved\": " + a[2] + " }");
+		}
+		out.println(" },");
+
+		out.println("  \"astNodes\": {");
+		printCounts(out, nodeCounter.getCounts());
+		out.println("  },");
+
+		out.println("  \"instructions\": {");
+		printCounts(out, instructions);
+		out.println("  },");
+
+		out.println("  \"functions\": [");
+		n = 0;
+		for (Map.Entry<String, int[]> e : functions.entrySet()) {
+			int[] f = e.getValue();
+			int frameBytes = 4 * (1 + f[2] + f[3]); //old fp, locals and spill slots, saved registers
+			out.print("    { \"name\": \"" + e.getKey() + "\", \"intTemps\": " + f[0] + ", \"floatTemps\": " + f[1]
+					+ ", \"locals\": " + f[2] + ", \"savedRegisters\": " + f[3] + ", \"frameBytes\": " + frameBytes + " }");
+			out.println((++n < functions.size()) ? "," : "");
+		}
+		out.println("  ],");
+
+		out.println("  \"peakHeapBytes\": " + peakHeapBytes());
+		out.println("}");
+		out.flush();
+	}
+
+	private static void printCounts(PrintStream out, Map<?, Integer> counts) {
+		int n = 0;
+		for (Map.Entry<?, Integer> e : counts.entrySet()) {
+			String key = (e.getKey() instanceof Enum) ? ((Enum<?>) e.getKey()).name() : e.getKey().toString();
+			out.print("    \"" + key + "\": " + e.getValue());
+			out.println((++n < counts.size()) ? "," : "");
+		}
+	}
+
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+
+	private static long peakHeapBytes() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+}
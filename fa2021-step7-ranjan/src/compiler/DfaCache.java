@@ -0,0 +1,594 @@
+package compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.antlr.v4.runtime.RuntimeMetaData;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNConfig;
+import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.ATNSimulator;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.ArrayPredictionContext;
+import org.antlr.v4.runtime.atn.DecisionState;
+import org.antlr.v4.runtime.atn.LexerATNConfig;
+import org.antlr.v4.runtime.atn.LexerAction;
+import org.antlr.v4.runtime.atn.LexerActionExecutor;
+import org.antlr.v4.runtime.atn.LexerIndexedCustomAction;
+import org.antlr.v4.runtime.atn.OrderedATNConfigSet;
+import org.antlr.v4.runtime.atn.PredictionContext;
+import org.antlr.v4.runtime.atn.SemanticContext;
+import org.antlr.v4.runtime.atn.SingletonPredictionContext;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+
+/**
+ * Saves the lexer's and parser's prediction DFAs to a file and loads them back, so a
+ * fresh JVM starts out with the DFAs earlier runs built instead of building them up
+ * again from the ATN on every input it sees for the first time:
+ *
+ * 		compiler.Compiler --dfa-cache FILE prog.uC
+ *
+ * ANTLR keeps the DFAs in static fields shared by every lexer and parser, so loading
+ * them once at startup warms up every parser created afterwards.
+ *
+ * A DFA state is written with its ATN configurations (ATN state numbers, prediction
+ * contexts, semantic contexts and lexer actions), not just its edges, because ANTLR
+ * extends the DFA from those when it meets input the cache has not seen. ATN states
+ * are referred to by number, so the file only fits the ATNs it was made from. It is
+ * keyed by a hash of both serialized ATNs and the ANTLR runtime version, and a file
+ * with any other key (or that cannot be read) is ignored, and replaced on the next
+ * save.
+ */
+public class DfaCache {
+
+	private static final int MAGIC = 0x4d434446; //"MCDF"
+	private static final int VERSION = 1;
+
+	private static final int NONE = -1;
+	private static final int ERROR = -2; //edge to ATNSimulator.ERROR
+
+	private DfaCache() {
+	}
+
+	/**
+	 * @return hash of the lexer and parser ATNs and the runtime that reads them
+	 */
+	public static String key() {
+		//CRC32 rather than a MessageDigest, which costs more to set up than a warm parse saves
+		CRC32 crc = new CRC32();
+		for (String s : new String[] { RuntimeMetaData.VERSION, MicroCLexer._serializedATN, MicroCParser._serializedATN }) {
+			crc.update(s.getBytes(StandardCharsets.UTF_8));
+		}
+		return RuntimeMetaData.VERSION + "/" + MicroCLexer._serializedATN.length() + "/"
+				+ MicroCParser._serializedATN.length() + "/" + Long.toHexString(crc.getValue());
+	}
+
+	/**
+	 * @return number of states in all of the lexer's and parser's DFAs
+	 */
+	public static int stateCount() {
+		int n = 0;
+		for (DFA dfa : MicroCLexer._decisionToDFA) n += dfa.states.size();
+		for (DFA dfa : MicroCParser._decisionToDFA) n += dfa.states.size();
+		return n;
+	}
+
+	/**
+	 * Load the DFAs saved in <code>file</code>. Must be called before anything is lexed
+	 * or parsed.
+	 *
+	 * @return whether the file was there, matched the grammar and was loaded
+	 */
+	public static boolean load(File file) {
+		if (!file.isFile()) return false;
+		List<DFAState[]> lexerStates = new ArrayList<DFAState[]>();
+		List<DFAState[]> parserStates = new ArrayList<DFAState[]>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(key())) {
+				return false;
+			}
+			//read everything before touching the live DFAs, so a bad file changes nothing
+			Reader lexer = new Reader(in, MicroCLexer._ATN);
+			for (int i = 0; i < MicroCLexer._decisionToDFA.length; i++) lexerStates.add(lexer.readDfa());
+			Reader parser = new Reader(in, MicroCParser._ATN);
+			for (int i = 0; i < MicroCParser._decisionToDFA.length; i++) parserStates.add(parser.readDfa());
+		} catch (IOException | RuntimeException e) {
+			return false;
+		}
+		install(MicroCLexer._decisionToDFA, lexerStates);
+		install(MicroCParser._decisionToDFA, parserStates);
+		return true;
+	}
+
+	/**
+	 * Save the current DFAs to <code>file</code>. The file is written next to its final
+	 * place and then renamed, so compilers running at the same time never see half of it.
+	 */
+	public static void save(File file) throws IOException {
+		File dir = file.getAbsoluteFile().getParentFile();
+		File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeUTF(key());
+				Writer lexer = new Writer(out, MicroCLexer._ATN);
+				for (DFA dfa : MicroCLexer._decisionToDFA) lexer.writeDfa(dfa);
+				Writer parser = new Writer(out, MicroCParser._ATN);
+				for (DFA dfa : MicroCParser._decisionToDFA) parser.writeDfa(dfa);
+			}
+			try {
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			tmp.delete();
+		}
+	}
+
+	/* Put loaded states into the live DFAs. Entry 0 of each array is the start state */
+	private static void install(DFA[] dfas, List<DFAState[]> states) {
+		for (int d = 0; d < dfas.length; d++) {
+			DFA dfa = dfas[d];
+			DFAState[] s = states.get(d);
+			synchronized (dfa.states) {
+				//a precedence DFA's start state is a placeholder that is not one of its states
+				for (int i = dfa.isPrecedenceDfa() ? 1 : 0; i < s.length; i++) {
+					if (s[i] != null) dfa.states.put(s[i], s[i]);
+				}
+			}
+			if (dfa.isPrecedenceDfa()) {
+				dfa.s0.edges = (s[0] != null) ? s[0].edges : null;
+			} else {
+				dfa.s0 = s[0];
+			}
+		}
+	}
+
+	/*
+	 * A DFA is written as its prediction contexts (parents before children), then its
+	 * states without edges, then every state's edges. Entry 0 is the start state: s0,
+	 * or for precedence DFAs the placeholder whose edges are the start states by
+	 * precedence. The other entries are the DFA's states.
+	 */
+	private static class Writer {
+		private final DataOutputStream out;
+		private final ATN atn;
+		private final Map<PredictionContext, Integer> contextIds = new IdentityHashMap<PredictionContext, Integer>();
+		private final Map<DFAState, Integer> stateIds = new IdentityHashMap<DFAState, Integer>();
+
+		Writer(DataOutputStream out, ATN atn) {
+			this.out = out;
+			this.atn = atn;
+		}
+
+		void writeDfa(DFA dfa) throws IOException {
+			contextIds.clear();
+			stateIds.clear();
+
+			List<DFAState> states = new ArrayList<DFAState>();
+			states.add(dfa.s0);
+			stateIds.put(dfa.s0, 0); //fine if null; nothing points to it
+			Deque<DFAState> work = new ArrayDeque<DFAState>();
+			synchronized (dfa.states) {
+				work.addAll(dfa.states.values());
+			}
+			if (dfa.s0 != null) work.add(dfa.s0);
+			while (!work.isEmpty()) {
+				DFAState s = work.pop();
+				if (s != dfa.s0 && !stateIds.containsKey(s)) {
+					stateIds.put(s, states.size());
+					states.add(s);
+				}
+				if (s.edges != null) {
+					for (DFAState t : s.edges) {
+						if (t != null && t != ATNSimulator.ERROR && !stateIds.containsKey(t)) work.push(t);
+					}
+				}
+			}
+
+			List<PredictionContext> contexts = new ArrayList<PredictionContext>();
+			for (DFAState s : states) {
+				if (s != null && s.configs != null) {
+					for (ATNConfig c : s.configs) collect(c.context, contexts);
+				}
+			}
+			out.writeInt(contexts.size());
+			for (PredictionContext ctx : contexts) writeContext(ctx);
+
+			out.writeInt(states.size());
+			for (DFAState s : states) writeState(s);
+			for (DFAState s : states) {
+				DFAState[] edges = (s != null) ? s.edges : null;
+				if (edges == null) {
+					out.writeInt(NONE);
+					continue;
+				}
+				out.writeInt(edges.length);
+				for (DFAState t : edges) {
+					out.writeInt((t == null) ? NONE : (t == ATNSimulator.ERROR) ? ERROR : stateIds.get(t));
+				}
+			}
+		}
+
+		/* Number every context reachable from ctx, parents first */
+		private void collect(PredictionContext ctx, List<PredictionContext> contexts) {
+			if (ctx == null || contextIds.containsKey(ctx)) return;
+			Deque<PredictionContext> work = new ArrayDeque<PredictionContext>();
+			work.push(ctx);
+			while (!work.isEmpty()) {
+				PredictionContext c = work.peek();
+				if (contextIds.containsKey(c)) {
+					work.pop();
+					continue;
+				}
+				boolean ready = true;
+				for (int i = 0; i < c.size(); i++) {
+					PredictionContext p = c.getParent(i);
+					if (p != null && !contextIds.containsKey(p)) {
+						work.push(p);
+						ready = false;
+					}
+				}
+				if (ready) {
+					work.pop();
+					contextIds.put(c, contexts.size());
+					contexts.add(c);
+				}
+			}
+		}
+
+		private void writeContext(PredictionContext ctx) throws IOException {
+			if (ctx == PredictionContext.EMPTY) {
+				out.writeByte(0);
+			} else if (ctx instanceof SingletonPredictionContext) {
+				SingletonPredictionContext s = (SingletonPredictionContext) ctx;
+				out.writeByte(1);
+				out.writeInt(contextId(s.parent));
+				out.writeInt(s.returnState);
+			} else {
+				ArrayPredictionContext a = (ArrayPredictionContext) ctx;
+				out.writeByte(2);
+				out.writeInt(a.parents.length);
+				for (int i = 0; i < a.parents.length; i++) {
+					out.writeInt(contextId(a.parents[i]));
+					out.writeInt(a.returnStates[i]);
+				}
+			}
+		}
+
+		private int contextId(PredictionContext ctx) {
+			return (ctx == null) ? NONE : contextIds.get(ctx);
+		}
+
+		private void writeState(DFAState s) throws IOException {
+			out.writeBoolean(s != null);
+			if (s == null) return;
+			out.writeInt(s.stateNumber);
+			out.writeBoolean(s.isAcceptState);
+			out.writeInt(s.prediction);
+			out.writeBoolean(s.requiresFullContext);
+			writeExecutor(s.lexerActionExecutor);
+			if (s.predicates == null) {
+				out.writeInt(NONE);
+			} else {
+				out.writeInt(s.predicates.length);
+				for (DFAState.PredPrediction p : s.predicates) {
+					writeSemantic(p.pred);
+					out.writeInt(p.alt);
+				}
+			}
+			writeConfigs(s.configs);
+		}
+
+		private void writeConfigs(ATNConfigSet set) throws IOException {
+			out.writeBoolean(set != null);
+			if (set == null) return;
+			out.writeBoolean(set instanceof OrderedATNConfigSet);
+			out.writeBoolean(set.fullCtx);
+			out.writeBoolean(set.isReadonly());
+			out.writeInt(set.uniqueAlt);
+			BitSet conflicting = LoadedConfigSet.conflictingAlts(set);
+			if (conflicting == null) {
+				out.writeInt(NONE);
+			} else {
+				long[] words = conflicting.toLongArray();
+				out.writeInt(words.length);
+				for (long w : words) out.writeLong(w);
+			}
+			out.writeBoolean(set.hasSemanticContext);
+			out.writeBoolean(set.dipsIntoOuterContext);
+			out.writeInt(set.size());
+			for (ATNConfig c : set) {
+				out.writeInt(c.state.stateNumber);
+				out.writeInt(c.alt);
+				out.writeInt(contextId(c.context));
+				writeSemantic(c.semanticContext);
+				out.writeInt(c.reachesIntoOuterContext);
+				out.writeBoolean(c instanceof LexerATNConfig);
+				if (c instanceof LexerATNConfig) {
+					LexerATNConfig lc = (LexerATNConfig) c;
+					writeExecutor(lc.getLexerActionExecutor());
+					out.writeBoolean(lc.hasPassedThroughNonGreedyDecision());
+				}
+			}
+		}
+
+		private void writeSemantic(SemanticContext sc) throws IOException {
+			if (sc == SemanticContext.NONE) {
+				out.writeByte(0);
+			} else if (sc instanceof SemanticContext.Predicate) {
+				SemanticContext.Predicate p = (SemanticContext.Predicate) sc;
+				out.writeByte(1);
+				out.writeInt(p.ruleIndex);
+				out.writeInt(p.predIndex);
+				out.writeBoolean(p.isCtxDependent);
+			} else if (sc instanceof SemanticContext.PrecedencePredicate) {
+				out.writeByte(2);
+				out.writeInt(((SemanticContext.PrecedencePredicate) sc).precedence);
+			} else {
+				boolean and = sc instanceof SemanticContext.AND;
+				SemanticContext[] opnds = and ? ((SemanticContext.AND) sc).opnds : ((SemanticContext.OR) sc).opnds;
+				out.writeByte(and ? 3 : 4);
+				out.writeInt(opnds.length);
+				for (SemanticContext o : opnds) writeSemantic(o);
+			}
+		}
+
+		/* Lexer actions are written as their index in the ATN's action table */
+		private void writeExecutor(LexerActionExecutor e) throws IOException {
+			if (e == null) {
+				out.writeInt(NONE);
+				return;
+			}
+			LexerAction[] actions = e.getLexerActions();
+			out.writeInt(actions.length);
+			for (LexerAction a : actions) {
+				if (a instanceof LexerIndexedCustomAction) {
+					out.writeInt(((LexerIndexedCustomAction) a).getOffset());
+					out.writeInt(actionIndex(((LexerIndexedCustomAction) a).getAction()));
+				} else {
+					out.writeInt(NONE);
+					out.writeInt(actionIndex(a));
+				}
+			}
+		}
+
+		private int actionIndex(LexerAction a) throws IOException {
+			for (int i = 0; i < atn.lexerActions.length; i++) {
+				if (atn.lexerActions[i].equals(a)) return i;
+			}
+			throw new IOException("lexer action " + a + " is not in the ATN");
+		}
+	}
+
+	private static class Reader {
+		private final DataInputStream in;
+		private final ATN atn;
+		private PredictionContext[] contexts;
+
+		Reader(DataInputStream in, ATN atn) {
+			this.in = in;
+			this.atn = atn;
+		}
+
+		DFAState[] readDfa() throws IOException {
+			contexts = new PredictionContext[in.readInt()];
+			for (int i = 0; i < contexts.length; i++) contexts[i] = readContext();
+
+			DFAState[] states = new DFAState[in.readInt()];
+			for (int i = 0; i < states.length; i++) states[i] = readState();
+			for (DFAState s : states) {
+				int n = in.readInt();
+				if (n == NONE) continue;
+				DFAState[] edges = new DFAState[n];
+				for (int i = 0; i < n; i++) {
+					int t = in.readInt();
+					edges[i] = (t == NONE) ? null : (t == ERROR) ? ATNSimulator.ERROR : states[t];
+				}
+				if (s != null) s.edges = edges;
+			}
+			return states;
+		}
+
+		private PredictionContext context(int id) {
+			return (id == NONE) ? null : contexts[id];
+		}
+
+		private PredictionContext readContext() throws IOException {
+			switch (in.readByte()) {
+				case 0:
+					return PredictionContext.EMPTY;
+				case 1: {
+					PredictionContext parent = context(in.readInt());
+					return SingletonPredictionContext.create(parent, in.readInt());
+				}
+				default: {
+					int n = in.readInt();
+					PredictionContext[] parents = new PredictionContext[n];
+					int[] returnStates = new int[n];
+					for (int i = 0; i < n; i++) {
+						parents[i] = context(in.readInt());
+						returnStates[i] = in.readInt();
+					}
+					return new ArrayPredictionContext(parents, returnStates);
+				}
+			}
+		}
+
+		private DFAState readState() throws IOException {
+			if (!in.readBoolean()) return null;
+			int stateNumber = in.readInt();
+			boolean accept = in.readBoolean();
+			int prediction = in.readInt();
+			boolean fullContext = in.readBoolean();
+			LexerActionExecutor executor = readExecutor();
+			DFAState.PredPrediction[] predicates = null;
+			int n = in.readInt();
+			if (n != NONE) {
+				predicates = new DFAState.PredPrediction[n];
+				for (int i = 0; i < n; i++) {
+					SemanticContext pred = readSemantic();
+					predicates[i] = new DFAState.PredPrediction(pred, in.readInt());
+				}
+			}
+			DFAState s = new DFAState(readConfigs());
+			s.stateNumber = stateNumber;
+			s.isAcceptState = accept;
+			s.prediction = prediction;
+			s.requiresFullContext = fullContext;
+			s.lexerActionExecutor = executor;
+			s.predicates = predicates;
+			return s;
+		}
+
+		private ATNConfigSet readConfigs() throws IOException {
+			if (!in.readBoolean()) return null;
+			boolean ordered = in.readBoolean();
+			boolean fullCtx = in.readBoolean();
+			boolean readonly = in.readBoolean();
+			LoadedConfigSet loaded = ordered ? null : new LoadedConfigSet(fullCtx);
+			ATNConfigSet set = ordered ? new OrderedATNConfigSet() : loaded;
+			set.uniqueAlt = in.readInt();
+			int words = in.readInt();
+			if (words != NONE) {
+				long[] w = new long[words];
+				for (int i = 0; i < words; i++) w[i] = in.readLong();
+				if (loaded != null) loaded.setConflictingAlts(BitSet.valueOf(w));
+			}
+			boolean hasSemanticContext = in.readBoolean();
+			boolean dipsIntoOuterContext = in.readBoolean();
+			int n = in.readInt();
+			for (int i = 0; i < n; i++) {
+				ATNConfig c = readConfig();
+				if (readonly) {
+					set.configs.add(c); //exactly as saved; add() could merge configs
+				} else {
+					set.add(c);
+				}
+			}
+			set.hasSemanticContext = hasSemanticContext;
+			set.dipsIntoOuterContext = dipsIntoOuterContext;
+			set.setReadonly(readonly);
+			return set;
+		}
+
+		private ATNConfig readConfig() throws IOException {
+			ATNState state = atn.states.get(in.readInt());
+			int alt = in.readInt();
+			PredictionContext ctx = context(in.readInt());
+			SemanticContext semantic = readSemantic();
+			int reaches = in.readInt();
+			ATNConfig c;
+			if (in.readBoolean()) {
+				LexerActionExecutor executor = readExecutor();
+				LexerATNConfig lc = new LexerATNConfig(state, alt, ctx, executor);
+				if (in.readBoolean()) {
+					//the flag can only be set by passing through a non-greedy decision, so do that
+					DecisionState nonGreedy = nonGreedyDecision();
+					lc = new LexerATNConfig(new LexerATNConfig(lc, nonGreedy), state);
+				}
+				c = lc;
+			} else {
+				c = new ATNConfig(state, alt, ctx, semantic);
+			}
+			c.reachesIntoOuterContext = reaches;
+			return c;
+		}
+
+		private DecisionState nonGreedyDecision() throws IOException {
+			for (ATNState s : atn.states) {
+				if (s instanceof DecisionState && ((DecisionState) s).nonGreedy) return (DecisionState) s;
+			}
+			throw new IOException("no non-greedy decision in the ATN");
+		}
+
+		private SemanticContext readSemantic() throws IOException {
+			byte tag = in.readByte();
+			switch (tag) {
+				case 0:
+					return SemanticContext.NONE;
+				case 1: {
+					int rule = in.readInt();
+					int pred = in.readInt();
+					return new SemanticContext.Predicate(rule, pred, in.readBoolean());
+				}
+				case 2:
+					return new SemanticContext.PrecedencePredicate(in.readInt());
+				default: {
+					//the constructors flatten nested operands, so fold them back one at a time
+					int n = in.readInt();
+					SemanticContext sc = readSemantic();
+					for (int i = 1; i < n; i++) {
+						SemanticContext o = readSemantic();
+						sc = (tag == 3) ? new SemanticContext.AND(sc, o) : new SemanticContext.OR(sc, o);
+					}
+					return sc;
+				}
+			}
+		}
+
+		private LexerActionExecutor readExecutor() throws IOException {
+			int n = in.readInt();
+			if (n == NONE) return null;
+			LexerAction[] actions = new LexerAction[n];
+			for (int i = 0; i < n; i++) {
+				int offset = in.readInt();
+				LexerAction a = atn.lexerActions[in.readInt()];
+				actions[i] = (offset == NONE) ? a : new LexerIndexedCustomAction(offset, a);
+			}
+			return new LexerActionExecutor(actions);
+		}
+	}
+
+	/* Config set whose conflicting alternatives can be restored */
+	private static class LoadedConfigSet extends ATNConfigSet {
+		private static final Field CONFLICTING_ALTS;
+
+		static {
+			try {
+				CONFLICTING_ALTS = ATNConfigSet.class.getDeclaredField("conflictingAlts");
+				CONFLICTING_ALTS.setAccessible(true);
+			} catch (NoSuchFieldException e) {
+				throw new Error(e);
+			}
+		}
+
+		LoadedConfigSet(boolean fullCtx) {
+			super(fullCtx);
+		}
+
+		void setConflictingAlts(BitSet alts) {
+			conflictingAlts = alts;
+		}
+
+		/* The field is protected and only reachable through this class's own instances */
+		static BitSet conflictingAlts(ATNConfigSet set) {
+			try {
+				return (BitSet) CONFLICTING_ALTS.get(set);
+			} catch (IllegalAccessException e) {
+				throw new Error(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,272 @@
+package compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import assembly.CodeGenerator;
+import assembly.instructions.Instruction;
+import ast.FunctionNode;
+
+/**
+ * On-disk cache of the code generated for single functions, so that after an edit
+ * only the functions that changed go through code generation again:
+ *
+ * 		compiler.Compiler --fn-cache DIR prog.uC
+ *
+ * Each entry is a file in DIR named by a SHA-256 hash of everything the function's
+ * code depends on:
+ *
+ * 		- the function's tokens (so whitespace and comments do not matter)
+ * 		- every global its identifiers name, with its type and address, or for a
+ * 		  function its signature
+ * 		- the compiler's class files, so a changed code generator, register
+ * 		  allocator, ... does not reuse code generated by the old one
+ * 		- the code generation options (the number of registers, the allocator, ...)
+ *
+ * Labels and temps are numbered per function, so nothing else about the program
+ * shows up in a function's code. Entries are written to a temp file and renamed, so
+ * several compilers can share a directory. Nothing is ever removed from it.
+ */
+public class FunctionCache {
+
+	private static final String MAGIC = "MCFC";
+	private static final int VERSION = 2;
+
+	private static String generatorStamp;
+
+	private final File dir;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	public FunctionCache(File dir) {
+		this.dir = dir;
+		dir.mkdirs();
+	}
+
+	/**
+	 * @return key for the function's code, or null if its source was not kept
+	 */
+	public String key(FunctionNode f, CompilationContext ctx) {
+		String source = f.getSource();
+		if (source == null) return null;
+
+		MessageDigest md = digest();
+		update(md, VERSION + " " + generatorStamp() + " " + ctx.getRegisters() + " " + ctx.getAllocator() + " " + ctx.getAbi() + " " + ctx.isDumpDataflow());
+		update(md, source);
+
+		//globals named in the function, in a fixed order; locals that hide one only add a spare dependency
+		Scope global = ctx.getSymbolTable().getGlobalScope();
+		TreeSet<String> names = new TreeSet<String>();
+		for (String token : source.split(" ")) {
+			if (global.getSymbolTableEntry(token) != null) names.add(token);
+		}
+		for (String name : names) {
+			update(md, global.getSymbolTableEntry(name).toString());
+		}
+		return hex(md.digest());
+	}
+
+	/**
+	 * @return the entry saved under <code>key</code>, or null if there is none (or it cannot be read)
+	 */
+	public Entry get(String key) {
+		File file = new File(dir, key);
+		if (file.isFile()) {
+			try {
+				Entry e = Entry.parse(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+				hits.incrementAndGet();
+				return e;
+			} catch (IOException | RuntimeException e) {
+				//unreadable entries are generated again and overwritten
+			}
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Save an entry under <code>key</code>. A cache that cannot be written only costs
+	 * generating the code again next time, so failures are ignored.
+	 */
+	public void put(String key, Entry e) {
+		File tmp = null;
+		try {
+			tmp = File.createTempFile(key, ".tmp", dir);
+			Files.write(tmp.toPath(), e.format().getBytes(StandardCharsets.UTF_8));
+			Files.move(tmp.toPath(), new File(dir, key).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException ex) {
+			//nothing to do
+		} finally {
+			if (tmp != null) tmp.delete();
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	private static MessageDigest digest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new Error(e);
+		}
+	}
+
+	private static void update(MessageDigest md, String s) {
+		md.update(s.getBytes(StandardCharsets.UTF_8));
+		md.update((byte) 0);
+	}
+
+	private static String hex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder();
+		for (byte b : bytes) {
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return sb.toString();
+	}
+
+	/*
+	 * Hash of the compiler's classes: every class file in the directory or jar the code
+	 * generator was loaded from. The allocators, the instruction classes and the emitter
+	 * shape the cached code as much as the code generator does.
+	 */
+	private static synchronized String generatorStamp() {
+		if (generatorStamp == null) {
+			MessageDigest md = digest();
+			try {
+				Path where = Paths.get(CodeGenerator.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+				if (Files.isDirectory(where)) {
+					List<Path> classes;
+					try (Stream<Path> files = Files.walk(where)) {
+						classes = files.filter(p -> p.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+					}
+					for (Path p : classes) {
+						update(md, where.relativize(p).toString());
+						md.update(Files.readAllBytes(p));
+					}
+				} else {
+					md.update(Files.readAllBytes(where));
+				}
+			} catch (IOException | URISyntaxException e) {
+				throw new Error(e);
+			}
+			generatorStamp = hex(md.digest());
+		}
+		return generatorStamp;
+	}
+
+	/**
+	 * The code generated for one function: the comments printed while generating it,
+	 * its instructions as emitted (one per line), how many instructions it has of each
+	 * op code, and what else was recorded about it in {@link CompilerStats}.
+	 */
+	public static class Entry {
+		private final byte[] comments;
+		private final String code;
+		private final Map<Instruction.OpCode, Integer> opCodes;
+		private final int intTemps;
+		private final int floatTemps;
+		private final int locals;
+		private final int saved;
+
+		public Entry(byte[] comments, String code, Map<Instruction.OpCode, Integer> opCodes, int intTemps, int floatTemps, int locals, int saved) {
+			this.comments = comments;
+			this.code = code;
+			this.opCodes = opCodes;
+			this.intTemps = intTemps;
+			this.floatTemps = floatTemps;
+			this.locals = locals;
+			this.saved = saved;
+		}
+
+		public byte[] getComments() {
+			return comments;
+		}
+
+		public String getCode() {
+			return code;
+		}
+
+		public Map<Instruction.OpCode, Integer> getOpCodes() {
+			return opCodes;
+		}
+
+		public int getIntTemps() {
+			return intTemps;
+		}
+
+		public int getFloatTemps() {
+			return floatTemps;
+		}
+
+		public int getLocals() {
+			return locals;
+		}
+
+		public int getSaved() {
+			return saved;
+		}
+
+		/*
+		 * An entry is one piece of text, read and decoded in one go:
+		 *
+		 * 		MCFC <version> <int temps> <float temps> <locals> <saved registers> <comment chars> <code chars>
+		 * 		<op code>=<count> <op code>=<count> ...
+		 * 		<comments><code>
+		 */
+		private String format() {
+			String c = new String(comments);
+			StringBuilder sb = new StringBuilder();
+			sb.append(MAGIC).append(' ').append(VERSION).append(' ').append(intTemps).append(' ').append(floatTemps)
+					.append(' ').append(locals).append(' ').append(saved).append(' ').append(c.length()).append(' ').append(code.length()).append('\n');
+			for (Map.Entry<Instruction.OpCode, Integer> e : opCodes.entrySet()) {
+				sb.append(e.getKey().name()).append('=').append(e.getValue()).append(' ');
+			}
+			sb.append('\n');
+			sb.append(c).append(code);
+			return sb.toString();
+		}
+
+		private static Entry parse(String s) {
+			int pos = s.indexOf('\n');
+			String[] header = s.substring(0, pos).split(" ");
+			if (!header[0].equals(MAGIC) || Integer.parseInt(header[1]) != VERSION) {
+				throw new IllegalArgumentException("not a function cache entry");
+			}
+			int end = s.indexOf('\n', pos + 1);
+			Map<Instruction.OpCode, Integer> opCodes = new EnumMap<Instruction.OpCode, Integer>(Instruction.OpCode.class);
+			for (String count : s.substring(pos + 1, end).split(" ")) {
+				if (count.isEmpty()) continue;
+				int eq = count.indexOf('=');
+				opCodes.put(Instruction.OpCode.valueOf(count.substring(0, eq)), Integer.parseInt(count.substring(eq + 1)));
+			}
+			pos = end + 1;
+			int commentChars = Integer.parseInt(header[6]);
+			int codeChars = Integer.parseInt(header[7]);
+			byte[] comments = s.substring(pos, pos + commentChars).getBytes();
+			String code = s.substring(pos + commentChars, pos + commentChars + codeChars);
+			return new Entry(comments, code, opCodes, Integer.parseInt(header[2]), Integer.parseInt(header[3]), Integer.parseInt(header[4]),
+					Integer.parseInt(header[5]));
+		}
+	}
+}
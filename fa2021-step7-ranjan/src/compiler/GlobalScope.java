@@ -1,5 +1,7 @@
 package compiler;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 	public class GlobalScope extends Scope {
@@ -44,5 +46,49 @@ import java.util.List;
 	protected SymbolTableEntry searchLocalScope(String name) {
 		return table.get(name);
 	}
+
+	/**
+	 * Remember the current contents so {@link #reset} can go back to them
+	 */
+	Mark mark() {
+		return new Mark(this);
+	}
+
+	/**
+	 * Drop everything added since <code>m</code> was taken, and undo functions
+	 * being defined since then
+	 */
+	void reset(Mark m) {
+		table.clear();
+		table.putAll(m.table);
+		for (FunctionSymbolTableEntry f : m.undefined) {
+			f.setDefined(false);
+		}
+		while (subScopes.size() > m.subScopes) {
+			subScopes.removeLast();
+		}
+		globalBase = m.globalBase;
+		stringBase = m.stringBase;
+	}
+
+	static class Mark {
+		private final LinkedHashMap<String, SymbolTableEntry> table;
+		private final List<FunctionSymbolTableEntry> undefined = new ArrayList<FunctionSymbolTableEntry>();
+		private final int subScopes;
+		private final int globalBase;
+		private final int stringBase;
+
+		private Mark(GlobalScope s) {
+			table = new LinkedHashMap<String, SymbolTableEntry>(s.table);
+			for (SymbolTableEntry ste : table.values()) {
+				if (ste instanceof FunctionSymbolTableEntry && !((FunctionSymbolTableEntry) ste).isDefined()) {
+					undefined.add((FunctionSymbolTableEntry) ste);
+				}
+			}
+			subScopes = s.subScopes.size();
+			globalBase = s.globalBase;
+			stringBase = s.stringBase;
+		}
+	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package compiler;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import assembly.AsmEmitter;
+import assembly.CodeGenerator;
+
+/**
+ * Links separately compiled objects (see {@link ObjectFile}) into one program:
+ *
+ * 		compiler.Linker [-o out.asm] a.o b.o ...
+ *
+ * Globals declared in several objects are the same global, as are strings, so
+ * they must agree on type or value. Each function must be defined in exactly one
+ * object, with the signature every caller declared it with, and one of them must
+ * be <code>main</code>. Globals and strings are laid out in the order they first
+ * appear, the way {@link GlobalScope} lays out a single file, so linking the object
+ * of one file gives the same code as compiling it directly.
+ */
+public class Linker {
+
+	private Linker() {
+	}
+
+	public static void main(String args[]) {
+		String output = null;
+		List<ObjectFile> objects = new ArrayList<ObjectFile>();
+		List<String> names = new ArrayList<String>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-o")) {
+					output = args[++i];
+				} else {
+					objects.add(ObjectFile.read(Paths.get(args[i])));
+					names.add(args[i]);
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("link: " + e.getMessage());
+			System.exit(1);
+		}
+
+		try (OutputStream out = (output != null) ? new BufferedOutputStream(new FileOutputStream(output)) : System.out) {
+			link(objects, names, new AsmEmitter(out));
+		} catch (CompilationException e) {
+			System.err.println("link: " + e.getMessage());
+			System.exit(e.getStatus());
+		} catch (IOException e) {
+			System.err.println("link: cannot write " + output);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Link the objects and write the program
+	 *
+	 * @param names what to call each object in error messages
+	 * @throws CompilationException if the objects do not fit together
+	 */
+	public static void link(List<ObjectFile> objects, List<String> names, AsmEmitter out) {
+		Map<String, String> globals = new LinkedHashMap<String, String>();
+		Map<String, String> strings = new LinkedHashMap<String, String>();
+		Map<String, String> defines = new HashMap<String, String>();
+		Map<String, String> definedIn = new HashMap<String, String>();
+
+		for (int o = 0; o < objects.size(); o++) {
+			ObjectFile obj = objects.get(o);
+			for (Map.Entry<String, String> e : obj.globals.entrySet()) {
+				merge(globals, e.getKey(), e.getValue(), "global " + e.getKey() + " is declared as ");
+			}
+			for (Map.Entry<String, String> e : obj.strings.entrySet()) {
+				merge(strings, e.getKey(), e.getValue(), "string " + e.getKey() + " is declared as ");
+			}
+			for (Map.Entry<String, String> e : obj.defines.entrySet()) {
+				if (definedIn.containsKey(e.getKey())) {
+					throw error("function " + e.getKey() + " is defined in " + definedIn.get(e.getKey()) + " and " + names.get(o));
+				}
+				defines.put(e.getKey(), e.getValue());
+				definedIn.put(e.getKey(), names.get(o));
+			}
+		}
+		for (String name : globals.keySet()) {
+			if (strings.containsKey(name)) throw error(name + " is declared as both a global and a string");
+		}
+		for (int o = 0; o < objects.size(); o++) {
+			for (Map.Entry<String, String> e : objects.get(o).externs.entrySet()) {
+				String def = defines.get(e.getKey());
+				if (def == null) {
+					throw error(names.get(o) + ": undefined function " + e.getKey());
+				}
+				if (!def.equals(e.getValue())) {
+					throw error(names.get(o) + ": function " + e.getKey() + " is declared as " + e.getValue()
+							+ " but defined in " + definedIn.get(e.getKey()) + " as " + def);
+				}
+			}
+		}
+		if (!defines.containsKey("main")) throw error("no main function");
+
+		Map<String, String> address = new HashMap<String, String>();
+		int addr = SymbolTable.GLOBAL_BASE;
+		for (String name : globals.keySet()) {
+			address.put(name, String.format("0x%x", addr));
+			addr += 4;
+		}
+		addr = SymbolTable.STRING_BASE;
+		for (String name : strings.keySet()) {
+			address.put(name, String.format("0x%x", addr));
+			addr += 4;
+		}
+
+		out.println(".section .text");
+		out.emit(new CodeGenerator().generateEntry().getCode());
+		for (ObjectFile obj : objects) {
+			for (int i = 0; i < obj.code.size(); i++) {
+				out.print(obj.code.get(i));
+				String symbol = obj.relocs.get(i);
+				if (symbol != null) out.print(address.get(symbol));
+				out.println();
+			}
+		}
+		out.println();
+
+		out.println();
+		out.println(".section .strings");
+		for (Map.Entry<String, String> e : strings.entrySet()) {
+			out.print(address.get(e.getKey())).print(' ').println(e.getValue());
+		}
+		out.flush();
+	}
+
+	private static void merge(Map<String, String> symbols, String name, String value, String conflict) {
+		String old = symbols.putIfAbsent(name, value);
+		if (old != null && !old.equals(value)) {
+			throw error(conflict + old + " and " + value);
+		}
+	}
+
+	private static CompilationException error(String message) {
+		return new CompilationException(message, 1);
+	}
+}
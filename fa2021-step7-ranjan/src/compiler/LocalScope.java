@@ -48,6 +48,26 @@ public class LocalScope extends Scope {
 		return ste;
 	}
 
+	/**
+	 * @return offset from the frame pointer of the slot of argument <code>i</code>
+	 *         (from 0, in declaration order) of a function with <code>n</code> of them
+	 */
+	public static int argumentOffset(int i, int n) {
+		return startingArgsOffset + 4 * (n - 1 - i);
+	}
+
+	/**
+	 * Make room in the frame for a value the register allocator keeps in memory
+	 * 
+	 * @return offset of the new slot from the frame pointer
+	 */
+	public int addSpillSlot() {
+		int addr = localsOffset;
+		localsOffset -= 4;
+		numLocals++;
+		return addr;
+	}
+
 	@Override
 	protected StringSymbolTableEntry genStringSymbol(compiler.Scope.Type type, String name, String value) {
 		throw new Error("Should never try to create a string symbol in a local scope");
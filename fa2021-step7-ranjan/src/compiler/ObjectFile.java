@@ -0,0 +1,170 @@
+package compiler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import assembly.AsmEmitter;
+import assembly.CodeGenerator;
+import assembly.instructions.Instruction;
+import assembly.instructions.Jr;
+import assembly.instructions.La;
+import compiler.Scope.FunctionSymbolTableEntry;
+import compiler.Scope.StringSymbolTableEntry;
+import compiler.Scope.SymbolTableEntry;
+
+/**
+ * Relocatable object for one separately compiled <code>.uC</code> file, written by
+ * <code>compiler.Compiler --emit-obj</code> and combined into a program by
+ * {@link Linker}.
+ *
+ * It holds the code of the file's functions with no addresses filled in, plus what
+ * the linker needs to fill them in:
+ *
+ * <pre>
+ * UCOBJ 2
+ * global &lt;name&gt; &lt;type&gt;               one per global variable, in declaration order
+ * string &lt;name&gt; &lt;value&gt;              one per string, in declaration order
+ * define &lt;name&gt; &lt;signature&gt;          functions defined here
+ * extern &lt;name&gt; &lt;signature&gt;          functions called here but defined elsewhere
+ * code &lt;n&gt;
+ * &lt;n lines of assembly&gt;
+ * reloc &lt;line&gt; &lt;symbol&gt;              the address of symbol goes at the end of line
+ * </pre>
+ *
+ * A signature is the return and parameter types and the calling convention, so
+ * objects compiled with different <code>--abi</code>s do not link.
+ *
+ * Function labels are already symbolic (<code>func_name</code>), and every other
+ * label starts with the name of its function, so only <code>LA</code> operands
+ * (addresses of globals and strings) need relocating.
+ */
+public class ObjectFile {
+
+	static final String MAGIC = "UCOBJ";
+	static final int VERSION = 2;
+
+	final Map<String, String> globals = new LinkedHashMap<String, String>(); //name -> type
+	final Map<String, String> strings = new LinkedHashMap<String, String>(); //name -> value
+	final Map<String, String> defines = new LinkedHashMap<String, String>(); //name -> signature
+	final Map<String, String> externs = new LinkedHashMap<String, String>(); //name -> signature
+	final List<String> code = new ArrayList<String>();
+	final Map<Integer, String> relocs = new LinkedHashMap<Integer, String>(); //line -> symbol
+
+	private ObjectFile() {
+	}
+
+	/**
+	 * Make an object from a compiled file's global scope and the code of its functions
+	 */
+	public static ObjectFile build(SymbolTable st, Iterable<Instruction> code, CodeGenerator.Abi abi) {
+		ObjectFile obj = new ObjectFile();
+		Map<String, String> symbolAt = new HashMap<String, String>(); //address -> name
+
+		Set<String> prototypes = new HashSet<String>();
+		for (SymbolTableEntry ste : st.getGlobalScope().getEntries()) {
+			if (ste instanceof FunctionSymbolTableEntry) {
+				FunctionSymbolTableEntry f = (FunctionSymbolTableEntry) ste;
+				if (f.isDefined()) {
+					obj.defines.put(f.getName(), signature(f, abi));
+				} else {
+					prototypes.add(f.getName());
+				}
+			} else if (ste instanceof StringSymbolTableEntry) {
+				obj.strings.put(ste.getName(), ((StringSymbolTableEntry) ste).getValue());
+				symbolAt.put(ste.addressToString(), ste.getName());
+			} else {
+				obj.globals.put(ste.getName(), ste.getType().toString());
+				symbolAt.put(ste.addressToString(), ste.getName());
+			}
+		}
+
+		StringWriter text = new StringWriter();
+		AsmEmitter asm = new AsmEmitter(text);
+		for (Instruction i : code) {
+			i.emit(asm);
+			asm.flush();
+			String line = text.toString();
+			text.getBuffer().setLength(0);
+
+			if (i instanceof La) {
+				String symbol = symbolAt.get(i.label);
+				if (symbol == null) {
+					throw new Error("LA of " + i.label + ", which is not a global");
+				}
+				obj.relocs.put(obj.code.size(), symbol);
+				line = line.substring(0, line.length() - i.label.length());
+			} else if (i instanceof Jr && i.label.startsWith("func_")) {
+				String callee = i.label.substring("func_".length());
+				if (!obj.defines.containsKey(callee) && prototypes.contains(callee)) {
+					obj.externs.put(callee, signature((FunctionSymbolTableEntry) st.getGlobalScope().getSymbolTableEntry(callee), abi));
+				}
+			}
+			obj.code.add(line);
+		}
+		return obj;
+	}
+
+	private static String signature(FunctionSymbolTableEntry f, CodeGenerator.Abi abi) {
+		return f.getReturnType() + " (" + f.getArgTypes() + ") " + abi.name().toLowerCase();
+	}
+
+	public void write(PrintStream out) {
+		out.println(MAGIC + " " + VERSION);
+		for (Map.Entry<String, String> e : globals.entrySet()) out.println("global " + e.getKey() + " " + e.getValue());
+		for (Map.Entry<String, String> e : strings.entrySet()) out.println("string " + e.getKey() + " " + e.getValue());
+		for (Map.Entry<String, String> e : defines.entrySet()) out.println("define " + e.getKey() + " " + e.getValue());
+		for (Map.Entry<String, String> e : externs.entrySet()) out.println("extern " + e.getKey() + " " + e.getValue());
+		out.println("code " + code.size());
+		for (String line : code) out.println(line);
+		for (Map.Entry<Integer, String> e : relocs.entrySet()) out.println("reloc " + e.getKey() + " " + e.getValue());
+		out.flush();
+	}
+
+	/**
+	 * @throws IOException if the file cannot be read or is not an object
+	 */
+	public static ObjectFile read(Path file) throws IOException {
+		ObjectFile obj = new ObjectFile();
+		try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line = in.readLine();
+			if (line == null || !line.equals(MAGIC + " " + VERSION)) {
+				throw new IOException(file + " is not an object file");
+			}
+			while ((line = in.readLine()) != null) {
+				String[] f = line.split(" ", 3);
+				switch (f[0]) {
+					case "global": obj.globals.put(f[1], f[2]); break;
+					case "string": obj.strings.put(f[1], f[2]); break;
+					case "define": obj.defines.put(f[1], f[2]); break;
+					case "extern": obj.externs.put(f[1], f[2]); break;
+					case "reloc": obj.relocs.put(Integer.parseInt(f[1]), f[2]); break;
+					case "code":
+						int n = Integer.parseInt(f[1]);
+						for (int i = 0; i < n; i++) {
+							String c = in.readLine();
+							if (c == null) throw new IOException(file + " is truncated");
+							obj.code.add(c);
+						}
+						break;
+					default:
+						throw new IOException(file + ": bad line " + line);
+				}
+			}
+		} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+			throw new IOException(file + " is not an object file");
+		}
+		return obj;
+	}
+}
@@ -12,7 +12,7 @@ import org.antlr.v4.gui.TreeViewer;
 
 public class ParseTreeViewer {
 
-	static public SymbolTable symbolTable = new SymbolTable();
+	static public CompilationContext context = new CompilationContext();
 
 	public ParseTreeViewer() {
 		
@@ -28,7 +28,7 @@ public class ParseTreeViewer {
 			
 			MicroCParser parser = new MicroCParser(new CommonTokenStream(lexer));
 			
-			parser.setSymbolTable(symbolTable);
+			parser.setContext(context);
 
 			// parser.setErrorHandler(new MyErrorStrategy());
 			
@@ -1,5 +1,6 @@
 package compiler;
 
+import java.io.PrintStream;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -16,31 +17,83 @@ public abstract class Scope{
 		VOID
 	}
 
+	/**
+	 * A type. Types are interned: there is one object per type, so types are
+	 * compared with <code>==</code> (or {@link #equals}, which is the same thing) and
+	 * can be used as hash keys. Base types are the constants below (or {@link #of}),
+	 * and pointer types come from {@link #pointerToType}, which makes each pointer
+	 * type once and hands out the same object after that.
+	 */
 	static public class Type {
 
+		public static final Type STRING = new Type(InnerType.STRING, null);
+		public static final Type INT = new Type(InnerType.INT, null);
+		public static final Type FLOAT = new Type(InnerType.FLOAT, null);
+		public static final Type INFER = new Type(InnerType.INFER, null);
+		public static final Type VOID = new Type(InnerType.VOID, null);
+
 		public final InnerType type;
+		final Type wrappedType;
 
-		public Type(InnerType type) {
-			assert(type != InnerType.PTR);
-			this.type = type;
-			this.wrappedType = null;
-		}
+		private final InnerType baseType; //type at the end of the pointer chain
+		private final int pointerDepth;
+		private final int hash;
+		private volatile Type pointer; //pointer to this type, once someone asked for it
 
 		private Type(InnerType type, Type wrappedType) {
 			this.type = type;
 			this.wrappedType = wrappedType;
+			this.baseType = (wrappedType == null) ? type : wrappedType.baseType;
+			this.pointerDepth = (wrappedType == null) ? 0 : wrappedType.pointerDepth + 1;
+			this.hash = 31 * baseType.ordinal() + pointerDepth; //the same in every run, unlike identity hashes
+		}
+
+		/**
+		 * @return the type for a base (non-pointer) inner type
+		 */
+		public static Type of(InnerType type) {
+			switch (type) {
+				case STRING: return STRING;
+				case INT: return INT;
+				case FLOAT: return FLOAT;
+				case INFER: return INFER;
+				case VOID: return VOID;
+				default: throw new Error("Pointer types are made with pointerToType");
+			}
 		}
 
 		public static Type pointerToType(Type wrappedType) {
-			return new Type(InnerType.PTR, wrappedType);
+			Type p = wrappedType.pointer;
+			if (p == null) {
+				synchronized (wrappedType) {
+					p = wrappedType.pointer;
+					if (p == null) {
+						p = new Type(InnerType.PTR, wrappedType);
+						wrappedType.pointer = p;
+					}
+				}
+			}
+			return p;
 		}
 
-		final Type wrappedType;
-		
 		public Type getWrappedType() {
 			return wrappedType;
 		}
 
+		/**
+		 * @return the inner type at the end of the pointer chain (the type itself if it is not a pointer)
+		 */
+		public InnerType getBaseType() {
+			return baseType;
+		}
+
+		/**
+		 * @return how many pointers deep this type is (0 if it is not a pointer)
+		 */
+		public int getPointerDepth() {
+			return pointerDepth;
+		}
+
 		@Override
 		public String toString() {
 			if (type != InnerType.PTR) {
@@ -52,15 +105,12 @@ public abstract class Scope{
 
 		@Override
 		public boolean equals(Object other) {
-			if (other instanceof Type) {
-				if (type != InnerType.PTR) {
-					return this.type == ((Type) other).type;
-				} else {
-					return this.wrappedType.equals(((Type) other).getWrappedType());
-				}
-			} else {
-				return false;
-			}
+			return this == other;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
 		}
 	}
 
@@ -118,6 +168,14 @@ public abstract class Scope{
 		subScopes.add(newScope);
 		return newScope;
 	}
+
+	/**
+	 * Forget a sub scope that is no longer needed (e.g., a function that has
+	 * already been compiled when compiling function by function)
+	 */
+	public void removeSubScope(Scope s) {
+		subScopes.remove(s);
+	}
 	
 	public SymbolTableEntry getSymbolTableEntry(String name) {
 		SymbolTableEntry retval = null;
@@ -153,20 +211,20 @@ public abstract class Scope{
 		return ErrorType.NONE;
 	}
 	
-	public void printTable() {
-		printLocalTable();
+	public void printTable(PrintStream out) {
+		printLocalTable(out);
 		for (Scope st : subScopes) {
-			st.printTable();
+			st.printTable(out);
 		}
 	}
 	
-	protected void printLocalTable() {
-		System.out.println("; Symbol table " + name);
+	protected void printLocalTable(PrintStream out) {
+		out.println("; Symbol table " + name);
 		
 		for (SymbolTableEntry ste : table.values())
-			System.out.println(ste);
+			out.println(ste);
 			
-		System.out.println();
+		out.println();
 	}
 	
 	static public class SymbolTableEntry {
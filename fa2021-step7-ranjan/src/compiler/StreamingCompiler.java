@@ -0,0 +1,133 @@
+package compiler;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+
+import assembly.AsmEmitter;
+import assembly.CodeGenerator;
+import assembly.CodeObject;
+import ast.FunctionNode;
+
+/**
+ * Compiles a program one function at a time:
+ *
+ * 		compiler.Compiler --stream [-o out.asm] prog.uC
+ *
+ * The parser hands each function to {@link #function} as soon as it has parsed it,
+ * and the function's code is generated and written out right away. After that
+ * nothing refers to its AST, code or local scope anymore. Characters and tokens are
+ * read through unbuffered streams and no parse tree is built, so the only things
+ * kept from one function to the next are the global scope (globals, strings and
+ * function signatures). Memory use is bounded by the largest function rather than
+ * by the whole file.
+ *
+ * The assembly is the same as {@link Compiler#compile} produces. Only the symbol
+ * table comments move: the global table comes first, and each function's table is
+ * printed just before its code.
+ */
+public class StreamingCompiler {
+
+	private final CompilationContext ctx;
+	private final CodeGenerator cg;
+	private final AsmEmitter asm;
+	private final CompilerStats stats;
+	private boolean started;
+
+	public StreamingCompiler(CompilationContext ctx) {
+		this.ctx = ctx;
+		this.cg = new CodeGenerator(ctx);
+		this.asm = new AsmEmitter(ctx.getOutput());
+		this.stats = ctx.getStats();
+		this.started = false;
+	}
+
+	/**
+	 * Compile the program read from <code>in</code> and write the assembly to the
+	 * context's output.
+	 */
+	public void compile(InputStream in) {
+		MicroCLexer lexer = new MicroCLexer(new UnbufferedCharStream(in, 4096, StandardCharsets.UTF_8));
+		lexer.setTokenFactory(new CommonTokenFactory(true)); //tokens keep their own text, since the characters are not kept
+
+		MicroCParser parser = new MicroCParser(new StreamingTokenStream(lexer));
+		parser.setBuildParseTree(false);
+		parser.setContext(ctx);
+		parser.setFunctionSink(this::function);
+
+		//functions are compiled and written out while parsing, so there is no going back
+		//for a second try; parse with full LL prediction from the start
+		stats.enter("parse");
+		parser.program();
+		stats.exit();
+
+		stats.enter("emit");
+		start(); //in case there were no functions
+		asm.println();
+		Compiler.printStrings(ctx.getSymbolTable(), asm);
+		asm.flush();
+		stats.exit();
+	}
+
+	/* Everything that goes before the first function */
+	private void start() {
+		if (started) return;
+		started = true;
+
+		ctx.getSymbolTable().printGlobalTable();
+
+		asm.println(".section .text");
+		asm.emit(cg.generateEntry().getCode());
+		asm.flush();
+	}
+
+	private void function(FunctionNode f) {
+		stats.enter("emit");
+		start();
+		ctx.getSymbolTable().printAndDropScope(f.getScope());
+		stats.exit();
+
+		stats.countNodes(f);
+
+		//Type checking before codegen, as in Compiler.compile
+		// new TypeCheckVisitor().run(f);
+
+		stats.enter("codegen");
+		CodeObject co = cg.run(f);
+		stats.exit();
+
+		stats.countInstructions(co.getCode());
+
+		//CodeGenerator may print comments straight to the output, so flush after each function
+		stats.enter("emit");
+		asm.emit(co.getCode());
+		asm.println();
+		asm.flush();
+		stats.exit();
+	}
+
+	/**
+	 * Unbuffered token stream that can still give the text of a rule that matched a
+	 * single token after the parser has moved past it. That is all the grammar's
+	 * actions ask for (<code>$id.text</code>, <code>$addop.text</code>, ...).
+	 */
+	private static class StreamingTokenStream extends UnbufferedTokenStream<Token> {
+
+		StreamingTokenStream(TokenSource tokenSource) {
+			super(tokenSource);
+		}
+
+		@Override
+		public String getText(Token start, Token stop) {
+			if (start == stop) {
+				return start.getText();
+			}
+			return super.getText(start, stop);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package compiler;
 
+import java.io.PrintStream;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Stack;
@@ -7,13 +8,18 @@ import java.util.Stack;
 import compiler.Scope.FunctionSymbolTableEntry;
 
 public class SymbolTable {
+
+	/* Where strings and globals are laid out, here and by the Linker */
+	static final int STRING_BASE = 0x10000000;
+	static final int GLOBAL_BASE = 0x20000000;
 	
 	private Scope globalScope;
 	private Stack<Scope> scopeStack;
 	private LinkedList<String> errors;
+	private PrintStream out; //where the table, warnings and errors are printed
 
 	public SymbolTable() {
-		this(0x10000000, 0x20000000);
+		this(STRING_BASE, GLOBAL_BASE);
 	}
 
 	public SymbolTable(int stringBase, int globalBase) {
@@ -23,6 +29,11 @@ public class SymbolTable {
 		scopeStack.push(getGlobalScope());
 
 		errors = new LinkedList<String>();
+		out = System.out;
+	}
+
+	public void setOutput(PrintStream out) {
+		this.out = out;
 	}
 	
 	public Scope currentScope() {
@@ -39,7 +50,7 @@ public class SymbolTable {
 		assert (type.type != Scope.InnerType.STRING);
 		Scope.ErrorType e = currentScope().addSymbol(type, name);
 		if (e != Scope.ErrorType.NONE) {
-			System.out.println("Found " + e + " adding " + type + " " + name);
+			out.println("Found " + e + " adding " + type + " " + name);
 		}
 	    processError(name, e);
 	}
@@ -81,6 +92,41 @@ public class SymbolTable {
 		scopeStack.pop();
 	}
 	
+	/**
+	 * Remember the current state of the table so it can be rolled back to, e.g. to
+	 * parse a program again (see {@link TwoStageParser}). Can only be taken at global
+	 * scope. Copies the global scope, which is empty at the start of a program.
+	 */
+	public Checkpoint checkpoint() {
+		if (scopeStack.size() != 1) {
+			throw new Error("Can only checkpoint the symbol table at global scope");
+		}
+		return new Checkpoint(((GlobalScope) globalScope).mark(), errors.size());
+	}
+
+	/**
+	 * Forget every declaration, scope and error added since <code>c</code> was taken
+	 */
+	public void rollback(Checkpoint c) {
+		((GlobalScope) globalScope).reset(c.global);
+		while (scopeStack.size() > 1) {
+			scopeStack.pop();
+		}
+		while (errors.size() > c.errors) {
+			errors.removeLast();
+		}
+	}
+
+	public static class Checkpoint {
+		private final GlobalScope.Mark global;
+		private final int errors;
+
+		private Checkpoint(GlobalScope.Mark global, int errors) {
+			this.global = global;
+			this.errors = errors;
+		}
+	}
+
 	public void processError(String name, Scope.ErrorType e) {
 		switch(e) {
 			case NONE : return;
@@ -91,19 +137,33 @@ public class SymbolTable {
 			case ERROR :
 				errors.add("DECLARATION ERROR " + name);
 				printErrors();
-				System.exit(1);
-				break;
+				throw new CompilationException("DECLARATION ERROR " + name, 1);
 		}
 	}
 	
 	public void printErrors() {
 		for (String error : errors) {
-			System.out.println(error);
+			out.println(error);
 		}
 	}
 	
 	public void printTable() {
-		getGlobalScope().printTable();
+		getGlobalScope().printTable(out);
+	}
+
+	/**
+	 * Print just the global scope, without the function scopes under it
+	 */
+	public void printGlobalTable() {
+		getGlobalScope().printLocalTable(out);
+	}
+
+	/**
+	 * Print the table of one function scope and then drop it from the symbol table
+	 */
+	public void printAndDropScope(Scope s) {
+		s.printTable(out);
+		getGlobalScope().removeSubScope(s);
 	}
 	
 	public Scope getGlobalScope() {
@@ -117,10 +177,10 @@ public class SymbolTable {
 	public static void main(String args[]) {
 		SymbolTable st =  new SymbolTable();
 
-		st.addVariable(new Scope.Type(Scope.InnerType.INT), "x");
-		st.addVariable(new Scope.Type(Scope.InnerType.INT), "y");
-		st.addVariable(new Scope.Type(Scope.InnerType.STRING), "z", "Hello");
-		st.addVariable(new Scope.Type(Scope.InnerType.STRING), "w", "World");
+		st.addVariable(Scope.Type.INT, "x");
+		st.addVariable(Scope.Type.INT, "y");
+		st.addVariable(Scope.Type.STRING, "z", "Hello");
+		st.addVariable(Scope.Type.STRING, "w", "World");
 
 		st.printTable();
 	}
@@ -0,0 +1,99 @@
+package compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+/**
+ * Parses a program with ANTLR's fast SLL prediction first and falls back to full LL
+ * prediction only if that fails.
+ *
+ * SLL prediction does not look at the calling context, so it is much cheaper, and it
+ * is enough for nearly every program. When it is not enough it can only fail, not
+ * accept the program some other way, so with {@link BailErrorStrategy} the first
+ * stage either parses the whole program or gives up with no error reported. The
+ * program is then parsed again from the first token with full LL prediction and the
+ * usual error reporting and recovery, so errors come out exactly as before.
+ *
+ * The grammar actions fill in the symbol table while parsing, so a failed first stage
+ * leaves declarations behind that the second would trip over. The symbol table is
+ * checkpointed before the first stage and rolled back after it fails, and what it
+ * printed in the meantime (warnings, declaration errors) is held back and only
+ * written out if the first stage succeeds. The AST is built from the rules' return
+ * values, so the second stage builds a fresh one.
+ */
+public class TwoStageParser {
+
+	/* Totals over every program parsed in this process (e.g. by the daemon) */
+	private static final AtomicLong sllParses = new AtomicLong();
+	private static final AtomicLong llFallbacks = new AtomicLong();
+
+	private TwoStageParser() {
+	}
+
+	/**
+	 * Parse the program the parser's token stream is pointed at. The parser's
+	 * context must already be set.
+	 */
+	public static void parse(MicroCParser parser, CompilationContext ctx) {
+		SymbolTable st = ctx.getSymbolTable();
+		SymbolTable.Checkpoint checkpoint = st.checkpoint();
+		ByteArrayOutputStream held = new ByteArrayOutputStream();
+
+		//the rules report an error before the bail strategy gets to give up, so nobody may listen
+		List<ANTLRErrorListener> listeners = new ArrayList<ANTLRErrorListener>(parser.getErrorListeners());
+		parser.removeErrorListeners();
+		parser.setErrorHandler(new BailErrorStrategy());
+		parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+		st.setOutput(new PrintStream(held, true));
+		boolean parsed = false;
+		try {
+			parser.program();
+			parsed = true;
+		} catch (ParseCancellationException | CompilationException e) {
+			//a declaration error may only be an artifact of a wrong prediction, so retry that too
+		} finally {
+			st.setOutput(ctx.getOutput());
+			parser.setErrorHandler(new DefaultErrorStrategy());
+			parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+			for (ANTLRErrorListener l : listeners) {
+				parser.addErrorListener(l);
+			}
+		}
+
+		if (parsed) {
+			sllParses.incrementAndGet();
+			ctx.getStats().parsed(false);
+			ctx.getOutput().write(held.toByteArray(), 0, held.size());
+			return;
+		}
+
+		llFallbacks.incrementAndGet();
+		ctx.getStats().parsed(true);
+		st.rollback(checkpoint);
+		parser.reset(); //back to the first token
+		parser.program();
+	}
+
+	/**
+	 * @return how many programs this process parsed with SLL prediction alone
+	 */
+	public static long getSllParses() {
+		return sllParses.get();
+	}
+
+	/**
+	 * @return how many programs this process had to parse again with full LL prediction
+	 */
+	public static long getLlFallbacks() {
+		return llFallbacks.get();
+	}
+}